@@ -40,7 +40,7 @@ public class Auth0ConnectorConfiguration implements KeyManagerConnectorConfigura
 
     @Override
     public String getJWTValidator() {
-        return null;
+        return Auth0JWTValidator.class.getName();
     }
 
     @Override
@@ -60,6 +60,46 @@ public class Auth0ConnectorConfiguration implements KeyManagerConnectorConfigura
                         "Audience of the Admin API", "https://[tenant].[region].auth0.com/api/v2/",
                         true,
                         false, Collections.emptyList(), false));
+        configurationDtoList
+                .add(new ConfigurationDto(Auth0Constants.ENABLE_CLUSTER_TOKEN_CACHE, "Cluster Token Cache", "select",
+                        "Share issued tokens with the other nodes of the cluster", "false", false,
+                        false, Arrays.asList("false", "true"), false));
+        configurationDtoList
+                .add(new ConfigurationDto(Auth0Constants.ADDITIONAL_TENANTS, "Additional Tenants", "input",
+                        "JSON array of further Auth0 tenants to place applications on, each with a name, "
+                                + "token_endpoint, audience, client_id and client_secret", "", false,
+                        true, Collections.emptyList(), false));
+        configurationDtoList
+                .add(new ConfigurationDto(Auth0Constants.ENABLE_EVENT_JOURNAL, "Event Journal", "select",
+                        "Record application, token and management API events to a local journal file", "true",
+                        false, false, Arrays.asList("true", "false"), false));
+        configurationDtoList
+                .add(new ConfigurationDto(Auth0Constants.EVENT_JOURNAL_OVERFLOW_POLICY, "Event Journal Overflow Policy",
+                        "select", "Events dropped when the journal cannot keep up", "drop_newest", false,
+                        false, Arrays.asList("drop_newest", "drop_oldest", "wait"), false));
+        configurationDtoList
+                .add(new ConfigurationDto(Auth0Constants.ENABLE_CHANGE_FEED, "Change Feed", "select",
+                        "Follow the Auth0 tenant logs to cache applications until they change, requires the "
+                                + "read:logs scope", "false", false, false, Arrays.asList("false", "true"), false));
+        configurationDtoList
+                .add(new ConfigurationDto(Auth0Constants.ENABLE_CLIENT_REGISTRY, "Client Registry", "select",
+                        "Keep a compact local replica of the Auth0 clients and serve application lookups from it",
+                        "false", false, false, Arrays.asList("false", "true"), false));
+        configurationDtoList
+                .add(new ConfigurationDto(Auth0Constants.ENABLE_WARM_UP, "Warm-up", "select",
+                        "Open connections to Auth0 and prepare the request handling code in the background when the "
+                                + "configuration is loaded", "true", false, false, Arrays.asList("true", "false"),
+                        false));
+        configurationDtoList
+                .add(new ConfigurationDto(Auth0Constants.GRANT_ALL_SCOPES, "Grant All Scopes", "select",
+                        "Grant new applications every scope of the WSO2 resource server, which lets any application "
+                                + "obtain tokens with the scopes of every API", "false", false, false,
+                        Arrays.asList("false", "true"), false));
+        configurationDtoList
+                .add(new ConfigurationDto(Auth0Constants.ADDITIONAL_TOKEN_ENDPOINTS, "Additional Token Endpoints",
+                        "input", "Comma separated token endpoints equivalent to the token endpoint, such as the "
+                                + "canonical tenant domain of a custom domain, used when it is slow or failing", "",
+                        false, false, Collections.emptyList(), false));
         return configurationDtoList;
     }
 
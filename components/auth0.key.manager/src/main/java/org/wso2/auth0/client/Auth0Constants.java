@@ -29,6 +29,9 @@ public class Auth0Constants {
     public static final String GRANT_TYPE = "grant_type";
     public static final String GRANT_TYPE_CLIENT_CREDENTIALS = "client_credentials";
     public static final String AUTH0_RESOURCE_SERVER = "WSO2 resource server API";
+    public static final String RESOURCE_SERVER_IDENTIFIER = "identifier";
+    public static final String RESOURCE_SERVER_NAME = "name";
+    public static final String RESOURCE_SERVER_SCOPES = "scopes";
     public static final String CONTENT_TYPE = "Content-type";
     public static final String CONTENT_TYPE_JSON = "application/json";
     public static final String STRING_FORMAT = "%s %s";
@@ -40,4 +43,92 @@ public class Auth0Constants {
     public static final String ERROR_OCCURRED_WHILE_READ_OR_CLOSE_BUFFER_READER = "Error has occurred while reading " +
             "or closing buffer reader";
     public static final long DEFAULT_TOKEN_LIFETIME = 86400;
+    public static final String ADDITIONAL_TENANTS = "additional_tenants";
+    public static final String PRIMARY_TENANT_NAME = "primary";
+    public static final int TENANT_RING_VIRTUAL_NODES = 128;
+    public static final long CLIENT_OWNER_FLUSH_DELAY_MILLIS = 1000;
+    public static final long CLIENT_OWNER_LOG_COMPACTION_MIN_RECORDS = 10000;
+    public static final long CLIENT_OWNER_CLOSE_TIMEOUT_SECONDS = 5;
+    public static final long CONFIGURATION_RETIRE_GRACE_SECONDS = 60;
+    public static final String ENABLE_CLUSTER_TOKEN_CACHE = "enable_cluster_token_cache";
+    public static final String CLUSTER_TOKEN_CACHE_NAME = "AUTH0_KM_TOKEN_CACHE";
+    public static final long CLUSTER_TOKEN_CACHE_LOCK_WAIT_MILLIS = 5000;
+    public static final long CLUSTER_TOKEN_CACHE_LOCK_LEASE_MILLIS = 30000;
+    public static final String CLUSTER_LOCK_MAP_NAME = "AUTH0_KM_LOCKS";
+    public static final long TOKEN_CACHE_EXPIRY_SKEW_SECONDS = 30;
+    public static final int TOKEN_CACHE_MAX_SIZE = 10000;
+    public static final double TOKEN_REFRESH_AHEAD_FRACTION = 0.2;
+    public static final long TOKEN_REFRESH_AHEAD_MIN_HITS_PER_MINUTE = 6;
+    public static final int TOKEN_REFRESH_AHEAD_MAX_CONCURRENT = 4;
+    public static final long SCOPE_WRITE_BUFFER_WINDOW_MILLIS = 200;
+    public static final long SCOPE_WRITE_RETRY_DELAY_MILLIS = 5000;
+    public static final long SCOPE_WRITE_LOCK_WAIT_MILLIS = 10000;
+    public static final long SCOPE_WRITE_LOCK_LEASE_MILLIS = 30000;
+    public static final long SCOPE_CATALOG_REFRESH_INTERVAL_SECONDS = 60;
+    public static final int SCOPE_ENCODING_CACHE_MAX_SIZE = 4096;
+    public static final long TOKEN_LEDGER_TICK_MILLIS = 1000;
+    public static final int TOKEN_LEDGER_WHEEL_SIZE = 3600;
+    public static final int TOKEN_LEDGER_MAX_TOKENS = 200000;
+    public static final int TOKEN_LEDGER_MAX_TOKENS_PER_CONSUMER = 50;
+    public static final int REVOCATION_FILTER_PURGE_INTERVAL = 1024;
+    public static final String REVOCATION_FILTER_CLUSTER_NAME = "AUTH0_KM_REVOKED_CLIENTS";
+    public static final int ASYNC_DECODE_THREADS = 4;
+    public static final int ASYNC_DECODE_QUEUE_SIZE = 1024;
+    public static final int HTTP_METRICS_SAMPLE_RATE = 10;
+    public static final String ENABLE_EVENT_JOURNAL = "enable_event_journal";
+    public static final String EVENT_JOURNAL_OVERFLOW_POLICY = "event_journal_overflow_policy";
+    public static final int EVENT_JOURNAL_CAPACITY = 8192;
+    public static final int EVENT_JOURNAL_BATCH_SIZE = 256;
+    public static final long EVENT_JOURNAL_IDLE_PARK_MILLIS = 20;
+    public static final long EVENT_JOURNAL_OFFER_WAIT_MICROS = 1000;
+    public static final long EVENT_JOURNAL_CLOSE_TIMEOUT_SECONDS = 5;
+    public static final long EVENT_JOURNAL_MAX_FILE_BYTES = 10L * 1024 * 1024;
+    public static final int EVENT_JOURNAL_MAX_BACKUPS = 5;
+    public static final String ENABLE_CHANGE_FEED = "enable_change_feed";
+    public static final long CHANGE_FEED_POLL_INTERVAL_SECONDS = 10;
+    public static final int CHANGE_FEED_PAGE_SIZE = 100;
+    public static final int CHANGE_FEED_MAX_PAGES_PER_POLL = 10;
+    public static final long CLIENT_INFO_CACHE_TTL_SECONDS = 3600;
+    public static final int CLIENT_INFO_CACHE_MAX_SIZE = 10000;
+    public static final String ENABLE_CLIENT_REGISTRY = "enable_client_registry";
+    public static final int CLIENT_REGISTRY_PAGE_SIZE = 100;
+    public static final long CLIENT_REGISTRY_RATE_LIMIT_DELAY_MILLIS = 1000;
+    public static final long CLIENT_REGISTRY_MAX_AGE_SECONDS = 300;
+    public static final long HTTP_KEEP_ALIVE_MINUTES = 5;
+    public static final int TOKEN_LANE_MAX_CONCURRENT = 64;
+    public static final int TOKEN_LANE_MAX_QUEUED = 256;
+    public static final long TOKEN_LANE_QUEUE_TIMEOUT_MILLIS = 2000;
+    public static final int MANAGEMENT_READ_LANE_INITIAL_CONCURRENT = 16;
+    public static final int MANAGEMENT_READ_LANE_MAX_CONCURRENT = 32;
+    public static final int MANAGEMENT_READ_LANE_MAX_QUEUED = 128;
+    public static final int MANAGEMENT_WRITE_LANE_INITIAL_CONCURRENT = 8;
+    public static final int MANAGEMENT_WRITE_LANE_MAX_CONCURRENT = 16;
+    public static final int MANAGEMENT_WRITE_LANE_MAX_QUEUED = 128;
+    public static final long MANAGEMENT_LANE_QUEUE_TIMEOUT_MILLIS = 10000;
+    public static final String ADDITIONAL_TOKEN_ENDPOINTS = "additional_token_endpoints";
+    public static final double TOKEN_HEDGE_DELAY_PERCENTILE = 95;
+    public static final long TOKEN_HEDGE_MIN_DELAY_MILLIS = 20;
+    public static final long TOKEN_HEDGE_MAX_DELAY_MILLIS = 1000;
+    public static final long TOKEN_HEDGE_WINDOW_MILLIS = 30000;
+    public static final long TOKEN_HEDGE_MIN_SAMPLES = 20;
+    public static final double TOKEN_HEDGE_BUDGET_RATIO = 0.05;
+    public static final int TOKEN_HEDGE_MAX_BURST = 10;
+    public static final int TOKEN_ENDPOINT_EJECTION_FAILURES = 5;
+    public static final long TOKEN_ENDPOINT_EJECTION_MILLIS = 30000;
+    public static final long TOKEN_ENDPOINT_MAX_EJECTION_MILLIS = 300000;
+    public static final String ENABLE_WARM_UP = "enable_warm_up";
+    public static final int WARM_UP_CONNECTIONS_PER_LANE = 4;
+    public static final long WARM_UP_TIMEOUT_SECONDS = 30;
+    public static final int WARM_UP_MAPPING_ITERATIONS = 2000;
+    public static final double ADAPTIVE_LIMIT_DROP_BACKOFF = 0.5;
+    public static final double ADAPTIVE_LIMIT_LATENCY_BACKOFF = 0.9;
+    public static final double ADAPTIVE_LIMIT_LATENCY_TOLERANCE = 1.5;
+    public static final double ADAPTIVE_LIMIT_SHORT_RTT_SMOOTHING = 0.2;
+    public static final String GRANT_ALL_SCOPES = "grant_all_scopes";
+    public static final long CLIENT_GRANT_BATCH_WINDOW_MILLIS = 100;
+    public static final int CLIENT_GRANT_BATCH_SIZE = 50;
+    public static final long CLIENT_GRANT_MIN_INTERVAL_MILLIS = 100;
+    public static final long CLIENT_GRANT_RATE_LIMIT_DELAY_MILLIS = 1000;
+    public static final long CLIENT_GRANT_WAIT_MILLIS = 5000;
+    public static final int CLIENT_GRANT_CACHE_MAX_SIZE = 10000;
 }
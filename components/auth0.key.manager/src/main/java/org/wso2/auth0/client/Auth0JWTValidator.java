@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.token.Auth0RevocationFilter;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.dto.JWTValidationInfo;
+import org.wso2.carbon.apimgt.impl.jwt.JWTValidatorImpl;
+import org.wso2.carbon.apimgt.impl.jwt.SignedJWTInfo;
+
+import java.util.Date;
+
+/**
+ * JWT validator for Auth0 tokens, which in addition to the default validation rejects tokens of clients that were
+ * deleted or had their secret rotated after the token was issued.
+ */
+public class Auth0JWTValidator extends JWTValidatorImpl {
+    private static final Log log = LogFactory.getLog(Auth0JWTValidator.class);
+
+    @Override
+    public JWTValidationInfo validateToken(SignedJWTInfo signedJWTInfo) throws APIManagementException {
+        JWTValidationInfo jwtValidationInfo = super.validateToken(signedJWTInfo);
+        if (jwtValidationInfo == null || !jwtValidationInfo.isValid()) {
+            return jwtValidationInfo;
+        }
+        JWTClaimsSet claimsSet = signedJWTInfo.getJwtClaimsSet();
+        Object clientId = claimsSet.getClaim(Auth0Constants.AZP);
+        Date issueTime = claimsSet.getIssueTime();
+        if (clientId != null && issueTime != null && Auth0RevocationFilter.getInstance()
+                .isRevoked(clientId.toString(), issueTime.getTime() / 1000L)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Token issued to client " + clientId + " has been revoked");
+            }
+            jwtValidationInfo.setValid(false);
+            jwtValidationInfo.setValidationCode(APIConstants.KeyValidationStatus.API_AUTH_INVALID_CREDENTIALS);
+        }
+        return jwtValidationInfo;
+    }
+}
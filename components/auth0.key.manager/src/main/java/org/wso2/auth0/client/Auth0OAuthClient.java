@@ -19,23 +19,17 @@
 package org.wso2.auth0.client;
 
 import com.google.gson.Gson;
-import feign.Feign;
+import com.hazelcast.core.HazelcastInstance;
 import feign.FeignException;
-import feign.gson.GsonDecoder;
-import feign.gson.GsonEncoder;
-import feign.okhttp.OkHttpClient;
-import feign.slf4j.Slf4jLogger;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.apache.commons.httpclient.HttpStatus;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.api.model.API;
 import org.wso2.carbon.apimgt.api.model.AccessTokenInfo;
@@ -52,37 +46,280 @@ import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
+import org.wso2.auth0.client.cache.Auth0ClientInfoCache;
+import org.wso2.auth0.client.cache.Auth0ClusterTokenStore;
+import org.wso2.auth0.client.cache.Auth0TokenCache;
+import org.wso2.auth0.client.changefeed.Auth0ChangeFeedListener;
+import org.wso2.auth0.client.changefeed.Auth0ChangeType;
+import org.wso2.auth0.client.changefeed.Auth0LogCheckpointStore;
+import org.wso2.auth0.client.config.Auth0Settings;
+import org.wso2.auth0.client.grant.Auth0ClientGrantProvisioner;
+import org.wso2.auth0.client.internal.Auth0KeyManagerDataHolder;
+import org.wso2.auth0.client.journal.Auth0Event;
+import org.wso2.auth0.client.journal.Auth0EventJournal;
+import org.wso2.auth0.client.journal.Auth0EventType;
+import org.wso2.auth0.client.metrics.Auth0Metrics;
 import org.wso2.auth0.client.model.Auth0AccessTokenRequest;
 import org.wso2.auth0.client.model.Auth0AccessTokenResponse;
-import org.wso2.auth0.client.model.Auth0APIKeyInterceptor;
-import org.wso2.auth0.client.model.Auth0ResourceServerInfo;
+import org.wso2.auth0.client.model.Auth0AsyncDCRClient;
+import org.wso2.auth0.client.model.Auth0AsyncResourceServer;
 import org.wso2.auth0.client.model.Auth0ClientInfo;
-import org.wso2.auth0.client.model.Auth0DCRClient;
-import org.wso2.auth0.client.model.Auth0ResourceServer;
+import org.wso2.auth0.client.model.Auth0ScopeInfo;
+import org.wso2.auth0.client.model.Auth0TenantConfiguration;
+import org.wso2.auth0.client.registry.Auth0ClientRegistry;
+import org.wso2.auth0.client.registry.Auth0ClientRegistryLoader;
+import org.wso2.auth0.client.scope.Auth0ResourceScopeManager;
+import org.wso2.auth0.client.scope.Auth0ScopeCatalog;
+import org.wso2.auth0.client.scope.Auth0ScopeEncoder;
+import org.wso2.auth0.client.tenant.Auth0ClientOwnerStore;
+import org.wso2.auth0.client.tenant.Auth0Tenant;
+import org.wso2.auth0.client.tenant.Auth0TenantRouter;
+import org.wso2.auth0.client.token.Auth0IssuedTokenLedger;
+import org.wso2.auth0.client.token.Auth0RevocationFilter;
+import org.wso2.auth0.client.util.Auth0ThreadFactory;
+import org.wso2.auth0.client.warmup.Auth0WarmUp;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class Auth0OAuthClient extends AbstractKeyManager {
     private static final Log log = LogFactory.getLog(Auth0OAuthClient.class);
-    private Auth0DCRClient auth0DCRClient;
-    private Auth0ResourceServer auth0ResourceServer;
+    // Marks a token request refused because the client is not granted to the resource server.
+    private static final Auth0AccessTokenResponse NOT_GRANTED = new Auth0AccessTokenResponse();
+    private final Auth0ChangeFeedListener changeFeedListener = new ChangeFeedHandler();
+    // Tenants whose log cannot be read, during which applications are not cached.
+    private final Set<String> unavailableChangeFeeds = ConcurrentHashMap.newKeySet();
+    private final String resourceServerIdentifier;
+    private Auth0IssuedTokenLedger tokenLedger;
+    private Auth0ClientInfoCache clientInfoCache;
+    private Auth0Metrics metrics;
+    private ExecutorService asyncDecodeExecutor;
+    private ScheduledExecutorService retireScheduler;
+    private Auth0WarmUp warmUp;
+    private volatile Components components;
+
+    /**
+     * Components built for one snapshot of the settings. Every request reads the current instance once and uses it
+     * throughout, so requests in flight when the configuration is reloaded finish on the components they started with.
+     */
+    private static final class Components {
+        private final Auth0Settings settings;
+        private final Auth0TokenCache tokenCache;
+        private final Auth0EventJournal journal;
+        private final Auth0TenantRouter tenantRouter;
+        private final Auth0ScopeEncoder scopeEncoder;
+        private final Auth0ClientRegistry clientRegistry;
+        private final Auth0ClientRegistryLoader clientRegistryLoader;
+
+        Components(Auth0Settings settings, Auth0TokenCache tokenCache, Auth0EventJournal journal,
+                   Auth0TenantRouter tenantRouter, Auth0ScopeEncoder scopeEncoder,
+                   Auth0ClientRegistry clientRegistry, Auth0ClientRegistryLoader clientRegistryLoader) {
+            this.settings = settings;
+            this.tokenCache = tokenCache;
+            this.journal = journal;
+            this.tenantRouter = tenantRouter;
+            this.scopeEncoder = scopeEncoder;
+            this.clientRegistry = clientRegistry;
+            this.clientRegistryLoader = clientRegistryLoader;
+        }
+    }
+
+    public Auth0OAuthClient() {
+        this(null);
+    }
+
+    /**
+     * Creates a key manager for the given WSO2 resource server, for running it outside of API Manager, such as in the
+     * load test driver.
+     *
+     * @param resourceServerIdentifier identifier of the WSO2 resource server, or {@code null} to use the server URL
+     *                                 of API Manager.
+     */
+    public Auth0OAuthClient(String resourceServerIdentifier) {
+        this.resourceServerIdentifier = resourceServerIdentifier;
+    }
+
+    /**
+     * Applies the changes read from the tenant logs. Changes are reported for writes made by this node too, so
+     * clients are only invalidated and reloaded on their next use, and tokens are revoked as of the time of the
+     * change rather than the time it is read.
+     */
+    private final class ChangeFeedHandler implements Auth0ChangeFeedListener {
+
+        @Override
+        public void onClientChanged(String tenantName, String clientId, Auth0ChangeType changeType,
+                                    long changedAtSeconds) {
+            Components components = Auth0OAuthClient.this.components;
+            clientInfoCache.invalidate(clientId);
+            if (components != null && components.clientRegistry != null) {
+                components.clientRegistry.remove(clientId);
+            }
+            if (changeType == Auth0ChangeType.UPDATED) {
+                return;
+            }
+            Auth0RevocationFilter.getInstance().revoke(clientId, changedAtSeconds);
+            if (components != null) {
+                components.tokenCache.invalidateClient(clientId);
+            }
+            if (changeType == Auth0ChangeType.DELETED) {
+                tokenLedger.removeConsumer(clientId);
+                if (components != null) {
+                    Auth0Tenant tenant = components.tenantRouter.getTenant(tenantName);
+                    if (tenant != null) {
+                        tenant.getClientGrantProvisioner().forget(clientId);
+                    }
+                    components.tenantRouter.forget(clientId);
+                }
+            }
+        }
+
+        @Override
+        public void onResourceServerChanged(String tenantName, String resourceServerId, Auth0ChangeType changeType) {
+            Components components = Auth0OAuthClient.this.components;
+            Auth0Tenant tenant = components != null ? components.tenantRouter.getTenant(tenantName) : null;
+            // Tenants not swapped in yet load their scope catalog when they start.
+            if (tenant != null) {
+                tenant.onResourceServerChanged(resourceServerId, changeType);
+            }
+        }
+
+        /**
+         * Drops the cached applications and looks for the clients of the tenant that were deleted or had their secret
+         * rotated while changes were missed, namely the clients in the client registry, which is reloaded from the
+         * tenant, in the application cache and in the token ledger. Clients are compared with the tenant listing when
+         * there is a client registry and read one by one otherwise. A rotation is only noticed when this node knew
+         * the former secret, and the tokens of the clients found are revoked as of now.
+         */
+        @Override
+        public void onChangesMissed(String tenantName) {
+            Components components = Auth0OAuthClient.this.components;
+            Map<String, String> knownClientSecrets = new HashMap<>();
+            for (String consumerKey : tokenLedger.getConsumerKeys()) {
+                knownClientSecrets.put(consumerKey, null);
+            }
+            knownClientSecrets.putAll(clientInfoCache.getClientSecrets());
+            clientInfoCache.clear();
+            Auth0Tenant tenant = components != null ? components.tenantRouter.getTenant(tenantName) : null;
+            if (tenant == null) {
+                return;
+            }
+            Map<String, Auth0ClientInfo> listedClients = null;
+            if (components.clientRegistry != null) {
+                listedClients = components.clientRegistryLoader.listClients(tenant);
+                if (listedClients != null) {
+                    knownClientSecrets.putAll(components.clientRegistry.getClientSecrets(tenantName));
+                } else {
+                    log.warn("Could not list the clients of Auth0 tenant " + tenantName + " after missing its "
+                            + "changes, only the clients in use on this node are checked");
+                }
+            }
+            long now = System.currentTimeMillis() / 1000L;
+            int revokedClients = 0;
+            for (Map.Entry<String, String> knownClient : knownClientSecrets.entrySet()) {
+                String clientId = knownClient.getKey();
+                if (!components.tenantRouter.isKnownOwner(tenant, clientId)) {
+                    continue;
+                }
+                Auth0ClientInfo currentClient;
+                if (listedClients != null) {
+                    currentClient = listedClients.get(clientId);
+                } else {
+                    try {
+                        currentClient = tenant.getDCRClient().getApplication(clientId);
+                    } catch (FeignException e) {
+                        if (e.status() != 404) {
+                            log.warn("Could not check client " + clientId + " of Auth0 tenant " + tenantName, e);
+                            continue;
+                        }
+                        currentClient = null;
+                    }
+                }
+                Auth0ChangeType changeType = null;
+                if (currentClient == null) {
+                    changeType = Auth0ChangeType.DELETED;
+                } else if (knownClient.getValue() != null
+                        && !knownClient.getValue().equals(currentClient.getClientSecret())) {
+                    changeType = Auth0ChangeType.SECRET_ROTATED;
+                }
+                if (changeType != null) {
+                    onClientChanged(tenantName, clientId, changeType, now);
+                    revokedClients++;
+                }
+            }
+            if (listedClients != null) {
+                for (Auth0ClientInfo listedClient : listedClients.values()) {
+                    components.clientRegistry.put(tenantName, listedClient);
+                }
+            }
+            log.info("Revoked the tokens of " + revokedClients + " clients of Auth0 tenant " + tenantName
+                    + " deleted or with a rotated secret while its changes were missed");
+        }
+
+        @Override
+        public void onChangeFeedAvailabilityChanged(String tenantName, boolean available) {
+            if (available) {
+                unavailableChangeFeeds.remove(tenantName);
+            } else {
+                unavailableChangeFeeds.add(tenantName);
+            }
+            Components components = Auth0OAuthClient.this.components;
+            if (components != null) {
+                applyClientExpiry(components.settings, components.clientRegistry);
+            }
+        }
+    }
+
+    /**
+     * Sets how long applications are kept. When changes to them are followed through the change feed of every
+     * tenant, applications are cached for an hour and the client registry serves them until they change. Otherwise
+     * applications are not cached, and clients are served by the client registry for five minutes after they were
+     * read from Auth0.
+     *
+     * @param settings       key manager settings.
+     * @param clientRegistry client registry, or {@code null}.
+     */
+    private void applyClientExpiry(Auth0Settings settings, Auth0ClientRegistry clientRegistry) {
+        boolean changesFollowed = settings.isChangeFeedEnabled() && unavailableChangeFeeds.isEmpty();
+        clientInfoCache.setTimeToLive(changesFollowed
+                ? TimeUnit.SECONDS.toMillis(Auth0Constants.CLIENT_INFO_CACHE_TTL_SECONDS) : 0);
+        if (clientRegistry != null) {
+            clientRegistry.setMaxAge(changesFollowed ? Long.MAX_VALUE
+                    : TimeUnit.SECONDS.toMillis(Auth0Constants.CLIENT_REGISTRY_MAX_AGE_SECONDS));
+        }
+    }
 
     @Override
     public OAuthApplicationInfo createApplication(OAuthAppRequest oAuthAppRequest) throws APIManagementException {
+        Components components = this.components;
         OAuthApplicationInfo oAuthApplicationInfo = oAuthAppRequest.getOAuthApplicationInfo();
         Auth0ClientInfo clientInfo = createClientInfoFromOauthApplicationInfo(oAuthApplicationInfo);
-        checkAndCreateAPIIfNotExist();
-        Auth0ClientInfo createdApplication = auth0DCRClient.createApplication(clientInfo);
+        Auth0Tenant tenant = components.tenantRouter.place(clientInfo.getClientName());
+        tenant.checkAndCreateResourceServer();
+        Auth0ClientInfo createdApplication = tenant.getDCRClient().createApplication(clientInfo);
         if (createdApplication != null) {
+            components.tenantRouter.assign(createdApplication.getClientId(), tenant);
+            tenant.getClientGrantProvisioner().grant(createdApplication.getClientId());
+            clientInfoCache.put(createdApplication);
+            if (components.clientRegistry != null) {
+                components.clientRegistry.put(tenant.getName(), createdApplication);
+            }
+            components.journal.record(Auth0Event.of(Auth0EventType.APPLICATION_CREATED, tenant.getName(),
+                    createdApplication.getClientId(), createdApplication.getClientName()));
             OAuthApplicationInfo createdOauthApplication = createOAuthAppInfoFromResponse(createdApplication);
             return createdOauthApplication;
         }
@@ -172,12 +409,21 @@ public class Auth0OAuthClient extends AbstractKeyManager {
 
     @Override
     public OAuthApplicationInfo updateApplication(OAuthAppRequest oAuthAppRequest) throws APIManagementException {
+        Components components = this.components;
         OAuthApplicationInfo oAuthApplicationInfo = oAuthAppRequest.getOAuthApplicationInfo();
         Auth0ClientInfo clientInfo = createClientInfoFromOauthApplicationInfo(oAuthApplicationInfo);
         clientInfo.setClientSecret(oAuthApplicationInfo.getClientSecret());
-        checkAndCreateAPIIfNotExist();
-        Auth0ClientInfo createdApplication = auth0DCRClient.updateApplication(oAuthApplicationInfo.getClientId(), clientInfo);
+        Auth0Tenant tenant = components.tenantRouter.route(oAuthApplicationInfo.getClientId());
+        tenant.checkAndCreateResourceServer();
+        Auth0ClientInfo createdApplication = tenant.getDCRClient().updateApplication(oAuthApplicationInfo.getClientId(),
+                clientInfo);
         if (createdApplication != null) {
+            clientInfoCache.put(createdApplication);
+            if (components.clientRegistry != null) {
+                components.clientRegistry.put(tenant.getName(), createdApplication);
+            }
+            components.journal.record(Auth0Event.of(Auth0EventType.APPLICATION_UPDATED, tenant.getName(),
+                    oAuthApplicationInfo.getClientId(), createdApplication.getClientName()));
             OAuthApplicationInfo createOAuthApplication = createOAuthAppInfoFromResponse(createdApplication);
             return createOAuthApplication;
         }
@@ -186,12 +432,32 @@ public class Auth0OAuthClient extends AbstractKeyManager {
 
     @Override
     public void deleteApplication(String clientID) throws APIManagementException {
-        auth0DCRClient.deleteApplication(clientID);
+        Components components = this.components;
+        Auth0Tenant tenant = components.tenantRouter.route(clientID);
+        tenant.getDCRClient().deleteApplication(clientID);
+        clientInfoCache.invalidate(clientID);
+        if (components.clientRegistry != null) {
+            components.clientRegistry.remove(clientID);
+        }
+        revokeClientTokens(components, clientID);
+        tenant.getClientGrantProvisioner().forget(clientID);
+        components.tenantRouter.forget(clientID);
+        components.journal.record(Auth0Event.of(Auth0EventType.APPLICATION_DELETED, tenant.getName(), clientID,
+                null));
     }
 
     @Override
     public OAuthApplicationInfo retrieveApplication(String clientID) throws APIManagementException {
-        Auth0ClientInfo auth0ClientInfo = auth0DCRClient.getApplication(clientID);
+        Components components = this.components;
+        Auth0ClientInfo auth0ClientInfo = components.clientRegistry != null
+                ? components.clientRegistry.get(clientID) : null;
+        if (auth0ClientInfo == null) {
+            Auth0Tenant tenant = components.tenantRouter.route(clientID);
+            auth0ClientInfo = clientInfoCache.get(clientID, () -> tenant.getDCRClient().getApplication(clientID));
+            if (components.clientRegistry != null) {
+                components.clientRegistry.put(tenant.getName(), auth0ClientInfo);
+            }
+        }
         OAuthApplicationInfo createdOauthApplication = createOAuthAppInfoFromResponse(auth0ClientInfo);
         return createdOauthApplication;
     }
@@ -199,6 +465,7 @@ public class Auth0OAuthClient extends AbstractKeyManager {
     @Override
     public AccessTokenInfo getNewApplicationAccessToken(AccessTokenRequest accessTokenRequest)
             throws APIManagementException {
+        Components components = this.components;
         String clientId = accessTokenRequest.getClientId();
         String clientSecret = accessTokenRequest.getClientSecret();
         Object grantType = accessTokenRequest.getGrantType();
@@ -209,15 +476,20 @@ public class Auth0OAuthClient extends AbstractKeyManager {
         if (accessTokenRequest.getScope() != null && (accessTokenRequest.getScope().length > 0)) {
             scopes = String.join(" ", accessTokenRequest.getScope());
         }
-        Auth0AccessTokenResponse retrievedAccessTokenResponse = getAccessToken(clientId, clientSecret,
-                grantType.toString(), scopes);
+        String grantTypeValue = grantType.toString();
+        String requestedScopes = scopes;
+        Auth0Tenant tenant = components.tenantRouter.route(clientId);
+        Auth0AccessTokenResponse retrievedAccessTokenResponse = components.tokenCache.get(
+                Auth0TokenCache.applicationTokenKey(clientId, clientSecret, grantTypeValue, requestedScopes),
+                () -> getAccessToken(components, tenant, clientId, clientSecret, grantTypeValue, requestedScopes));
         if (retrievedAccessTokenResponse != null) {
             AccessTokenInfo accessTokenInfo = new AccessTokenInfo();
             accessTokenInfo.setConsumerKey(clientId);
             accessTokenInfo.setConsumerSecret(clientSecret);
             accessTokenInfo.setAccessToken(retrievedAccessTokenResponse.getAccessToken());
             if (retrievedAccessTokenResponse.getScope() != null) {
-                accessTokenInfo.setScope(retrievedAccessTokenResponse.getScope().split("\\s+"));
+                accessTokenInfo.setScope(components.scopeEncoder.encode(retrievedAccessTokenResponse.getScope())
+                        .getScopes());
             }
             accessTokenInfo.setValidityPeriod(retrievedAccessTokenResponse.getExpiry());
             return accessTokenInfo;
@@ -226,8 +498,13 @@ public class Auth0OAuthClient extends AbstractKeyManager {
     }
 
     /**
-     * Gets an access token.
+     * Gets an access token. A token requested right after the client was created waits for its grant to the
+     * resource server to be written, and a client refused for not being granted is granted and tried once more.
+     * Tokens issued by Auth0 are recorded in the token ledger and the event journal, which tokens served from the
+     * token cache are not, since they were recorded when they were issued.
      *
+     * @param components   components of the key manager.
+     * @param tenant       tenant that owns the oauth client.
      * @param clientId     clientId of the oauth client.
      * @param clientSecret clientSecret of the oauth client.
      * @param grantType    grantType of the oauth toke request.
@@ -235,53 +512,90 @@ public class Auth0OAuthClient extends AbstractKeyManager {
      * @return an {@code Auth0AccessTokenResponse}
      * @throws APIManagementException
      */
-    private Auth0AccessTokenResponse getAccessToken(String clientId, String clientSecret, String grantType,
-                                                    String scope) throws APIManagementException {
-        try (CloseableHttpClient httpClient = HttpClientBuilder.create().build()) {
-            String tokenEndpoint = (String) configuration.getParameter(APIConstants.KeyManager.TOKEN_ENDPOINT);
-            Auth0AccessTokenRequest accessTokenInfo = new Auth0AccessTokenRequest();
-            accessTokenInfo.setClientId(clientId);
-            accessTokenInfo.setClientSecret(clientSecret);
-            accessTokenInfo.setGrantType(grantType);
-            accessTokenInfo.setAudience(APIUtil.getServerURL());
-            accessTokenInfo.setScope(scope);
-            HttpPost httpPost = new HttpPost(tokenEndpoint);
-            StringEntity requestEntity = new StringEntity(new Gson().toJson(accessTokenInfo));
-            httpPost.setHeader(Auth0Constants.CONTENT_TYPE, Auth0Constants.CONTENT_TYPE_JSON);
-            httpPost.setEntity(requestEntity);
-            HttpResponse response = httpClient.execute(httpPost);
-            int statusCode = response.getStatusLine().getStatusCode();
-            HttpEntity entity = response.getEntity();
-            if (entity == null) {
-                new APIManagementException(String.format(Auth0Constants.STRING_FORMAT,
+    private Auth0AccessTokenResponse getAccessToken(Components components, Auth0Tenant tenant, String clientId,
+                                                    String clientSecret, String grantType, String scope)
+            throws APIManagementException {
+        Auth0ClientGrantProvisioner clientGrantProvisioner = tenant.getClientGrantProvisioner();
+        boolean granted = clientGrantProvisioner.awaitGrant(clientId);
+        Auth0RevocationFilter.getInstance().awaitRevocationSecond(clientId);
+        Auth0AccessTokenResponse accessTokenResponse = requestAccessToken(tenant, clientId, clientSecret, grantType,
+                scope);
+        if (accessTokenResponse == NOT_GRANTED && !granted && clientGrantProvisioner.grantAndWait(clientId)) {
+            accessTokenResponse = requestAccessToken(tenant, clientId, clientSecret, grantType, scope);
+        }
+        if (accessTokenResponse == NOT_GRANTED) {
+            Auth0AccessTokenResponse errorResponse = new Auth0AccessTokenResponse();
+            errorResponse.setAccessToken("Please add application to WSO2 resource server API to generate tokens");
+            return errorResponse;
+        }
+        if (accessTokenResponse != null) {
+            tokenLedger.record(clientId, accessTokenResponse.getAccessToken(), accessTokenResponse.getScope(),
+                    accessTokenResponse.getExpiry());
+            components.journal.record(Auth0Event.of(Auth0EventType.TOKEN_ISSUED, tenant.getName(), clientId,
+                    accessTokenResponse.getScope()));
+        }
+        return accessTokenResponse;
+    }
+
+    private Auth0AccessTokenResponse requestAccessToken(Auth0Tenant tenant, String clientId, String clientSecret,
+                                                        String grantType, String scope)
+            throws APIManagementException {
+        Auth0AccessTokenRequest accessTokenInfo = new Auth0AccessTokenRequest();
+        accessTokenInfo.setClientId(clientId);
+        accessTokenInfo.setClientSecret(clientSecret);
+        accessTokenInfo.setGrantType(grantType);
+        accessTokenInfo.setAudience(tenant.getResourceServerIdentifier());
+        accessTokenInfo.setScope(scope);
+        Request.Builder requestBuilder = new Request.Builder()
+                .post(RequestBody.create(MediaType.parse(Auth0Constants.CONTENT_TYPE_JSON),
+                        new Gson().toJson(accessTokenInfo)));
+        try (Response response = tenant.getTokenEndpoints().execute(requestBuilder)) {
+            ResponseBody body = response.body();
+            if (body == null) {
+                throw new APIManagementException(String.format(Auth0Constants.STRING_FORMAT,
                         Auth0Constants.ERROR_COULD_NOT_READ_HTTP_ENTITY, response));
             }
-            if (HttpStatus.SC_OK == statusCode) {
-
-                try (InputStream inputStream = entity.getContent()) {
-                    String content = IOUtils.toString(inputStream);
-                    return new Gson().fromJson(content, Auth0AccessTokenResponse.class);
-                }
-            } else if (HttpStatus.SC_FORBIDDEN == statusCode) {
-                Auth0AccessTokenResponse errorResponse = new Auth0AccessTokenResponse();
-                errorResponse.setAccessToken("Please add application to WSO2 resource server API to generate tokens");
-                return errorResponse;
+            if (HttpStatus.SC_OK == response.code()) {
+                return new Gson().fromJson(body.string(), Auth0AccessTokenResponse.class);
+            } else if (HttpStatus.SC_FORBIDDEN == response.code()) {
+                return NOT_GRANTED;
             }
-        } catch (UnsupportedEncodingException e) {
-            new APIManagementException(Auth0Constants.ERROR_ENCODING_METHOD_NOT_SUPPORTED, e);
         } catch (IOException e) {
-            new APIManagementException(Auth0Constants.ERROR_OCCURRED_WHILE_READ_OR_CLOSE_BUFFER_READER, e);
+            throw new APIManagementException(Auth0Constants.ERROR_OCCURRED_WHILE_READ_OR_CLOSE_BUFFER_READER, e);
         }
         return null;
     }
 
     @Override
     public String getNewApplicationConsumerSecret(AccessTokenRequest accessTokenRequest) throws APIManagementException {
-        checkAndCreateAPIIfNotExist();
-        Auth0ClientInfo createdApplication = auth0DCRClient.regenerateClientSecret(accessTokenRequest.getClientId());
+        Components components = this.components;
+        Auth0Tenant tenant = components.tenantRouter.route(accessTokenRequest.getClientId());
+        tenant.checkAndCreateResourceServer();
+        Auth0ClientInfo createdApplication = tenant.getDCRClient()
+                .regenerateClientSecret(accessTokenRequest.getClientId());
+        clientInfoCache.put(createdApplication);
+        if (components.clientRegistry != null) {
+            components.clientRegistry.put(tenant.getName(), createdApplication);
+        }
+        revokeClientTokens(components, accessTokenRequest.getClientId());
+        components.journal.record(Auth0Event.of(Auth0EventType.CLIENT_SECRET_REGENERATED, tenant.getName(),
+                accessTokenRequest.getClientId(), null));
         return createdApplication.getClientSecret();
     }
 
+    /**
+     * Revokes the tokens issued to a client so far, so that locally validated tokens stop being accepted once the
+     * client is deleted or its secret is rotated.
+     *
+     * @param components current components.
+     * @param clientId   client whose tokens are revoked.
+     */
+    private void revokeClientTokens(Components components, String clientId) {
+        Auth0RevocationFilter.getInstance().revoke(clientId);
+        components.tokenCache.invalidateClient(clientId);
+        tokenLedger.removeConsumer(clientId);
+    }
+
     @Override
     public AccessTokenInfo getTokenMetaData(String s) throws APIManagementException {
         return null;
@@ -297,74 +611,437 @@ public class Auth0OAuthClient extends AbstractKeyManager {
         return null;
     }
 
+    /**
+     * Loads the configuration of the key manager. When a configuration was loaded before, only the components whose
+     * settings changed are rebuilt: tenants whose credentials or token endpoint changed switch credentials in place,
+     * tenants whose audience changed get new clients over their existing connection pools, and the token cache and
+     * event journal are kept unless their own settings changed. Tenants follow their logs when the change feed is
+     * enabled, which lets applications read from Auth0 be cached until they change, and the client registry is loaded
+     * in the background when it is enabled and was not loaded for the same tenants before. The new components are
+     * prepared and verified before they are swapped in, and the replaced ones are closed after a grace period so
+     * that requests in flight finish on them. Unless disabled, the new tenants are then warmed up in the background.
+     */
     @Override
-    public void loadConfiguration(KeyManagerConfiguration keyManagerConfiguration) throws APIManagementException {
-        configuration = keyManagerConfiguration;
+    public synchronized void loadConfiguration(KeyManagerConfiguration keyManagerConfiguration)
+            throws APIManagementException {
+        Auth0Settings settings = Auth0Settings.from(keyManagerConfiguration,
+                resourceServerIdentifier != null ? resourceServerIdentifier : APIUtil.getServerURL());
+        Components previous = components;
+        if (previous == null) {
+            tokenLedger = new Auth0IssuedTokenLedger(Auth0Constants.TOKEN_LEDGER_TICK_MILLIS,
+                    Auth0Constants.TOKEN_LEDGER_WHEEL_SIZE, Auth0Constants.TOKEN_LEDGER_MAX_TOKENS,
+                    Auth0Constants.TOKEN_LEDGER_MAX_TOKENS_PER_CONSUMER);
+            asyncDecodeExecutor = new ThreadPoolExecutor(Auth0Constants.ASYNC_DECODE_THREADS,
+                    Auth0Constants.ASYNC_DECODE_THREADS, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(Auth0Constants.ASYNC_DECODE_QUEUE_SIZE),
+                    new Auth0ThreadFactory("auth0-async-decoder"), new ThreadPoolExecutor.CallerRunsPolicy());
+            retireScheduler = Executors.newSingleThreadScheduledExecutor(
+                    new Auth0ThreadFactory("auth0-config-retirer"));
+            clientInfoCache = new Auth0ClientInfoCache();
+            metrics = new Auth0Metrics();
+            registerMetrics();
+        }
+        Auth0TokenCache tokenCache = previous != null && settings.hasSameTokenCache(previous.settings)
+                ? previous.tokenCache : new Auth0TokenCache(createClusterTokenStore(settings));
+        Auth0EventJournal journal = previous != null && settings.hasSameEventJournal(previous.settings)
+                ? previous.journal : createEventJournal(settings);
+        boolean sharedComponentsKept = previous != null && tokenCache == previous.tokenCache
+                && journal == previous.journal && settings.hasSameChangeFeed(previous.settings)
+                && settings.getResourceServerIdentifier().equals(previous.settings.getResourceServerIdentifier());
+        List<Auth0Tenant> tenants = new ArrayList<>();
+        List<Auth0Tenant> createdTenants = new ArrayList<>();
+        Map<Auth0Tenant, Auth0TenantConfiguration> updatedTenants = new HashMap<>();
+        for (Auth0TenantConfiguration tenantConfiguration : settings.getTenants()) {
+            Auth0Tenant currentTenant = previous != null
+                    ? previous.tenantRouter.getTenant(tenantConfiguration.getName()) : null;
+            if (currentTenant != null && sharedComponentsKept
+                    && currentTenant.getAudience().equals(tenantConfiguration.getAudience())) {
+                updatedTenants.put(currentTenant, tenantConfiguration);
+                tenants.add(currentTenant);
+            } else {
+                Auth0Tenant tenant = new Auth0Tenant(tenantConfiguration, settings.getResourceServerIdentifier(),
+                        tokenCache, metrics, journal, asyncDecodeExecutor, currentTenant,
+                        createCheckpointStore(settings, tenantConfiguration), changeFeedListener,
+                        Auth0KeyManagerDataHolder.getInstance().getHazelcastInstance());
+                createdTenants.add(tenant);
+                tenants.add(tenant);
+            }
+        }
+        // Every tenant is verified before any of them is changed, so a failure leaves the current tenants as they are.
+        Map<Auth0Tenant, Auth0Tenant.CredentialsUpdate> credentialsUpdates = new HashMap<>();
         try {
-            Auth0APIKeyInterceptor auth0APIKeyInterceptor = new Auth0APIKeyInterceptor(
-                    (String) keyManagerConfiguration.getParameter(APIConstants.KeyManager.TOKEN_ENDPOINT),
-                    (String) keyManagerConfiguration.getParameter(Auth0Constants.CLIENT_ID),
-                    (String) keyManagerConfiguration.getParameter(Auth0Constants.CLIENT_SECRET),
-                    (String) keyManagerConfiguration.getParameter(Auth0Constants.AUDIENCE));
-            String clientRegistrationEndpoint =
-                    ((String) keyManagerConfiguration.getParameter(Auth0Constants.AUDIENCE)).concat("clients");
-            String resourceServerEndpoint =
-                    ((String) keyManagerConfiguration.getParameter(Auth0Constants.AUDIENCE)).concat("resource-servers");
-            auth0DCRClient = Feign.builder().client(new OkHttpClient()).encoder(new GsonEncoder())
-                    .decoder(new GsonDecoder()).logger(new Slf4jLogger()).requestInterceptor(auth0APIKeyInterceptor)
-                    .target(Auth0DCRClient.class, clientRegistrationEndpoint);
-            auth0ResourceServer = Feign.builder().client(new OkHttpClient()).encoder(new GsonEncoder())
-                    .decoder(new GsonDecoder()).logger(new Slf4jLogger()).requestInterceptor(auth0APIKeyInterceptor)
-                    .target(Auth0ResourceServer.class, resourceServerEndpoint);
-        } catch (IOException e) {
-            throw new APIManagementException(Auth0Constants.ERROR_COULD_NOT_READ_HTTP_ENTITY);
+            for (Auth0Tenant tenant : createdTenants) {
+                tenant.verifyCredentials();
+            }
+            for (Map.Entry<Auth0Tenant, Auth0TenantConfiguration> updatedTenant : updatedTenants.entrySet()) {
+                credentialsUpdates.put(updatedTenant.getKey(),
+                        updatedTenant.getKey().verifyCredentials(updatedTenant.getValue()));
+            }
+        } catch (APIManagementException e) {
+            for (Auth0Tenant tenant : createdTenants) {
+                tenant.close();
+            }
+            if (previous == null || tokenCache != previous.tokenCache) {
+                tokenCache.close();
+            }
+            if (previous == null || journal != previous.journal) {
+                journal.close();
+            }
+            throw e;
+        }
+        for (Map.Entry<Auth0Tenant, Auth0Tenant.CredentialsUpdate> credentialsUpdate
+                : credentialsUpdates.entrySet()) {
+            credentialsUpdate.getKey().applyCredentials(credentialsUpdate.getValue());
+        }
+        for (Auth0Tenant tenant : createdTenants) {
+            tenant.checkAndCreateResourceServer();
+            tenant.start();
+        }
+        for (Auth0Tenant tenant : tenants) {
+            tenant.getClientGrantProvisioner().setGrantAllScopes(settings.isGrantAllScopesEnabled());
+        }
+        boolean clientRegistryKept = settings.isClientRegistryEnabled() && previous != null
+                && previous.clientRegistry != null && settings.hasSameClientRegistry(previous.settings);
+        Auth0ClientRegistry clientRegistry = null;
+        Auth0ClientRegistryLoader clientRegistryLoader = null;
+        if (clientRegistryKept) {
+            clientRegistry = previous.clientRegistry;
+            clientRegistryLoader = previous.clientRegistryLoader;
+        } else if (settings.isClientRegistryEnabled()) {
+            clientRegistry = new Auth0ClientRegistry();
+            clientRegistryLoader = new Auth0ClientRegistryLoader(clientRegistry, tenants);
+        }
+        Auth0ClientOwnerStore clientOwnerStore = previous != null
+                && settings.getKeyManagerName().equals(previous.settings.getKeyManagerName())
+                ? previous.tenantRouter.getClientOwners() : createClientOwnerStore(settings);
+        Auth0TenantRouter tenantRouter = new Auth0TenantRouter(tenants, clientOwnerStore, clientRegistry);
+        if (previous != null) {
+            previous.tenantRouter.getPrimary().getScopeCatalog().setRefreshListener(null);
+        }
+        // Each refresh of the primary catalog reconciles every additional tenant with it.
+        Auth0ScopeCatalog primaryCatalog = tenantRouter.getPrimary().getScopeCatalog();
+        List<Auth0Tenant> additionalTenants = new ArrayList<>(tenants.subList(1, tenants.size()));
+        for (Auth0Tenant tenant : additionalTenants) {
+            tenant.getScopeCatalog().setRefreshListener(null);
+        }
+        primaryCatalog.setRefreshListener(additionalTenants.isEmpty() ? null : () -> {
+            for (Auth0Tenant tenant : additionalTenants) {
+                tenant.reconcileScopes(primaryCatalog);
+            }
+        });
+        Auth0ScopeEncoder scopeEncoder = previous != null ? previous.scopeEncoder : new Auth0ScopeEncoder();
+        // Created tenants follow their log anew and report again if it cannot be read.
+        Set<String> keptTenantNames = new HashSet<>();
+        for (Auth0Tenant tenant : tenants) {
+            if (!createdTenants.contains(tenant)) {
+                keptTenantNames.add(tenant.getName());
+            }
+        }
+        unavailableChangeFeeds.retainAll(keptTenantNames);
+        applyClientExpiry(settings, clientRegistry);
+        components = new Components(settings, tokenCache, journal, tenantRouter, scopeEncoder, clientRegistry,
+                clientRegistryLoader);
+        if (clientRegistryLoader != null && !clientRegistryKept) {
+            clientRegistryLoader.start();
+        }
+        configuration = keyManagerConfiguration;
+        if (previous == null || !settings.getKeyManagerName().equals(previous.settings.getKeyManagerName())) {
+            metrics.register(settings.getKeyManagerName());
+        }
+        if (previous != null) {
+            retire(previous, components);
+        }
+        if (settings.isWarmUpEnabled() && !createdTenants.isEmpty()) {
+            startWarmUp(createdTenants, scopeEncoder, createdTenants.contains(tenantRouter.getPrimary()),
+                    previous == null);
         }
-        checkAndCreateAPIIfNotExist();
     }
 
     /**
-     * Create Auth0 Resource Server if not created for WSO2 API Manager
+     * Warms up newly created tenants in the background, replacing any warm-up still running for an older
+     * configuration.
+     *
+     * @param createdTenants    tenants created by the configuration.
+     * @param scopeEncoder      scope encoder of the configuration.
+     * @param newPrimary        whether the primary tenant was created by the configuration, in which case the scopes
+     *                          of its resource server are encoded.
+     * @param firstLoad         whether this is the first configuration loaded, in which case the code paths are cold.
      */
-    private void checkAndCreateAPIIfNotExist() throws APIManagementException {
-        String audience = APIUtil.getServerURL();
-        try {
-            Auth0ResourceServerInfo resourceServer = new Auth0ResourceServerInfo();
-            resourceServer.setIdentifier(audience);
-            resourceServer.setName(Auth0Constants.AUTH0_RESOURCE_SERVER);
-            resourceServer.setTokenLifetime(Auth0Constants.DEFAULT_TOKEN_LIFETIME);
-            Auth0ResourceServerInfo createdResourceServer = auth0ResourceServer.createResourceServer(resourceServer);
-            if (createdResourceServer != null) {
-                log.info("Resource server created for : " + audience);
-            } else {
-                log.error("Error while creating resource server for : " + audience);
+    private void startWarmUp(List<Auth0Tenant> createdTenants, Auth0ScopeEncoder scopeEncoder,
+                             boolean newPrimary, boolean firstLoad) {
+        if (warmUp != null) {
+            warmUp.close();
+        }
+        Object jwksEndpoint = configuration.getParameter(APIConstants.KeyManager.JWKS_ENDPOINT);
+        warmUp = new Auth0WarmUp(createdTenants, jwksEndpoint instanceof String ? (String) jwksEndpoint : null,
+                newPrimary ? scopeEncoder : null, firstLoad ? this::runSyntheticMapping : null);
+        warmUp.start();
+    }
+
+    /**
+     * Maps a synthetic application to a client and back, and parses a synthetic token response, the way requests
+     * do, so that the mapping code and its Gson adapters are loaded and compiled before the first request.
+     */
+    private void runSyntheticMapping() {
+        OAuthApplicationInfo applicationInfo = new OAuthApplicationInfo();
+        applicationInfo.setClientName("warm-up");
+        applicationInfo.setCallBackURL("https://localhost/callback");
+        applicationInfo.addParameter(ApplicationConstants.OAUTH_CLIENT_USERNAME, "admin");
+        applicationInfo.addParameter(ApplicationConstants.APP_KEY_TYPE, "PRODUCTION");
+        applicationInfo.addParameter(APIConstants.JSON_GRANT_TYPES, Auth0Constants.GRANT_TYPE_CLIENT_CREDENTIALS);
+        Auth0ClientInfo clientInfo = createClientInfoFromOauthApplicationInfo(applicationInfo);
+        clientInfo.setClientId("warm-up");
+        clientInfo.setClientSecret("warm-up");
+        createOAuthAppInfoFromResponse(clientInfo);
+        new Gson().fromJson("{\"access_token\":\"warm-up\",\"token_type\":\"Bearer\",\"expires_in\":86400,"
+                + "\"scope\":\"default\"}", Auth0AccessTokenResponse.class);
+    }
+
+    /**
+     * Closes the components of the previous snapshot which are not used by the current one, once requests that
+     * started on the previous snapshot had time to finish.
+     *
+     * @param previous previous components.
+     * @param current  current components.
+     */
+    private void retire(Components previous, Components current) {
+        final List<Auth0Tenant> retiredTenants = new ArrayList<>();
+        for (Auth0Tenant tenant : previous.tenantRouter.getTenants()) {
+            if (current.tenantRouter.getTenant(tenant.getName()) != tenant) {
+                retiredTenants.add(tenant);
             }
-        } catch (FeignException exception) {
-            if (exception.status() == 409) {
-                log.warn("Resource server already created for  : ");
-            } else {
-                log.error("Error while creating resource server for : " + audience, exception);
+        }
+        final Auth0TokenCache retiredTokenCache = previous.tokenCache != current.tokenCache
+                ? previous.tokenCache : null;
+        final Auth0EventJournal retiredJournal = previous.journal != current.journal ? previous.journal : null;
+        final Auth0ClientOwnerStore retiredClientOwners = previous.tenantRouter.getClientOwners()
+                != current.tenantRouter.getClientOwners() ? previous.tenantRouter.getClientOwners() : null;
+        if (previous.clientRegistryLoader != null && previous.clientRegistryLoader != current.clientRegistryLoader) {
+            previous.clientRegistryLoader.close();
+        }
+        if (retiredTenants.isEmpty() && retiredTokenCache == null && retiredJournal == null
+                && retiredClientOwners == null) {
+            return;
+        }
+        retireScheduler.schedule(() -> {
+            for (Auth0Tenant tenant : retiredTenants) {
+                tenant.close();
+            }
+            if (retiredTokenCache != null) {
+                retiredTokenCache.close();
             }
+            if (retiredJournal != null) {
+                retiredJournal.close();
+            }
+            if (retiredClientOwners != null) {
+                retiredClientOwners.close();
+            }
+        }, Auth0Constants.CONFIGURATION_RETIRE_GRACE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the non-blocking client of the client registration API of the primary tenant, which can be used to
+     * compose management operations without holding a thread per request.
+     *
+     * @return an {@code Auth0AsyncDCRClient}
+     */
+    public Auth0AsyncDCRClient getAsyncDCRClient() {
+        return components.tenantRouter.getPrimary().getAsyncDCRClient();
+    }
+
+    /**
+     * Returns the non-blocking client of the resource server API of the primary tenant.
+     *
+     * @return an {@code Auth0AsyncResourceServer}
+     */
+    public Auth0AsyncResourceServer getAsyncResourceServer() {
+        return components.tenantRouter.getPrimary().getAsyncResourceServer();
+    }
+
+    /**
+     * Publishes the metrics of this key manager, namely the sizes of its caches and the connection phase latencies
+     * of its calls to Auth0. The gauges read the current components, so they follow configuration reloads.
+     */
+    private void registerMetrics() {
+        metrics.registerGauge("tokenLedger.size", tokenLedger::size);
+        metrics.registerGauge("tokenCache.size", () -> components.tokenCache.size());
+        metrics.registerGauge("clientInfoCache.size", clientInfoCache::size);
+        metrics.registerGauge("clientRegistry.size",
+                () -> components.clientRegistry != null ? components.clientRegistry.size() : 0);
+        metrics.registerGauge("clientRegistry.loaded", () -> components.clientRegistryLoader != null
+                && components.clientRegistryLoader.isLoaded() ? 1 : 0);
+        metrics.registerGauge("journal.pending", () -> components.journal.getPendingCount());
+        metrics.registerGauge("journal.written", () -> components.journal.getWrittenCount());
+        metrics.registerGauge("journal.dropped", () -> components.journal.getDroppedCount());
+    }
+
+    /**
+     * Returns the metrics of this key manager.
+     *
+     * @return an {@code Auth0Metrics}
+     */
+    public Auth0Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Creates the event journal of this key manager, which writes to {@code repository/logs} under the server home.
+     * A disabled journal is never started and drops every event.
+     *
+     * @param settings key manager settings.
+     * @return an {@code Auth0EventJournal}
+     */
+    private Auth0EventJournal createEventJournal(Auth0Settings settings) {
+        String fileName = "auth0-events-" + settings.getKeyManagerName().replaceAll("[^A-Za-z0-9._-]", "_") + ".log";
+        Auth0EventJournal eventJournal = new Auth0EventJournal(
+                new File(System.getProperty("carbon.home", "."), "repository" + File.separator + "logs"
+                        + File.separator + fileName), Auth0Constants.EVENT_JOURNAL_CAPACITY,
+                settings.getEventJournalOverflowPolicy());
+        if (settings.isEventJournalEnabled()) {
+            eventJournal.start();
+        }
+        return eventJournal;
+    }
+
+    /**
+     * Creates the store of the tenants that own the clients of the key manager, which is kept in
+     * {@code repository/data} under the server home so that owners looked up once are not looked up again.
+     *
+     * @param settings key manager settings.
+     * @return an {@code Auth0ClientOwnerStore}
+     */
+    private Auth0ClientOwnerStore createClientOwnerStore(Auth0Settings settings) {
+        String fileName = settings.getKeyManagerName().replaceAll("[^A-Za-z0-9._-]", "_") + ".owners";
+        return new Auth0ClientOwnerStore(new File(System.getProperty("carbon.home", "."), "repository"
+                + File.separator + "data" + File.separator + "auth0" + File.separator + fileName));
+    }
+
+    /**
+     * Creates the store of the log checkpoint of a tenant, which is kept in {@code repository/data} under the server
+     * home so that the change feed resumes where it left off after a restart.
+     *
+     * @param settings            key manager settings.
+     * @param tenantConfiguration configuration of the tenant.
+     * @return an {@code Auth0LogCheckpointStore}, or {@code null} if the change feed is disabled.
+     */
+    private Auth0LogCheckpointStore createCheckpointStore(Auth0Settings settings,
+                                                          Auth0TenantConfiguration tenantConfiguration) {
+        if (!settings.isChangeFeedEnabled()) {
+            return null;
         }
+        String fileName = settings.getKeyManagerName().replaceAll("[^A-Za-z0-9._-]", "_") + "-"
+                + tenantConfiguration.getName().replaceAll("[^A-Za-z0-9._-]", "_") + ".checkpoint";
+        return new Auth0LogCheckpointStore(new File(System.getProperty("carbon.home", "."), "repository"
+                + File.separator + "data" + File.separator + "auth0" + File.separator + fileName),
+                tenantConfiguration.getAudience());
+    }
+
+    /**
+     * Creates the cluster tier of the token cache if it is enabled and the node is clustered.
+     *
+     * @param settings key manager settings.
+     * @return an {@code Auth0ClusterTokenStore}, or {@code null} if tokens should only be cached locally.
+     */
+    private Auth0ClusterTokenStore createClusterTokenStore(Auth0Settings settings) {
+        if (!settings.isClusterTokenCacheEnabled()) {
+            return null;
+        }
+        HazelcastInstance hazelcastInstance = Auth0KeyManagerDataHolder.getInstance().getHazelcastInstance();
+        if (hazelcastInstance == null) {
+            log.warn("Cluster token cache is enabled but clustering is not available, tokens are cached locally");
+            return null;
+        }
+        return new Auth0ClusterTokenStore(hazelcastInstance, Auth0Constants.TOKEN_CACHE_EXPIRY_SKEW_SECONDS * 1000L);
     }
 
     @Override
     public boolean registerNewResource(API api, Map map) throws APIManagementException {
-        return false;
+        Components components = this.components;
+        Set<String> previousScopes = getRecordedScopeKeys(api.getUUID());
+        writeToEveryTenant(components, "register scopes of API " + api.getUUID(),
+                tenant -> tenant.getResourceScopeManager().registerApiScopes(api.getScopes(), previousScopes));
+        return true;
     }
 
     @Override
-    public Map getResourceByApiId(String s) throws APIManagementException {
-        return null;
+    public Map getResourceByApiId(String apiId) throws APIManagementException {
+        return components.tenantRouter.getPrimary().getResourceScopeManager()
+                .getApiResource(getRecordedScopeKeys(apiId));
     }
 
     @Override
     public boolean updateRegisteredResource(API api, Map map) throws APIManagementException {
-        return false;
+        Components components = this.components;
+        // The resource returned earlier by getResourceByApiId holds the scopes of the API before the update, in case
+        // API Manager has already recorded the new ones.
+        Set<String> previousScopes = getRecordedScopeKeys(api.getUUID());
+        previousScopes.addAll(Auth0ResourceScopeManager.getScopeKeys(map));
+        writeToEveryTenant(components, "update scopes of API " + api.getUUID(),
+                tenant -> tenant.getResourceScopeManager().registerApiScopes(api.getScopes(), previousScopes));
+        return true;
     }
 
     @Override
-    public void deleteRegisteredResourceByAPIId(String s) throws APIManagementException {
+    public void deleteRegisteredResourceByAPIId(String apiId) throws APIManagementException {
+        Components components = this.components;
+        Set<String> apiScopes = getRecordedScopeKeys(apiId);
+        if (apiScopes.isEmpty()) {
+            log.warn("No scopes are recorded for API " + apiId + ", scopes of the API are not removed from resource "
+                    + "server : " + components.tenantRouter.getPrimary().getResourceServerIdentifier());
+            return;
+        }
+        writeToEveryTenant(components, "remove scopes of API " + apiId,
+                tenant -> tenant.getResourceScopeManager().removeApiScopes(apiScopes));
+    }
 
+    /**
+     * A scope write to the resource server of one tenant.
+     */
+    private interface TenantScopeWrite {
+        void write(Auth0Tenant tenant) throws APIManagementException;
+    }
+
+    /**
+     * Applies a scope write to every tenant, going on with the remaining tenants when it fails on one. Scopes of the
+     * secondary tenants that are left behind are also repaired when they are next reconciled with the primary.
+     *
+     * @param components  components of the key manager.
+     * @param description what the write does, for error messages.
+     * @param write       write to apply.
+     * @throws APIManagementException naming every tenant the write failed on.
+     */
+    private static void writeToEveryTenant(Components components, String description, TenantScopeWrite write)
+            throws APIManagementException {
+        List<String> failedTenants = new ArrayList<>();
+        APIManagementException failure = null;
+        for (Auth0Tenant tenant : components.tenantRouter.getTenants()) {
+            try {
+                write.write(tenant);
+            } catch (APIManagementException e) {
+                log.error("Could not " + description + " in tenant : " + tenant.getName(), e);
+                failedTenants.add(tenant.getName());
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw new APIManagementException("Could not " + description + " in tenants : "
+                    + String.join(", ", failedTenants), failure);
+        }
+    }
+
+    /**
+     * Returns the keys of the scopes API Manager has recorded for an API, which every node reads the same way.
+     *
+     * @param apiId UUID of the API.
+     * @return scope keys, empty if none are recorded.
+     * @throws APIManagementException if the scopes could not be read.
+     */
+    private static Set<String> getRecordedScopeKeys(String apiId) throws APIManagementException {
+        Map<String, Set<String>> apiToScopeKeyMapping = ApiMgtDAO.getInstance().getScopesForAPIS(apiId);
+        Set<String> scopeKeys = apiToScopeKeyMapping != null ? apiToScopeKeyMapping.get(apiId) : null;
+        return scopeKeys != null ? new HashSet<>(scopeKeys) : new HashSet<>();
     }
 
     @Override
@@ -373,13 +1050,29 @@ public class Auth0OAuthClient extends AbstractKeyManager {
     }
 
     @Override
-    public Set<String> getActiveTokensByConsumerKey(String s) throws APIManagementException {
-        return null;
+    public Set<String> getActiveTokensByConsumerKey(String consumerKey) throws APIManagementException {
+        return tokenLedger.getActiveTokens(consumerKey);
     }
 
     @Override
-    public AccessTokenInfo getAccessTokenByConsumerKey(String s) throws APIManagementException {
-        return null;
+    public AccessTokenInfo getAccessTokenByConsumerKey(String consumerKey) throws APIManagementException {
+        Components components = this.components;
+        Auth0IssuedTokenLedger.IssuedToken issuedToken = tokenLedger.getLatestToken(consumerKey);
+        // The token is only kept while it is the latest one, so it is read once.
+        String accessToken = issuedToken != null ? issuedToken.getAccessToken() : null;
+        if (accessToken == null) {
+            return null;
+        }
+        AccessTokenInfo accessTokenInfo = new AccessTokenInfo();
+        accessTokenInfo.setConsumerKey(consumerKey);
+        accessTokenInfo.setAccessToken(accessToken);
+        if (issuedToken.getScope() != null) {
+            accessTokenInfo.setScope(components.scopeEncoder.encode(issuedToken.getScope()).getScopes());
+        }
+        accessTokenInfo.setIssuedTime(issuedToken.getIssuedAt());
+        accessTokenInfo.setValidityPeriod((issuedToken.getExpiresAt() - System.currentTimeMillis()) / 1000L);
+        accessTokenInfo.setTokenValid(true);
+        return accessTokenInfo;
     }
 
     @Override
@@ -401,32 +1094,56 @@ public class Auth0OAuthClient extends AbstractKeyManager {
 
     @Override
     public void registerScope(Scope scope) throws APIManagementException {
-
+        Components components = this.components;
+        Auth0ScopeInfo scopeInfo = Auth0ResourceScopeManager.toAuth0Scope(scope);
+        for (Auth0Tenant tenant : components.tenantRouter.getTenants()) {
+            tenant.getScopeWriteBuffer().upsert(scopeInfo);
+            tenant.getScopeCatalog().upsert(scopeInfo);
+        }
     }
 
     @Override
-    public Scope getScopeByName(String s) throws APIManagementException {
-        return null;
+    public Scope getScopeByName(String scopeName) throws APIManagementException {
+        return components.tenantRouter.getPrimary().getScopeCatalog().getScope(scopeName);
     }
 
     @Override
     public Map<String, Scope> getAllScopes() throws APIManagementException {
-        return null;
+        return components.tenantRouter.getPrimary().getScopeCatalog().getScopes();
     }
 
     @Override
-    public void deleteScope(String s) throws APIManagementException {
-
+    public void deleteScope(String scopeName) throws APIManagementException {
+        Components components = this.components;
+        for (Auth0Tenant tenant : components.tenantRouter.getTenants()) {
+            tenant.getScopeWriteBuffer().remove(scopeName);
+            tenant.getScopeCatalog().remove(scopeName);
+        }
     }
 
     @Override
     public void updateScope(Scope scope) throws APIManagementException {
+        Components components = this.components;
+        Auth0ScopeInfo scopeInfo = Auth0ResourceScopeManager.toAuth0Scope(scope);
+        for (Auth0Tenant tenant : components.tenantRouter.getTenants()) {
+            tenant.getScopeWriteBuffer().upsert(scopeInfo);
+            tenant.getScopeCatalog().upsert(scopeInfo);
+        }
+    }
 
+    /**
+     * Writes the scope mutations queued by {@link #registerScope}, {@link #updateScope} and {@link #deleteScope}
+     * to every tenant and waits for the writes to complete.
+     *
+     * @throws APIManagementException naming every tenant whose resource server could not be updated.
+     */
+    public void flushScopes() throws APIManagementException {
+        writeToEveryTenant(components, "write scopes", tenant -> tenant.getScopeWriteBuffer().flush());
     }
 
     @Override
-    public boolean isScopeExists(String s) throws APIManagementException {
-        return false;
+    public boolean isScopeExists(String scopeName) throws APIManagementException {
+        return components.tenantRouter.getPrimary().getScopeCatalog().contains(scopeName);
     }
 
     @Override
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.async;
+
+import feign.Request;
+import org.wso2.auth0.client.model.Auth0AsyncDCRClient;
+import org.wso2.auth0.client.model.Auth0ClientInfo;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+public class Auth0AsyncDCRClientImpl implements Auth0AsyncDCRClient {
+    private final Auth0AsyncHttpExecutor httpExecutor;
+    private final String clientRegistrationEndpoint;
+    private final Consumer<Auth0ClientInfo> creationListener;
+
+    public Auth0AsyncDCRClientImpl(Auth0AsyncHttpExecutor httpExecutor, String clientRegistrationEndpoint) {
+        this(httpExecutor, clientRegistrationEndpoint, null);
+    }
+
+    /**
+     * @param creationListener listener notified of every client created, or {@code null}.
+     */
+    public Auth0AsyncDCRClientImpl(Auth0AsyncHttpExecutor httpExecutor, String clientRegistrationEndpoint,
+                                   Consumer<Auth0ClientInfo> creationListener) {
+        this.httpExecutor = httpExecutor;
+        this.clientRegistrationEndpoint = clientRegistrationEndpoint;
+        this.creationListener = creationListener;
+    }
+
+    @Override
+    public CompletableFuture<Auth0ClientInfo> createApplication(Auth0ClientInfo clientInfo) {
+        CompletableFuture<Auth0ClientInfo> createdClient = httpExecutor.execute(
+                "Auth0AsyncDCRClient#createApplication(Auth0ClientInfo)", Request.HttpMethod.POST,
+                clientRegistrationEndpoint, clientInfo, Auth0ClientInfo.class);
+        if (creationListener == null) {
+            return createdClient;
+        }
+        return createdClient.thenApply(createdClientInfo -> {
+            if (createdClientInfo != null) {
+                creationListener.accept(createdClientInfo);
+            }
+            return createdClientInfo;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Auth0ClientInfo> getApplication(String clientId) {
+        return httpExecutor.execute("Auth0AsyncDCRClient#getApplication(String)", Request.HttpMethod.GET,
+                clientUrl(clientId), null, Auth0ClientInfo.class);
+    }
+
+    @Override
+    public CompletableFuture<Auth0ClientInfo> updateApplication(String clientId, Auth0ClientInfo clientInfo) {
+        return httpExecutor.execute("Auth0AsyncDCRClient#updateApplication(String,Auth0ClientInfo)",
+                Request.HttpMethod.PATCH, clientUrl(clientId), clientInfo, Auth0ClientInfo.class);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteApplication(String clientId) {
+        return httpExecutor.execute("Auth0AsyncDCRClient#deleteApplication(String)", Request.HttpMethod.DELETE,
+                clientUrl(clientId), null, Void.class);
+    }
+
+    @Override
+    public CompletableFuture<Auth0ClientInfo> regenerateClientSecret(String clientId) {
+        return httpExecutor.execute("Auth0AsyncDCRClient#regenerateClientSecret(String)",
+                Request.HttpMethod.POST, clientUrl(clientId) + "/rotate-secret", null, Auth0ClientInfo.class);
+    }
+
+    private String clientUrl(String clientId) {
+        return clientRegistrationEndpoint + "/" + Auth0AsyncResourceServerImpl.encode(clientId);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.async;
+
+import com.google.gson.Gson;
+import feign.FeignException;
+import feign.Request;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import feign.RetryableException;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.bulkhead.Auth0TrafficClass;
+import org.wso2.auth0.client.bulkhead.Auth0TrafficLanes;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Executes management API requests on the non-blocking dispatchers of OkHttp, reads and writes each on their own
+ * traffic lane. Requests go through the same request
+ * interceptor as the Feign clients, requests are prepared and responses are decoded with Gson on the given executor,
+ * and errors are mapped to the same {@code FeignException} types the Feign clients throw. The interceptor may block
+ * while it obtains a management API token, which is why it never runs on the calling thread.
+ */
+public class Auth0AsyncHttpExecutor {
+    private static final MediaType JSON = MediaType.get(Auth0Constants.CONTENT_TYPE_JSON);
+    private static final byte[] EMPTY_BODY = new byte[0];
+    private final Auth0TrafficLanes trafficLanes;
+    private final RequestInterceptor requestInterceptor;
+    private final Executor decodeExecutor;
+    private final Gson gson = new Gson();
+
+    public Auth0AsyncHttpExecutor(Auth0TrafficLanes trafficLanes, RequestInterceptor requestInterceptor,
+                                  Executor decodeExecutor) {
+        this.trafficLanes = trafficLanes;
+        this.requestInterceptor = requestInterceptor;
+        this.decodeExecutor = decodeExecutor;
+    }
+
+    /**
+     * Sends a request and decodes its response.
+     *
+     * @param methodKey    key identifying the operation in error messages, in the form used by Feign.
+     * @param method       HTTP method.
+     * @param url          request URL.
+     * @param body         request body serialized as JSON, or {@code null}.
+     * @param responseType type the response is decoded to, or {@code Void.class} to ignore the response.
+     * @param <T>          response type.
+     * @return future completed with the decoded response. Cancelling the future cancels the request.
+     */
+    public <T> CompletableFuture<T> execute(String methodKey, Request.HttpMethod method, String url, Object body,
+                                            Type responseType) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            decodeExecutor.execute(() -> send(future, methodKey, method, url, body, responseType));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> void send(CompletableFuture<T> future, String methodKey, Request.HttpMethod method, String url,
+                          Object body, Type responseType) {
+        if (future.isDone()) {
+            return;
+        }
+        RequestTemplate requestTemplate = new RequestTemplate();
+        requestTemplate.method(method);
+        requestTemplate.header(Auth0Constants.CONTENT_TYPE, Auth0Constants.CONTENT_TYPE_JSON);
+        byte[] payload = body != null ? gson.toJson(body).getBytes(StandardCharsets.UTF_8) : null;
+        Call call;
+        try {
+            requestInterceptor.apply(requestTemplate);
+            okhttp3.Request.Builder requestBuilder = new okhttp3.Request.Builder().url(url);
+            for (Map.Entry<String, Collection<String>> header : requestTemplate.headers().entrySet()) {
+                for (String value : header.getValue()) {
+                    requestBuilder.addHeader(header.getKey(), value);
+                }
+            }
+            RequestBody requestBody = null;
+            if (payload != null) {
+                requestBody = RequestBody.create(JSON, payload);
+            } else if (method == Request.HttpMethod.POST || method == Request.HttpMethod.PATCH
+                    || method == Request.HttpMethod.PUT) {
+                requestBody = RequestBody.create(JSON, EMPTY_BODY);
+            }
+            requestBuilder.method(method.name(), requestBody);
+            call = trafficLanes.getHttpClient(Auth0TrafficClass.ofManagementCall(method.name()))
+                    .newCall(requestBuilder.build());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        Request feignRequest = Request.create(method, url, requestTemplate.headers(), payload,
+                StandardCharsets.UTF_8, requestTemplate);
+        future.whenComplete((result, throwable) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call failedCall, IOException e) {
+                future.completeExceptionally(new RetryableException(-1, String.format("%s executing %s %s",
+                        e.getMessage(), method, url), method, e, (Date) null, feignRequest));
+            }
+
+            @Override
+            public void onResponse(Call completedCall, Response response) {
+                int status;
+                byte[] responseBody;
+                Map<String, Collection<String>> headers;
+                try (Response closeableResponse = response) {
+                    status = closeableResponse.code();
+                    headers = new LinkedHashMap<String, Collection<String>>(closeableResponse.headers().toMultimap());
+                    ResponseBody body = closeableResponse.body();
+                    responseBody = body != null ? body.bytes() : EMPTY_BODY;
+                } catch (IOException e) {
+                    onFailure(completedCall, e);
+                    return;
+                }
+                try {
+                    decodeExecutor.execute(() -> complete(future, methodKey, feignRequest, status,
+                            response.message(), headers, responseBody, responseType));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void complete(CompletableFuture<T> future, String methodKey, Request feignRequest, int status,
+                              String reason, Map<String, Collection<String>> headers, byte[] responseBody,
+                              Type responseType) {
+        try {
+            if (status < 200 || status >= 300) {
+                feign.Response feignResponse = feign.Response.builder().status(status).reason(reason)
+                        .headers(headers).body(responseBody).request(feignRequest).build();
+                future.completeExceptionally(FeignException.errorStatus(methodKey, feignResponse));
+                return;
+            }
+            if (responseType == Void.class || responseBody.length == 0) {
+                future.complete(null);
+                return;
+            }
+            future.complete((T) gson.fromJson(new String(responseBody, StandardCharsets.UTF_8), responseType));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
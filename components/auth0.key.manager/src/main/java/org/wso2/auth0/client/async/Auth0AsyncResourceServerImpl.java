@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.async;
+
+import feign.Request;
+import org.wso2.auth0.client.model.Auth0AsyncResourceServer;
+import org.wso2.auth0.client.model.Auth0ResourceServerInfo;
+import org.wso2.auth0.client.model.Auth0ResourceServerPatch;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+public class Auth0AsyncResourceServerImpl implements Auth0AsyncResourceServer {
+    private final Auth0AsyncHttpExecutor httpExecutor;
+    private final String resourceServerEndpoint;
+
+    public Auth0AsyncResourceServerImpl(Auth0AsyncHttpExecutor httpExecutor, String resourceServerEndpoint) {
+        this.httpExecutor = httpExecutor;
+        this.resourceServerEndpoint = resourceServerEndpoint;
+    }
+
+    @Override
+    public CompletableFuture<Auth0ResourceServerInfo> createResourceServer(
+            Auth0ResourceServerInfo resourceServerInfo) {
+        return httpExecutor.execute("Auth0AsyncResourceServer#createResourceServer(Auth0ResourceServerInfo)",
+                Request.HttpMethod.POST, resourceServerEndpoint, resourceServerInfo, Auth0ResourceServerInfo.class);
+    }
+
+    @Override
+    public CompletableFuture<Auth0ResourceServerInfo> getResourceServer(String id) {
+        return httpExecutor.execute("Auth0AsyncResourceServer#getResourceServer(String)", Request.HttpMethod.GET,
+                resourceServerEndpoint + "/" + encode(id), null, Auth0ResourceServerInfo.class);
+    }
+
+    @Override
+    public CompletableFuture<Auth0ResourceServerInfo> updateResourceServer(String id,
+                                                                           Auth0ResourceServerPatch patch) {
+        return httpExecutor.execute("Auth0AsyncResourceServer#updateResourceServer(String,Auth0ResourceServerPatch)",
+                Request.HttpMethod.PATCH, resourceServerEndpoint + "/" + encode(id), patch,
+                Auth0ResourceServerInfo.class);
+    }
+
+    static String encode(String pathSegment) {
+        try {
+            return URLEncoder.encode(pathSegment, StandardCharsets.UTF_8.name()).replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.bulkhead;
+
+import org.wso2.auth0.client.Auth0Constants;
+
+/**
+ * Concurrency limit of a lane that follows the latency of its calls, so that the lane finds on its own how many calls
+ * Auth0 serves in parallel before queueing them.
+ * <p>
+ * The limit grows by one for every limit's worth of calls completing while the lane is busy, and shrinks by a factor
+ * when the smoothed latency of recent calls rises well above the baseline latency, or right away by a larger factor
+ * when a call is rate limited, fails with a server error or does not complete. The baseline is the lowest latency seen
+ * so far; if the latency stays high even once the limit is down to its minimum, the slowdown is not caused by queueing
+ * and the recent latency becomes the new baseline. Calls already in flight when the limit shrank do not shrink it
+ * again, so one burst of slow calls costs a single step.
+ */
+public class Auth0AdaptiveLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private double estimatedLimit;
+    private double shortRttNanos;
+    private double baselineRttNanos;
+    private long lastDecreaseAt;
+    private boolean sampled;
+    private volatile int limit;
+
+    public Auth0AdaptiveLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Updates the limit with a completed call.
+     *
+     * @param startedAt time the call started at, from {@link System#nanoTime()}.
+     * @param rttNanos  time the call took.
+     * @param inFlight  number of calls in flight when the call started, including itself.
+     * @param dropped   whether the call was rate limited, failed with a server error or did not complete.
+     * @return the new limit.
+     */
+    public synchronized int onSample(long startedAt, long rttNanos, int inFlight, boolean dropped) {
+        long completedAt = startedAt + rttNanos;
+        if (!sampled) {
+            sampled = true;
+            lastDecreaseAt = startedAt - 1;
+            shortRttNanos = rttNanos;
+            baselineRttNanos = rttNanos;
+        }
+        boolean decreaseAllowed = startedAt - lastDecreaseAt > 0;
+        if (dropped) {
+            if (decreaseAllowed) {
+                decrease(Auth0Constants.ADAPTIVE_LIMIT_DROP_BACKOFF, completedAt);
+            }
+            return limit;
+        }
+        shortRttNanos += (rttNanos - shortRttNanos) * Auth0Constants.ADAPTIVE_LIMIT_SHORT_RTT_SMOOTHING;
+        baselineRttNanos = Math.min(baselineRttNanos, rttNanos);
+        if (shortRttNanos > baselineRttNanos * Auth0Constants.ADAPTIVE_LIMIT_LATENCY_TOLERANCE) {
+            if (limit <= minLimit) {
+                baselineRttNanos = shortRttNanos;
+            } else if (decreaseAllowed) {
+                decrease(Auth0Constants.ADAPTIVE_LIMIT_LATENCY_BACKOFF, completedAt);
+            }
+        } else if (inFlight * 2 >= limit) {
+            // Only grow while the lane uses a fair share of its limit, an idle lane has nothing to learn from.
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1.0 / estimatedLimit);
+            limit = (int) estimatedLimit;
+        }
+        return limit;
+    }
+
+    private void decrease(double backoff, long now) {
+        estimatedLimit = Math.max(minLimit, estimatedLimit * backoff);
+        limit = (int) estimatedLimit;
+        lastDecreaseAt = now;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
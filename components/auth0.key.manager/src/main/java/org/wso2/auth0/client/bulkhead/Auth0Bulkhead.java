@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.bulkhead;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the number of calls in flight on an HTTP client. Calls beyond the limit wait in a bounded queue for a
+ * limited time, and are rejected with an {@link Auth0BulkheadFullException} when the queue is full or the wait times
+ * out, so that a backlog in one class of traffic fails fast instead of piling up threads.
+ * <p>
+ * The limit is either fixed or follows an {@link Auth0AdaptiveLimit}, which is told the latency and outcome of every
+ * call that passed the bulkhead, except calls cancelled by their caller.
+ */
+public class Auth0Bulkhead implements Interceptor {
+    private final String name;
+    private final int maxQueued;
+    private final long queueTimeoutMillis;
+    private final Auth0AdaptiveLimit adaptiveLimit;
+    private final ResizableSemaphore permits;
+    private int limit;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Semaphore whose number of permits can be lowered while they are held.
+     */
+    private static final class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+
+    /**
+     * Creates a bulkhead with a fixed limit.
+     */
+    public Auth0Bulkhead(String name, int maxConcurrent, int maxQueued, long queueTimeoutMillis) {
+        this(name, maxConcurrent, maxQueued, queueTimeoutMillis, null);
+    }
+
+    /**
+     * Creates a bulkhead whose limit starts at {@code initialConcurrent}, and follows the given adaptive limit if
+     * there is one.
+     */
+    public Auth0Bulkhead(String name, int initialConcurrent, int maxQueued, long queueTimeoutMillis,
+                         Auth0AdaptiveLimit adaptiveLimit) {
+        this.name = name;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.adaptiveLimit = adaptiveLimit;
+        this.limit = initialConcurrent;
+        this.permits = new ResizableSemaphore(initialConcurrent);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        acquire();
+        if (adaptiveLimit == null) {
+            try {
+                return chain.proceed(chain.request());
+            } finally {
+                permits.release();
+            }
+        }
+        int inFlight = getActiveCount();
+        long startedAt = System.nanoTime();
+        int status = 0;
+        try {
+            Response response = chain.proceed(chain.request());
+            status = response.code();
+            return response;
+        } finally {
+            permits.release();
+            boolean dropped = status == 0 || status == 429 || status >= 500;
+            // Other client errors, such as a missing client, are answered faster than real work and say nothing
+            // about the load on Auth0, and neither do calls cancelled by their caller, such as the losing request
+            // of a hedge or a request whose future was cancelled.
+            boolean cancelled = status == 0 && chain.call().isCanceled();
+            if ((dropped || status < 400) && !cancelled) {
+                onSample(startedAt, System.nanoTime() - startedAt, inFlight, dropped);
+            }
+        }
+    }
+
+    /**
+     * Tells the adaptive limit about a call and applies the limit it returns. Both happen under the lock of the
+     * bulkhead, so that limits computed from concurrent samples are applied in the order they were computed and the
+     * last one applied is the current limit of the adaptive limit.
+     */
+    private synchronized void onSample(long startedAt, long rttNanos, int inFlight, boolean dropped) {
+        resize(adaptiveLimit.onSample(startedAt, rttNanos, inFlight, dropped));
+    }
+
+    /**
+     * Applies a new limit. Lowering the limit takes effect as the calls in flight complete.
+     */
+    private void resize(int newLimit) {
+        int delta = newLimit - limit;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reduce(-delta);
+        }
+        limit = newLimit;
+    }
+
+    private void acquire() throws IOException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new Auth0BulkheadFullException("Bulkhead " + name + " is full");
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for bulkhead " + name);
+        } finally {
+            queued.decrementAndGet();
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new Auth0BulkheadFullException("Timed out waiting for bulkhead " + name);
+        }
+    }
+
+    public synchronized int getActiveCount() {
+        return limit - permits.availablePermits();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.bulkhead;
+
+import org.wso2.auth0.client.Auth0Constants;
+
+/**
+ * Classes of traffic to Auth0, each served by its own bulkhead and connection pool so that one class can never use up
+ * the capacity of another. The management API lanes adapt their concurrency limit to the latency of Auth0, between one
+ * and their maximum, while the token lane has a fixed limit.
+ */
+public enum Auth0TrafficClass {
+    TOKEN("token", Auth0Constants.TOKEN_LANE_MAX_CONCURRENT, Auth0Constants.TOKEN_LANE_MAX_CONCURRENT,
+            Auth0Constants.TOKEN_LANE_MAX_QUEUED, Auth0Constants.TOKEN_LANE_QUEUE_TIMEOUT_MILLIS, false),
+    MANAGEMENT_READ("managementRead", Auth0Constants.MANAGEMENT_READ_LANE_INITIAL_CONCURRENT,
+            Auth0Constants.MANAGEMENT_READ_LANE_MAX_CONCURRENT, Auth0Constants.MANAGEMENT_READ_LANE_MAX_QUEUED,
+            Auth0Constants.MANAGEMENT_LANE_QUEUE_TIMEOUT_MILLIS, true),
+    MANAGEMENT_WRITE("managementWrite", Auth0Constants.MANAGEMENT_WRITE_LANE_INITIAL_CONCURRENT,
+            Auth0Constants.MANAGEMENT_WRITE_LANE_MAX_CONCURRENT, Auth0Constants.MANAGEMENT_WRITE_LANE_MAX_QUEUED,
+            Auth0Constants.MANAGEMENT_LANE_QUEUE_TIMEOUT_MILLIS, true);
+
+    private final String metricName;
+    private final int initialConcurrent;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long queueTimeoutMillis;
+    private final boolean adaptive;
+
+    Auth0TrafficClass(String metricName, int initialConcurrent, int maxConcurrent, int maxQueued,
+                      long queueTimeoutMillis, boolean adaptive) {
+        this.metricName = metricName;
+        this.initialConcurrent = initialConcurrent;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Returns the class of a management API call, reads being the calls that do not change anything.
+     *
+     * @param method HTTP method of the call.
+     * @return an {@code Auth0TrafficClass}
+     */
+    public static Auth0TrafficClass ofManagementCall(String method) {
+        return "GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method) ? MANAGEMENT_READ : MANAGEMENT_WRITE;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public int getInitialConcurrent() {
+        return initialConcurrent;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public long getQueueTimeoutMillis() {
+        return queueTimeoutMillis;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+}
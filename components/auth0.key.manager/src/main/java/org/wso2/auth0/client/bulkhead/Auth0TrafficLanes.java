@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.bulkhead;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.metrics.Auth0HttpEventListener;
+import org.wso2.auth0.client.metrics.Auth0Metrics;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HTTP clients of a tenant, one per class of traffic. Every lane has its own connection pool, dispatcher and
+ * bulkhead, so that token requests keep their connections and capacity however many management calls are queued, and
+ * a batch of management reads cannot hold up management writes or the other way around.
+ */
+public class Auth0TrafficLanes {
+    private final Map<Auth0TrafficClass, OkHttpClient> httpClients = new EnumMap<>(Auth0TrafficClass.class);
+    private final Map<Auth0TrafficClass, Auth0Bulkhead> bulkheads = new EnumMap<>(Auth0TrafficClass.class);
+    private final Client managementClient;
+
+    public Auth0TrafficLanes(String tenantName, Auth0Metrics metrics) {
+        for (Auth0TrafficClass trafficClass : Auth0TrafficClass.values()) {
+            Auth0AdaptiveLimit adaptiveLimit = trafficClass.isAdaptive() ? new Auth0AdaptiveLimit(
+                    trafficClass.getInitialConcurrent(), 1, trafficClass.getMaxConcurrent()) : null;
+            Auth0Bulkhead bulkhead = new Auth0Bulkhead(tenantName + "." + trafficClass.getMetricName(),
+                    trafficClass.getInitialConcurrent(), trafficClass.getMaxQueued(),
+                    trafficClass.getQueueTimeoutMillis(), adaptiveLimit);
+            // Queued calls wait in the bulkhead rather than in the dispatcher, so that its queue bound applies to
+            // asynchronous calls as well.
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(trafficClass.getMaxConcurrent() + trafficClass.getMaxQueued());
+            dispatcher.setMaxRequestsPerHost(trafficClass.getMaxConcurrent() + trafficClass.getMaxQueued());
+            OkHttpClient httpClient = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(trafficClass.getMaxConcurrent(),
+                            Auth0Constants.HTTP_KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .dispatcher(dispatcher)
+                    .addInterceptor(bulkhead)
+                    .eventListenerFactory(Auth0HttpEventListener.factory(metrics,
+                            Auth0Constants.HTTP_METRICS_SAMPLE_RATE))
+                    .build();
+            httpClients.put(trafficClass, httpClient);
+            bulkheads.put(trafficClass, bulkhead);
+            String prefix = "bulkhead." + tenantName + "." + trafficClass.getMetricName() + ".";
+            metrics.registerGauge(prefix + "active", bulkhead::getActiveCount);
+            metrics.registerGauge(prefix + "queued", bulkhead::getQueuedCount);
+            metrics.registerGauge(prefix + "rejected", bulkhead::getRejectedCount);
+            metrics.registerGauge(prefix + "limit", bulkhead::getLimit);
+        }
+        final Client readClient = new feign.okhttp.OkHttpClient(httpClients.get(Auth0TrafficClass.MANAGEMENT_READ));
+        final Client writeClient = new feign.okhttp.OkHttpClient(
+                httpClients.get(Auth0TrafficClass.MANAGEMENT_WRITE));
+        managementClient = new Client() {
+            @Override
+            public Response execute(Request request, Request.Options options) throws IOException {
+                return Auth0TrafficClass.ofManagementCall(request.httpMethod().name())
+                        == Auth0TrafficClass.MANAGEMENT_READ ? readClient.execute(request, options)
+                        : writeClient.execute(request, options);
+            }
+        };
+    }
+
+    /**
+     * Returns the HTTP client of a class of traffic.
+     */
+    public OkHttpClient getHttpClient(Auth0TrafficClass trafficClass) {
+        return httpClients.get(trafficClass);
+    }
+
+    /**
+     * Returns the Feign client for management API calls, which sends reads and writes through their own lanes.
+     */
+    public Client getManagementClient() {
+        return managementClient;
+    }
+
+    public Auth0Bulkhead getBulkhead(Auth0TrafficClass trafficClass) {
+        return bulkheads.get(trafficClass);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.cache;
+
+import org.wso2.auth0.client.model.Auth0AccessTokenResponse;
+
+import java.io.Serializable;
+
+/**
+ * Token entry kept in the local and cluster token caches. Only the fields needed to rebuild an
+ * {@code Auth0AccessTokenResponse} are kept so that the entry stays small when replicated across nodes.
+ */
+public class Auth0CachedToken implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String accessToken;
+    private final String tokenType;
+    private final String scope;
+    private final long expiresAt;
+
+    public Auth0CachedToken(String accessToken, String tokenType, String scope, long expiresAt) {
+        this.accessToken = accessToken;
+        this.tokenType = tokenType;
+        this.scope = scope;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Creates a cache entry out of a token endpoint response.
+     *
+     * @param response  response returned from the Auth0 token endpoint.
+     * @param issuedAt  time in milliseconds at which the response was received.
+     * @return cache entry, or {@code null} if the response does not carry a usable token.
+     */
+    public static Auth0CachedToken fromResponse(Auth0AccessTokenResponse response, long issuedAt) {
+        if (response == null || response.getAccessToken() == null || response.getExpiry() <= 0) {
+            return null;
+        }
+        return new Auth0CachedToken(response.getAccessToken(), response.getTokenType(), response.getScope(),
+                issuedAt + response.getExpiry() * 1000L);
+    }
+
+    /**
+     * Rebuilds a token endpoint response, with the remaining lifetime as its expiry.
+     *
+     * @param now current time in milliseconds.
+     * @return an {@code Auth0AccessTokenResponse}
+     */
+    public Auth0AccessTokenResponse toResponse(long now) {
+        Auth0AccessTokenResponse response = new Auth0AccessTokenResponse();
+        response.setAccessToken(accessToken);
+        response.setTokenType(tokenType);
+        response.setScope(scope);
+        response.setExpiry(Math.max(0, (expiresAt - now) / 1000L));
+        return response;
+    }
+
+    public boolean isUsable(long now, long skewMillis) {
+        return expiresAt - skewMillis > now;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
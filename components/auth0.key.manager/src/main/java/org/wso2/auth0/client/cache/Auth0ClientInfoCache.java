@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.cache;
+
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.model.Auth0ClientInfo;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node local cache of the clients read from Auth0. Entries are kept for a configurable time to live, which can be long
+ * when changes made outside of this node are learnt about from the tenant log and invalidated as they happen. A time
+ * to live of zero disables the cache.
+ */
+public class Auth0ClientInfoCache {
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile long timeToLiveMillis;
+
+    private static final class Entry {
+        private final Auth0ClientInfo clientInfo;
+        private final long expiresAt;
+
+        Entry(Auth0ClientInfo clientInfo, long expiresAt) {
+            this.clientInfo = clientInfo;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Loads a client from Auth0.
+     */
+    public interface ClientInfoLoader {
+        Auth0ClientInfo load();
+    }
+
+    /**
+     * Returns the cached client, or loads it using the given loader. A client loaded while an entry was being
+     * invalidated is returned but not cached, since it may predate the change that caused the invalidation.
+     *
+     * @param clientId client id.
+     * @param loader   loader used on a cache miss.
+     * @return an {@code Auth0ClientInfo}
+     */
+    public Auth0ClientInfo get(String clientId, ClientInfoLoader loader) {
+        long ttl = timeToLiveMillis;
+        if (ttl <= 0) {
+            return loader.load();
+        }
+        Entry entry = entries.get(clientId);
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            return entry.clientInfo;
+        }
+        long invalidationCount = invalidations.get();
+        Auth0ClientInfo clientInfo = loader.load();
+        if (clientInfo != null && invalidations.get() == invalidationCount) {
+            putEntry(clientId, clientInfo, ttl);
+        }
+        return clientInfo;
+    }
+
+    /**
+     * Caches a client returned by a write made by this node.
+     *
+     * @param clientInfo client returned by Auth0.
+     */
+    public void put(Auth0ClientInfo clientInfo) {
+        long ttl = timeToLiveMillis;
+        if (ttl > 0 && clientInfo != null && clientInfo.getClientId() != null) {
+            putEntry(clientInfo.getClientId(), clientInfo, ttl);
+        }
+    }
+
+    public void invalidate(String clientId) {
+        invalidations.incrementAndGet();
+        entries.remove(clientId);
+    }
+
+    public void clear() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the secrets of the cached clients.
+     *
+     * @return client secrets keyed by client id.
+     */
+    public Map<String, String> getClientSecrets() {
+        Map<String, String> clientSecrets = new HashMap<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            clientSecrets.put(entry.getKey(), entry.getValue().clientInfo.getClientSecret());
+        }
+        return clientSecrets;
+    }
+
+    /**
+     * Changes the time to live of new entries. Disabling the cache drops the cached entries.
+     *
+     * @param timeToLiveMillis time to live in milliseconds, or zero to disable the cache.
+     */
+    public void setTimeToLive(long timeToLiveMillis) {
+        this.timeToLiveMillis = timeToLiveMillis;
+        if (timeToLiveMillis <= 0) {
+            clear();
+        }
+    }
+
+    private void putEntry(String clientId, Auth0ClientInfo clientInfo, long ttl) {
+        long now = System.currentTimeMillis();
+        if (entries.size() >= Auth0Constants.CLIENT_INFO_CACHE_MAX_SIZE) {
+            for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+                if (iterator.next().expiresAt <= now) {
+                    iterator.remove();
+                }
+            }
+            if (entries.size() >= Auth0Constants.CLIENT_INFO_CACHE_MAX_SIZE) {
+                return;
+            }
+        }
+        entries.put(clientId, new Entry(clientInfo, now + ttl));
+    }
+}
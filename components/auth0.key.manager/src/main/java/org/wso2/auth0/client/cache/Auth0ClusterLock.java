@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.cache;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.wso2.auth0.client.Auth0Constants;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster wide lock held on a key of a Hazelcast distributed map. The lock is taken with a lease, so that a node
+ * which stops responding while holding it does not block the other nodes for longer than the lease.
+ */
+public class Auth0ClusterLock {
+    private final IMap<String, Boolean> lockMap;
+    private final String name;
+    private final long leaseMillis;
+
+    public Auth0ClusterLock(HazelcastInstance hazelcastInstance, String name, long leaseMillis) {
+        this.lockMap = hazelcastInstance.getMap(Auth0Constants.CLUSTER_LOCK_MAP_NAME);
+        this.name = name;
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * Acquires the lock, waiting up to the given time for another node to release it.
+     *
+     * @param waitMillis maximum time to wait.
+     * @return {@code true} if the lock was acquired.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean tryLock(long waitMillis) throws InterruptedException {
+        return lockMap.tryLock(name, waitMillis, TimeUnit.MILLISECONDS, leaseMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void unlock() {
+        lockMap.unlock(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.cache;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
+import com.hazelcast.query.QueryConstants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster wide token store backed by a Hazelcast distributed map. Entries are loaded under a per key cluster lock so
+ * that only one node calls the Auth0 token endpoint for a given entry while the others wait for and reuse its result.
+ * A node never loads an entry without holding the lock; the lease of the lock bounds how long a node that stopped
+ * responding can hold it.
+ */
+public class Auth0ClusterTokenStore {
+    private static final Log log = LogFactory.getLog(Auth0ClusterTokenStore.class);
+    private final IMap<String, Auth0CachedToken> tokenMap;
+    private final long skewMillis;
+
+    public Auth0ClusterTokenStore(HazelcastInstance hazelcastInstance, long skewMillis) {
+        this.tokenMap = hazelcastInstance.getMap(Auth0Constants.CLUSTER_TOKEN_CACHE_NAME);
+        this.skewMillis = skewMillis;
+    }
+
+    /**
+     * Returns the token stored in the cluster for the given key, loading and publishing it if there is none.
+     *
+     * @param key    cache key.
+     * @param loader loader used when no usable token is stored in the cluster.
+     * @return usable token, or {@code null} if the loader did not return a cacheable token.
+     * @throws APIManagementException if the loader fails, or the lock could not be acquired before the lease of the
+     *                                node holding it ran out.
+     */
+    public Auth0CachedToken getOrLoad(String key, Auth0TokenCache.TokenLoader loader)
+            throws APIManagementException {
+        Auth0CachedToken cachedToken = getUsable(key);
+        if (cachedToken != null) {
+            return cachedToken;
+        }
+        long deadline = System.currentTimeMillis() + Auth0Constants.CLUSTER_TOKEN_CACHE_LOCK_LEASE_MILLIS
+                + Auth0Constants.CLUSTER_TOKEN_CACHE_LOCK_WAIT_MILLIS;
+        boolean locked = false;
+        while (!locked) {
+            try {
+                locked = tokenMap.tryLock(key, Auth0Constants.CLUSTER_TOKEN_CACHE_LOCK_WAIT_MILLIS,
+                        TimeUnit.MILLISECONDS, Auth0Constants.CLUSTER_TOKEN_CACHE_LOCK_LEASE_MILLIS,
+                        TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new APIManagementException("Interrupted while waiting for the cluster token lock of : " + key,
+                        e);
+            }
+            // Another node may have loaded the entry while this node was waiting for the lock.
+            cachedToken = getUsable(key);
+            if (cachedToken != null) {
+                if (locked) {
+                    tokenMap.unlock(key);
+                }
+                return cachedToken;
+            }
+            if (!locked) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new APIManagementException("Timed out waiting for the cluster token lock of : " + key);
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Still waiting for another node to load token for : " + key);
+                }
+            }
+        }
+        try {
+            Auth0CachedToken loadedToken = Auth0CachedToken.fromResponse(loader.load(), System.currentTimeMillis());
+            if (loadedToken != null) {
+                put(key, loadedToken);
+            }
+            return loadedToken;
+        } finally {
+            tokenMap.unlock(key);
+        }
+    }
+
+    private Auth0CachedToken getUsable(String key) {
+        Auth0CachedToken cachedToken = tokenMap.get(key);
+        return cachedToken != null && cachedToken.isUsable(System.currentTimeMillis(), skewMillis) ? cachedToken
+                : null;
+    }
+
+    public Auth0CachedToken get(String key) {
+        return tokenMap.get(key);
+    }
+
+    /**
+     * Publishes a token refreshed by this node to the cluster.
+     *
+     * @param key         cache key.
+     * @param cachedToken refreshed token.
+     */
+    public void put(String key, Auth0CachedToken cachedToken) {
+        long ttl = cachedToken.getExpiresAt() - skewMillis - System.currentTimeMillis();
+        if (ttl > 0) {
+            tokenMap.set(key, cachedToken, ttl, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void remove(String key) {
+        tokenMap.delete(key);
+    }
+
+    /**
+     * Removes every entry whose key starts with the given prefix, for example all the tokens of a client.
+     *
+     * @param keyPrefix prefix of the keys to remove.
+     */
+    public void removeByPrefix(String keyPrefix) {
+        // Wildcards in the prefix are escaped so that they only match themselves.
+        Predicate keyPredicate = Predicates.like(QueryConstants.KEY_ATTRIBUTE_NAME.value(),
+                keyPrefix.replace("%", "\\%").replace("_", "\\_") + "%");
+        for (String key : tokenMap.keySet(keyPredicate)) {
+            tokenMap.delete(key);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.cache;
+
+import com.hazelcast.core.HazelcastException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.model.Auth0AccessTokenResponse;
+import org.wso2.auth0.client.util.Auth0ThreadFactory;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Node local cache for application and management API access tokens. When a {@code Auth0ClusterTokenStore} is
+ * given, misses in the local cache are served from the cluster before going to the Auth0 token endpoint.
+ * <p>
+ * Hot entries are refreshed ahead of expiry: once an entry that is accessed frequently enters the final fraction of
+ * its lifetime, a new token is requested in the background so that callers never wait for the token endpoint. The
+ * point at which an entry is refreshed is jittered to avoid refreshing many entries at once, and the number of
+ * concurrent refreshes is capped. Entries which are not accessed frequently are left to expire.
+ */
+public class Auth0TokenCache {
+    private static final Log log = LogFactory.getLog(Auth0TokenCache.class);
+    private static final String APPLICATION_TOKEN_PREFIX = "app:";
+    private static final String MANAGEMENT_TOKEN_PREFIX = "mgt:";
+    private final Map<String, LocalEntry> localCache = new ConcurrentHashMap<>();
+    private final Auth0ClusterTokenStore clusterStore;
+    private final long skewMillis;
+    private final Semaphore refreshPermits = new Semaphore(Auth0Constants.TOKEN_REFRESH_AHEAD_MAX_CONCURRENT);
+    private final ExecutorService refreshExecutor = Executors.newFixedThreadPool(
+            Auth0Constants.TOKEN_REFRESH_AHEAD_MAX_CONCURRENT, new Auth0ThreadFactory("auth0-token-refresher"));
+
+    /**
+     * Locally cached token along with the loader that issued it and its access statistics.
+     */
+    private static final class LocalEntry {
+        private final Auth0CachedToken token;
+        private final TokenLoader loader;
+        private final long cachedAt;
+        private final long refreshAt;
+        private final LongAdder hits = new LongAdder();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        LocalEntry(Auth0CachedToken token, TokenLoader loader, long cachedAt) {
+            this.token = token;
+            this.loader = loader;
+            this.cachedAt = cachedAt;
+            long lifetime = Math.max(0, token.getExpiresAt() - cachedAt);
+            long window = (long) (lifetime * Auth0Constants.TOKEN_REFRESH_AHEAD_FRACTION);
+            // Refresh somewhere in the first half of the refresh window, so that entries cached together spread out.
+            this.refreshAt = token.getExpiresAt() - window + ThreadLocalRandom.current().nextLong(window / 2 + 1);
+        }
+
+        boolean isHot(long now) {
+            long hitCount = hits.sum();
+            long ageMillis = Math.max(now - cachedAt, 1);
+            return hitCount > 1
+                    && hitCount * 60000L / ageMillis >= Auth0Constants.TOKEN_REFRESH_AHEAD_MIN_HITS_PER_MINUTE;
+        }
+    }
+
+    /**
+     * Loads a token from the Auth0 token endpoint.
+     */
+    public interface TokenLoader {
+        Auth0AccessTokenResponse load() throws APIManagementException;
+    }
+
+    public Auth0TokenCache(Auth0ClusterTokenStore clusterStore) {
+        this.clusterStore = clusterStore;
+        this.skewMillis = Auth0Constants.TOKEN_CACHE_EXPIRY_SKEW_SECONDS * 1000L;
+    }
+
+    /**
+     * Returns a cached token for the key, or loads one using the given loader. Responses without a usable token
+     * (for example the response returned when the client is not granted to the resource server) are returned as is
+     * and never cached.
+     *
+     * @param key    cache key created with {@link #applicationTokenKey} or {@link #managementTokenKey}.
+     * @param loader loader used on a cache miss.
+     * @return an {@code Auth0AccessTokenResponse}
+     * @throws APIManagementException if the loader fails.
+     */
+    public Auth0AccessTokenResponse get(String key, TokenLoader loader) throws APIManagementException {
+        long now = System.currentTimeMillis();
+        LocalEntry entry = localCache.get(key);
+        if (entry != null && entry.token.isUsable(now, skewMillis)) {
+            entry.hits.increment();
+            if (now >= entry.refreshAt) {
+                refreshAhead(key, entry, now);
+            }
+            return entry.token.toResponse(now);
+        }
+        Auth0CachedToken cachedToken = null;
+        // The loader may run inside the cluster store and return a response that is not cached, which is then
+        // returned as is rather than loaded a second time.
+        final boolean[] loaded = new boolean[1];
+        final Auth0AccessTokenResponse[] loadedResponse = new Auth0AccessTokenResponse[1];
+        TokenLoader capturingLoader = () -> {
+            loaded[0] = true;
+            return loadedResponse[0] = loader.load();
+        };
+        if (clusterStore != null) {
+            try {
+                cachedToken = clusterStore.getOrLoad(key, capturingLoader);
+            } catch (HazelcastException e) {
+                log.warn("Cluster token cache is not available, falling back to the local token cache", e);
+            }
+        }
+        if (cachedToken == null) {
+            Auth0AccessTokenResponse response = loaded[0] ? loadedResponse[0] : loader.load();
+            cachedToken = Auth0CachedToken.fromResponse(response, System.currentTimeMillis());
+            if (cachedToken == null) {
+                return response;
+            }
+        }
+        putLocal(key, new LocalEntry(cachedToken, loader, System.currentTimeMillis()));
+        return cachedToken.toResponse(System.currentTimeMillis());
+    }
+
+    /**
+     * Refreshes a hot entry in the background. Does nothing if the entry is cold, is already being refreshed, or the
+     * maximum number of concurrent refreshes is reached, in which case a later access will try again.
+     */
+    private void refreshAhead(String key, LocalEntry entry, long now) {
+        if (!entry.isHot(now) || !entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        if (!refreshPermits.tryAcquire()) {
+            entry.refreshing.set(false);
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Auth0CachedToken refreshedToken = null;
+                    if (clusterStore != null) {
+                        // Adopt the token if another node has already refreshed this entry.
+                        Auth0CachedToken clusterToken = clusterStore.get(key);
+                        if (clusterToken != null && clusterToken.getExpiresAt() > entry.token.getExpiresAt()) {
+                            refreshedToken = clusterToken;
+                        }
+                    }
+                    if (refreshedToken == null) {
+                        refreshedToken = Auth0CachedToken.fromResponse(entry.loader.load(),
+                                System.currentTimeMillis());
+                        if (refreshedToken != null && clusterStore != null) {
+                            clusterStore.put(key, refreshedToken);
+                        }
+                    }
+                    if (refreshedToken != null) {
+                        localCache.replace(key, entry,
+                                new LocalEntry(refreshedToken, entry.loader, System.currentTimeMillis()));
+                    }
+                } catch (APIManagementException | RuntimeException e) {
+                    // The entry stays marked as refreshing, so it is not retried and is reloaded on expiry.
+                    log.warn("Error while refreshing token ahead of expiry, it will be requested on expiry", e);
+                } finally {
+                    refreshPermits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshPermits.release();
+            entry.refreshing.set(false);
+            log.warn("Could not schedule token refresh", e);
+        }
+    }
+
+    /**
+     * Removes the entry from this node and from the cluster.
+     *
+     * @param key cache key.
+     */
+    public void invalidate(String key) {
+        localCache.remove(key);
+        if (clusterStore != null) {
+            try {
+                clusterStore.remove(key);
+            } catch (HazelcastException e) {
+                log.warn("Error while removing token from the cluster token cache", e);
+            }
+        }
+    }
+
+    /**
+     * Removes the application tokens of a client from this node and from the cluster, for example after the client
+     * was deleted or its secret was rotated, so that no node is handed a token issued before the revocation.
+     *
+     * @param clientId client whose tokens are removed.
+     */
+    public void invalidateClient(String clientId) {
+        String prefix = APPLICATION_TOKEN_PREFIX + clientId + ":";
+        localCache.keySet().removeIf(key -> key.startsWith(prefix));
+        if (clusterStore != null) {
+            try {
+                clusterStore.removeByPrefix(prefix);
+            } catch (HazelcastException e) {
+                log.warn("Error while removing tokens of client " + clientId + " from the cluster token cache", e);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries cached on this node.
+     */
+    public int size() {
+        return localCache.size();
+    }
+
+    /**
+     * Stops the background refreshes.
+     */
+    public void close() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private void putLocal(String key, LocalEntry entry) {
+        if (localCache.size() >= Auth0Constants.TOKEN_CACHE_MAX_SIZE) {
+            purgeExpired();
+        }
+        localCache.put(key, entry);
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        for (Iterator<LocalEntry> iterator = localCache.values().iterator(); iterator.hasNext(); ) {
+            if (!iterator.next().token.isUsable(now, skewMillis)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Creates the cache key of an application token. The secret is hashed into the key so that a token is only
+     * served to callers presenting the same credentials, and so that rotated secrets never hit old entries.
+     */
+    public static String applicationTokenKey(String clientId, String clientSecret, String grantType, String scope) {
+        return APPLICATION_TOKEN_PREFIX + clientId + ":" + DigestUtils.sha256Hex(String.valueOf(clientSecret) + "\n"
+                + grantType + "\n" + scope);
+    }
+
+    /**
+     * Creates the cache key of the management API token of a service client.
+     */
+    public static String managementTokenKey(String clientId, String clientSecret, String audience) {
+        return MANAGEMENT_TOKEN_PREFIX + clientId + ":" + DigestUtils.sha256Hex(String.valueOf(clientSecret) + "\n"
+                + audience);
+    }
+}
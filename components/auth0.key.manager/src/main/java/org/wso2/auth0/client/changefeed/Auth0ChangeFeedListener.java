@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.changefeed;
+
+/**
+ * Receives the changes read from the log of a tenant. Callbacks run on the poller thread of the tenant, in the order
+ * the changes were made.
+ */
+public interface Auth0ChangeFeedListener {
+
+    /**
+     * Called when a client was changed through the management API, by this or any other node or in the dashboard.
+     *
+     * @param tenantName       tenant the client is in.
+     * @param clientId         changed client.
+     * @param changeType       kind of change.
+     * @param changedAtSeconds time of the change, in seconds since the epoch.
+     */
+    void onClientChanged(String tenantName, String clientId, Auth0ChangeType changeType, long changedAtSeconds);
+
+    /**
+     * Called when a resource server was changed through the management API.
+     *
+     * @param tenantName       tenant the resource server is in.
+     * @param resourceServerId id or identifier of the changed resource server, as used in the request path.
+     * @param changeType       kind of change.
+     */
+    void onResourceServerChanged(String tenantName, String resourceServerId, Auth0ChangeType changeType);
+
+    /**
+     * Called when changes may have been missed, because the checkpoint of the tenant is no longer retained by Auth0.
+     * Everything cached for the tenant should be dropped, and clients deleted or with a rotated secret in the
+     * meantime should be found and revoked.
+     *
+     * @param tenantName tenant whose changes may have been missed.
+     */
+    void onChangesMissed(String tenantName);
+
+    /**
+     * Called when the log of a tenant can no longer be read, for want of the {@code read:logs} scope, or can be read
+     * again. While the log cannot be read, changes to the tenant are not followed and should not be relied on.
+     *
+     * @param tenantName tenant whose log is concerned.
+     * @param available  whether the log can be read.
+     */
+    void onChangeFeedAvailabilityChanged(String tenantName, boolean available);
+}
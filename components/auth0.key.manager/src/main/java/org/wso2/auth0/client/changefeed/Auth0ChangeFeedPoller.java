@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.changefeed;
+
+import feign.FeignException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.model.Auth0LogEvent;
+import org.wso2.auth0.client.model.Auth0Logs;
+import org.wso2.auth0.client.util.Auth0ThreadFactory;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the log of a tenant and reports the management API operations on clients and resource servers to a
+ * listener, so that cached data can be invalidated as soon as it changes rather than when it expires.
+ * <p>
+ * The log is read in pages from a checkpoint, the id of the last entry processed, which is persisted after every
+ * page. Without a checkpoint the poller starts from the newest entry, since everything older is already reflected in
+ * what is read from Auth0 from then on.
+ */
+public class Auth0ChangeFeedPoller {
+    private static final Log log = LogFactory.getLog(Auth0ChangeFeedPoller.class);
+    private static final String SUCCESSFUL_API_OPERATION = "sapi";
+    private static final String CLIENTS_PATH = "/api/v2/clients/";
+    private static final String RESOURCE_SERVERS_PATH = "/api/v2/resource-servers/";
+    private static final String ROTATE_SECRET = "rotate-secret";
+    private final String tenantName;
+    private final Auth0Logs logsClient;
+    private final Auth0LogCheckpointStore checkpointStore;
+    private final Auth0ChangeFeedListener listener;
+    private ScheduledExecutorService scheduler;
+    private String checkpoint;
+    private boolean accessDenied;
+
+    public Auth0ChangeFeedPoller(String tenantName, Auth0Logs logsClient, Auth0LogCheckpointStore checkpointStore,
+                                 Auth0ChangeFeedListener listener) {
+        this.tenantName = tenantName;
+        this.logsClient = logsClient;
+        this.checkpointStore = checkpointStore;
+        this.listener = listener;
+    }
+
+    /**
+     * Resumes from the persisted checkpoint and schedules the polling of the log.
+     *
+     * @param pollIntervalSeconds delay between two polls.
+     */
+    public void start(long pollIntervalSeconds) {
+        checkpoint = checkpointStore.load();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new Auth0ThreadFactory("auth0-change-feed"));
+        scheduler.scheduleWithFixedDelay(this::poll, 0, pollIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the log entries written since the checkpoint, up to a bounded number of pages per poll.
+     */
+    void poll() {
+        try {
+            if (checkpoint == null) {
+                initializeCheckpoint();
+                return;
+            }
+            List<Auth0LogEvent> events;
+            int pages = 0;
+            do {
+                events = logsClient.getLogsFrom(checkpoint, Auth0Constants.CHANGE_FEED_PAGE_SIZE);
+                if (events == null || events.isEmpty()) {
+                    break;
+                }
+                for (Auth0LogEvent event : events) {
+                    dispatch(event);
+                    if (event.getLogId() != null) {
+                        checkpoint = event.getLogId();
+                    }
+                }
+                checkpointStore.save(checkpoint);
+            } while (events.size() >= Auth0Constants.CHANGE_FEED_PAGE_SIZE
+                    && ++pages < Auth0Constants.CHANGE_FEED_MAX_PAGES_PER_POLL);
+            if (accessDenied) {
+                accessDenied = false;
+                log.info("Following the log of Auth0 tenant " + tenantName + " again");
+                listener.onChangeFeedAvailabilityChanged(tenantName, true);
+            }
+        } catch (FeignException e) {
+            if (e.status() == 400 || e.status() == 404) {
+                log.warn("Log checkpoint of Auth0 tenant " + tenantName + " is no longer available, cached data "
+                        + "of the tenant is dropped");
+                checkpoint = null;
+                listener.onChangesMissed(tenantName);
+            } else if (e.status() == 401 || e.status() == 403) {
+                if (!accessDenied) {
+                    accessDenied = true;
+                    log.warn("Could not read the log of Auth0 tenant " + tenantName + ", grant the read:logs scope "
+                            + "to the management API client to follow changes made outside of API Manager");
+                    listener.onChangeFeedAvailabilityChanged(tenantName, false);
+                }
+            } else {
+                log.warn("Error while reading the log of Auth0 tenant : " + tenantName, e);
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception escape, as it would cancel the scheduled polling.
+            log.error("Error while processing the log of Auth0 tenant : " + tenantName, e);
+        }
+    }
+
+    private void initializeCheckpoint() {
+        List<Auth0LogEvent> latestEvents = logsClient.getLatestLogs(1);
+        if (latestEvents != null && !latestEvents.isEmpty() && latestEvents.get(0).getLogId() != null) {
+            checkpoint = latestEvents.get(0).getLogId();
+            checkpointStore.save(checkpoint);
+        }
+    }
+
+    /**
+     * Reports a log entry to the listener if it is a successful management API operation on a client or a resource
+     * server. Operations on collections, such as creating a client, change nothing that could have been cached.
+     */
+    private void dispatch(Auth0LogEvent event) {
+        if (!SUCCESSFUL_API_OPERATION.equals(event.getType()) || event.getDetails() == null
+                || event.getDetails().getRequest() == null || event.getDetails().getRequest().getPath() == null) {
+            return;
+        }
+        Auth0LogEvent.Request request = event.getDetails().getRequest();
+        String path = request.getPath();
+        int queryStart = path.indexOf('?');
+        if (queryStart >= 0) {
+            path = path.substring(0, queryStart);
+        }
+        boolean delete = "delete".equalsIgnoreCase(request.getMethod());
+        if (path.startsWith(CLIENTS_PATH)) {
+            String[] segments = path.substring(CLIENTS_PATH.length()).split("/");
+            if (segments[0].isEmpty()) {
+                return;
+            }
+            Auth0ChangeType changeType;
+            if (segments.length > 1) {
+                changeType = ROTATE_SECRET.equals(segments[1]) ? Auth0ChangeType.SECRET_ROTATED
+                        : Auth0ChangeType.UPDATED;
+            } else {
+                changeType = delete ? Auth0ChangeType.DELETED : Auth0ChangeType.UPDATED;
+            }
+            listener.onClientChanged(tenantName, decode(segments[0]), changeType, changedAtSeconds(event));
+        } else if (path.startsWith(RESOURCE_SERVERS_PATH)) {
+            String resourceServerId = path.substring(RESOURCE_SERVERS_PATH.length());
+            if (!resourceServerId.isEmpty()) {
+                listener.onResourceServerChanged(tenantName, decode(resourceServerId),
+                        delete ? Auth0ChangeType.DELETED : Auth0ChangeType.UPDATED);
+            }
+        }
+    }
+
+    private static String decode(String pathSegment) {
+        try {
+            return URLDecoder.decode(pathSegment, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return pathSegment;
+        }
+    }
+
+    /**
+     * Returns the time of a log entry, or the current time if it cannot be read, which errs on the side of revoking.
+     */
+    private static long changedAtSeconds(Auth0LogEvent event) {
+        if (event.getDate() != null) {
+            try {
+                return Instant.parse(event.getDate()).getEpochSecond();
+            } catch (DateTimeParseException e) {
+                log.debug("Could not parse the date of log entry : " + event.getLogId(), e);
+            }
+        }
+        return System.currentTimeMillis() / 1000L;
+    }
+}
@@ -16,16 +16,13 @@
  * under the License.
  */
 
-package org.wso2.Auth0.client;
+package org.wso2.auth0.client.changefeed;
 
 /**
- * Hello world!
- *
+ * Kinds of changes to clients and resource servers read from the tenant log.
  */
-public class App 
-{
-    public static void main( String[] args )
-    {
-        System.out.println( "Hello World!" );
-    }
+public enum Auth0ChangeType {
+    UPDATED,
+    SECRET_ROTATED,
+    DELETED
 }
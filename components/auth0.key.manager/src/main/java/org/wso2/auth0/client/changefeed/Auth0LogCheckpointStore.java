@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.changefeed;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Keeps the id of the last tenant log entry processed in a file, so that a restarted node resumes from where it left
+ * off. The checkpoint records the audience of the tenant and is ignored if the tenant behind the name changed.
+ */
+public class Auth0LogCheckpointStore {
+    private static final Log log = LogFactory.getLog(Auth0LogCheckpointStore.class);
+    private static final String AUDIENCE = "audience";
+    private static final String LOG_ID = "log_id";
+    private final File file;
+    private final String audience;
+
+    public Auth0LogCheckpointStore(File file, String audience) {
+        this.file = file;
+        this.audience = audience;
+    }
+
+    /**
+     * Reads the checkpoint.
+     *
+     * @return id of the last processed log entry, or {@code null} if there is no usable checkpoint.
+     */
+    public String load() {
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(file)) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            log.warn("Could not read log checkpoint : " + file, e);
+            return null;
+        }
+        if (!audience.equals(properties.getProperty(AUDIENCE))) {
+            return null;
+        }
+        return properties.getProperty(LOG_ID);
+    }
+
+    /**
+     * Writes the checkpoint. The file is replaced atomically, so a crash never leaves a partial checkpoint behind.
+     *
+     * @param logId id of the last processed log entry.
+     */
+    public void save(String logId) {
+        Properties properties = new Properties();
+        properties.setProperty(AUDIENCE, audience);
+        properties.setProperty(LOG_ID, logId);
+        File directory = file.getAbsoluteFile().getParentFile();
+        File temporaryFile = new File(directory, file.getName() + ".tmp");
+        try {
+            Files.createDirectories(directory.toPath());
+            try (OutputStream outputStream = new FileOutputStream(temporaryFile)) {
+                properties.store(outputStream, null);
+            }
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write log checkpoint : " + file, e);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.config;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.commons.lang.StringUtils;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.journal.Auth0JournalOverflowPolicy;
+import org.wso2.auth0.client.model.Auth0TenantConfiguration;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.api.model.KeyManagerConfiguration;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable, typed view of a key manager configuration. A new instance is read every time the configuration is
+ * loaded and compared with the previous one, so that only the components whose settings changed are rebuilt.
+ */
+public final class Auth0Settings {
+    private final String keyManagerName;
+    private final String resourceServerIdentifier;
+    private final boolean clusterTokenCacheEnabled;
+    private final boolean eventJournalEnabled;
+    private final Auth0JournalOverflowPolicy eventJournalOverflowPolicy;
+    private final boolean changeFeedEnabled;
+    private final boolean clientRegistryEnabled;
+    private final boolean warmUpEnabled;
+    private final boolean grantAllScopesEnabled;
+    private final List<Auth0TenantConfiguration> tenants;
+
+    private Auth0Settings(String keyManagerName, String resourceServerIdentifier, boolean clusterTokenCacheEnabled,
+                          boolean eventJournalEnabled, Auth0JournalOverflowPolicy eventJournalOverflowPolicy,
+                          boolean changeFeedEnabled, boolean clientRegistryEnabled, boolean warmUpEnabled,
+                          boolean grantAllScopesEnabled, List<Auth0TenantConfiguration> tenants) {
+        this.keyManagerName = keyManagerName;
+        this.resourceServerIdentifier = resourceServerIdentifier;
+        this.clusterTokenCacheEnabled = clusterTokenCacheEnabled;
+        this.eventJournalEnabled = eventJournalEnabled;
+        this.eventJournalOverflowPolicy = eventJournalOverflowPolicy;
+        this.changeFeedEnabled = changeFeedEnabled;
+        this.clientRegistryEnabled = clientRegistryEnabled;
+        this.warmUpEnabled = warmUpEnabled;
+        this.grantAllScopesEnabled = grantAllScopesEnabled;
+        this.tenants = Collections.unmodifiableList(tenants);
+    }
+
+    /**
+     * Reads the settings out of a key manager configuration.
+     *
+     * @param keyManagerConfiguration  key manager configuration.
+     * @param resourceServerIdentifier identifier of the WSO2 resource server.
+     * @return an {@code Auth0Settings}
+     * @throws APIManagementException if the configuration is not valid.
+     */
+    public static Auth0Settings from(KeyManagerConfiguration keyManagerConfiguration,
+                                     String resourceServerIdentifier) throws APIManagementException {
+        return new Auth0Settings(String.valueOf(keyManagerConfiguration.getName()), resourceServerIdentifier,
+                Boolean.parseBoolean(String.valueOf(
+                        keyManagerConfiguration.getParameter(Auth0Constants.ENABLE_CLUSTER_TOKEN_CACHE))),
+                !"false".equals(String.valueOf(
+                        keyManagerConfiguration.getParameter(Auth0Constants.ENABLE_EVENT_JOURNAL))),
+                Auth0JournalOverflowPolicy.fromValue(
+                        keyManagerConfiguration.getParameter(Auth0Constants.EVENT_JOURNAL_OVERFLOW_POLICY)),
+                Boolean.parseBoolean(String.valueOf(
+                        keyManagerConfiguration.getParameter(Auth0Constants.ENABLE_CHANGE_FEED))),
+                Boolean.parseBoolean(String.valueOf(
+                        keyManagerConfiguration.getParameter(Auth0Constants.ENABLE_CLIENT_REGISTRY))),
+                !"false".equals(String.valueOf(keyManagerConfiguration.getParameter(Auth0Constants.ENABLE_WARM_UP))),
+                Boolean.parseBoolean(String.valueOf(
+                        keyManagerConfiguration.getParameter(Auth0Constants.GRANT_ALL_SCOPES))),
+                readTenants(keyManagerConfiguration));
+    }
+
+    /**
+     * Reads the tenants applications are placed on. The tenant given by the main connector configuration is the
+     * primary tenant, followed by the tenants given in {@code additional_tenants}.
+     */
+    private static List<Auth0TenantConfiguration> readTenants(KeyManagerConfiguration keyManagerConfiguration)
+            throws APIManagementException {
+        List<Auth0TenantConfiguration> tenantConfigurations = new ArrayList<>();
+        tenantConfigurations.add(new Auth0TenantConfiguration(Auth0Constants.PRIMARY_TENANT_NAME,
+                (String) keyManagerConfiguration.getParameter(APIConstants.KeyManager.TOKEN_ENDPOINT),
+                (String) keyManagerConfiguration.getParameter(Auth0Constants.AUDIENCE),
+                (String) keyManagerConfiguration.getParameter(Auth0Constants.CLIENT_ID),
+                (String) keyManagerConfiguration.getParameter(Auth0Constants.CLIENT_SECRET),
+                readAdditionalTokenEndpoints(keyManagerConfiguration)));
+        Object additionalTenants = keyManagerConfiguration.getParameter(Auth0Constants.ADDITIONAL_TENANTS);
+        if (!(additionalTenants instanceof String) || StringUtils.isBlank((String) additionalTenants)) {
+            return tenantConfigurations;
+        }
+        Auth0TenantConfiguration[] parsedTenants;
+        try {
+            parsedTenants = new Gson().fromJson((String) additionalTenants, Auth0TenantConfiguration[].class);
+        } catch (JsonParseException e) {
+            throw new APIManagementException("Invalid " + Auth0Constants.ADDITIONAL_TENANTS + " configuration", e);
+        }
+        Set<String> tenantNames = new HashSet<>();
+        tenantNames.add(Auth0Constants.PRIMARY_TENANT_NAME);
+        for (Auth0TenantConfiguration tenantConfiguration : parsedTenants) {
+            if (StringUtils.isBlank(tenantConfiguration.getName()) || StringUtils.isBlank(
+                    tenantConfiguration.getTokenEndpoint()) || StringUtils.isBlank(tenantConfiguration.getAudience())
+                    || StringUtils.isBlank(tenantConfiguration.getClientId())
+                    || StringUtils.isBlank(tenantConfiguration.getClientSecret())) {
+                throw new APIManagementException("Additional tenants require a name, token_endpoint, audience, "
+                        + "client_id and client_secret");
+            }
+            if (!tenantNames.add(tenantConfiguration.getName())) {
+                throw new APIManagementException("Duplicate Auth0 tenant name : " + tenantConfiguration.getName());
+            }
+            tenantConfigurations.add(tenantConfiguration);
+        }
+        return tenantConfigurations;
+    }
+
+    /**
+     * Reads the comma separated token endpoints of the primary tenant that are tried after its token endpoint.
+     */
+    private static List<String> readAdditionalTokenEndpoints(KeyManagerConfiguration keyManagerConfiguration) {
+        Object additionalTokenEndpoints = keyManagerConfiguration.getParameter(
+                Auth0Constants.ADDITIONAL_TOKEN_ENDPOINTS);
+        if (!(additionalTokenEndpoints instanceof String)) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(StringUtils.split((String) additionalTokenEndpoints, ", "));
+    }
+
+    /**
+     * Checks whether the token cache built for the given settings can be kept.
+     */
+    public boolean hasSameTokenCache(Auth0Settings other) {
+        return clusterTokenCacheEnabled == other.clusterTokenCacheEnabled;
+    }
+
+    /**
+     * Checks whether the event journal built for the given settings can be kept.
+     */
+    public boolean hasSameEventJournal(Auth0Settings other) {
+        return keyManagerName.equals(other.keyManagerName) && eventJournalEnabled == other.eventJournalEnabled
+                && eventJournalOverflowPolicy == other.eventJournalOverflowPolicy;
+    }
+
+    /**
+     * Checks whether the change feed of tenants built for the given settings can be kept.
+     */
+    public boolean hasSameChangeFeed(Auth0Settings other) {
+        return keyManagerName.equals(other.keyManagerName) && changeFeedEnabled == other.changeFeedEnabled;
+    }
+
+    /**
+     * Checks whether the client registry built for the given settings can be kept, which requires the same tenants
+     * to be behind the same names.
+     */
+    public boolean hasSameClientRegistry(Auth0Settings other) {
+        if (clientRegistryEnabled != other.clientRegistryEnabled || tenants.size() != other.tenants.size()) {
+            return false;
+        }
+        for (int i = 0; i < tenants.size(); i++) {
+            if (!StringUtils.equals(tenants.get(i).getName(), other.tenants.get(i).getName())
+                    || !StringUtils.equals(tenants.get(i).getAudience(), other.tenants.get(i).getAudience())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getKeyManagerName() {
+        return keyManagerName;
+    }
+
+    public String getResourceServerIdentifier() {
+        return resourceServerIdentifier;
+    }
+
+    public boolean isClusterTokenCacheEnabled() {
+        return clusterTokenCacheEnabled;
+    }
+
+    public boolean isEventJournalEnabled() {
+        return eventJournalEnabled;
+    }
+
+    public Auth0JournalOverflowPolicy getEventJournalOverflowPolicy() {
+        return eventJournalOverflowPolicy;
+    }
+
+    public boolean isChangeFeedEnabled() {
+        return changeFeedEnabled;
+    }
+
+    public boolean isClientRegistryEnabled() {
+        return clientRegistryEnabled;
+    }
+
+    public boolean isWarmUpEnabled() {
+        return warmUpEnabled;
+    }
+
+    public boolean isGrantAllScopesEnabled() {
+        return grantAllScopesEnabled;
+    }
+
+    /**
+     * Returns the tenants, the first one being the primary tenant.
+     */
+    public List<Auth0TenantConfiguration> getTenants() {
+        return tenants;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.failover;
+
+import org.wso2.auth0.client.Auth0Constants;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One of the equivalent token endpoints of a tenant, with its health. An endpoint failing a number of calls in a row
+ * is ejected for a while, for a longer time each time it is ejected again without a success in between.
+ */
+public class Auth0TokenEndpoint {
+    private final String url;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger consecutiveEjections = new AtomicInteger();
+    private volatile long ejectedUntil;
+
+    public Auth0TokenEndpoint(String url) {
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Checks whether the endpoint is not ejected at the given time.
+     */
+    public boolean isAvailable(long now) {
+        return now >= ejectedUntil;
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        consecutiveEjections.set(0);
+    }
+
+    /**
+     * Records a failed call, ejecting the endpoint if it is the last of too many failures in a row.
+     *
+     * @param now current time in milliseconds.
+     * @return {@code true} if the endpoint was ejected by this failure.
+     */
+    public boolean recordFailure(long now) {
+        if (consecutiveFailures.incrementAndGet() < Auth0Constants.TOKEN_ENDPOINT_EJECTION_FAILURES) {
+            return false;
+        }
+        consecutiveFailures.set(0);
+        int ejections = Math.min(consecutiveEjections.getAndIncrement(), 16);
+        long ejectionMillis = Math.min(Auth0Constants.TOKEN_ENDPOINT_EJECTION_MILLIS << ejections,
+                Auth0Constants.TOKEN_ENDPOINT_MAX_EJECTION_MILLIS);
+        ejectedUntil = now + ejectionMillis;
+        return true;
+    }
+}
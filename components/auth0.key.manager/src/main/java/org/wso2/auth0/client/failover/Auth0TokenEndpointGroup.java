@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.failover;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.metrics.Auth0LatencyHistogram;
+import org.wso2.auth0.client.metrics.Auth0Metrics;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The equivalent token endpoints of a tenant, such as a custom domain and the canonical tenant domain, in order of
+ * preference. A token request goes to the first available endpoint, and if no response arrives within the hedge delay
+ * a second request is sent to the next endpoint; whichever responds first is used and the other is cancelled. A
+ * request failing with a connection error or a server error fails over to the next endpoint right away.
+ * <p>
+ * The hedge delay follows a high percentile of the latencies of the recent token requests, so that only the slowest
+ * few percent of requests are hedged, and hedges are further limited to a fraction of all requests so that a slow
+ * tenant never sees its load doubled. Endpoints failing repeatedly are ejected for a while.
+ */
+public class Auth0TokenEndpointGroup {
+    private static final Log log = LogFactory.getLog(Auth0TokenEndpointGroup.class);
+    private static final long HEDGE_COST = 1000;
+    private final List<Auth0TokenEndpoint> endpoints;
+    private final OkHttpClient httpClient;
+    private final AtomicLong hedgeCredits = new AtomicLong();
+    private final LongAdder hedgedCount = new LongAdder();
+    private final LongAdder failedOverCount = new LongAdder();
+    private final Object windowLock = new Object();
+    private volatile Auth0LatencyHistogram window = new Auth0LatencyHistogram();
+    private volatile long windowStartedAt = System.currentTimeMillis();
+    private volatile long hedgeDelayMillis = Auth0Constants.TOKEN_HEDGE_MAX_DELAY_MILLIS;
+
+    /**
+     * Outcome of a request sent to one endpoint.
+     */
+    private static final class Attempt {
+        private final Call call;
+        private Response response;
+        private IOException failure;
+
+        Attempt(Call call) {
+            this.call = call;
+        }
+
+        boolean isSuccessful() {
+            return response != null && response.code() < 500;
+        }
+
+        void close() {
+            if (response != null) {
+                response.close();
+            }
+        }
+    }
+
+    /**
+     * Creates the endpoint group of a tenant.
+     *
+     * @param urls       token endpoints in order of preference.
+     * @param httpClient HTTP client of the token traffic lane of the tenant.
+     */
+    public Auth0TokenEndpointGroup(List<String> urls, OkHttpClient httpClient) {
+        List<Auth0TokenEndpoint> tokenEndpoints = new ArrayList<>();
+        for (String url : urls) {
+            tokenEndpoints.add(new Auth0TokenEndpoint(url));
+        }
+        this.endpoints = Collections.unmodifiableList(tokenEndpoints);
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Reports the hedge delay, the hedged and failed over requests and the available endpoints of the group, in place
+     * of the group it replaces.
+     */
+    public void registerMetrics(String tenantName, Auth0Metrics metrics) {
+        String prefix = "tokenEndpoints." + tenantName + ".";
+        metrics.registerGauge(prefix + "hedgeDelayMillis", () -> hedgeDelayMillis);
+        metrics.registerGauge(prefix + "hedged", hedgedCount::sum);
+        metrics.registerGauge(prefix + "failedOver", failedOverCount::sum);
+        metrics.registerGauge(prefix + "available", () -> getAvailableEndpoints(System.currentTimeMillis()).size());
+    }
+
+    /**
+     * Checks whether this group is made of the given endpoints in the same order, in which case it can be kept.
+     */
+    public boolean hasEndpoints(List<String> urls) {
+        if (urls.size() != endpoints.size()) {
+            return false;
+        }
+        for (int i = 0; i < urls.size(); i++) {
+            if (!endpoints.get(i).getUrl().equals(urls.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the URLs of the endpoints in order of preference.
+     */
+    public List<String> getUrls() {
+        List<String> urls = new ArrayList<>(endpoints.size());
+        for (Auth0TokenEndpoint endpoint : endpoints) {
+            urls.add(endpoint.getUrl());
+        }
+        return urls;
+    }
+
+    /**
+     * Sends a token request, hedging and failing over to the other endpoints as needed. The URL of the request is set
+     * by this method. The caller must close the returned response.
+     *
+     * @param requestBuilder token request without its URL.
+     * @return response of the first endpoint that answered without a server error, or else the last response.
+     * @throws IOException if no endpoint returned a response.
+     */
+    public Response execute(Request.Builder requestBuilder) throws IOException {
+        List<Auth0TokenEndpoint> candidates = getAvailableEndpoints(System.currentTimeMillis());
+        if (candidates.isEmpty()) {
+            // Every endpoint is ejected, so try them all rather than failing without a single attempt.
+            candidates = endpoints;
+        }
+        depositHedgeCredit();
+        if (candidates.size() == 1) {
+            return executeOn(candidates.get(0), requestBuilder);
+        }
+        return new HedgedRequest(candidates, requestBuilder).execute();
+    }
+
+    private Response executeOn(Auth0TokenEndpoint endpoint, Request.Builder requestBuilder) throws IOException {
+        long startedAt = System.nanoTime();
+        Response response;
+        try {
+            response = httpClient.newCall(requestBuilder.url(endpoint.getUrl()).build()).execute();
+        } catch (IOException e) {
+            recordFailure(endpoint);
+            throw e;
+        }
+        recordResponse(endpoint, response, startedAt);
+        return response;
+    }
+
+    /**
+     * A token request sent to one or more endpoints until one of them answers.
+     */
+    private final class HedgedRequest {
+        private final List<Auth0TokenEndpoint> candidates;
+        private final Request.Builder requestBuilder;
+        private final List<Attempt> attempts = new ArrayList<>();
+        private final BlockingQueue<Attempt> completed = new LinkedBlockingQueue<>();
+        private final AtomicBoolean decided = new AtomicBoolean();
+
+        HedgedRequest(List<Auth0TokenEndpoint> candidates, Request.Builder requestBuilder) {
+            this.candidates = candidates;
+            this.requestBuilder = requestBuilder;
+        }
+
+        Response execute() throws IOException {
+            Attempt winner = null;
+            Attempt lastFailed = null;
+            try {
+                send();
+                int inFlight = 1;
+                boolean hedgePending = true;
+                long hedgeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hedgeDelayMillis);
+                while (inFlight > 0) {
+                    Attempt attempt;
+                    if (hedgePending && attempts.size() < candidates.size()) {
+                        attempt = completed.poll(hedgeAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (attempt == null) {
+                            hedgePending = false;
+                            if (tryWithdrawHedgeCredit()) {
+                                hedgedCount.increment();
+                                send();
+                                inFlight++;
+                            }
+                            continue;
+                        }
+                    } else {
+                        attempt = completed.take();
+                    }
+                    inFlight--;
+                    if (attempt.isSuccessful()) {
+                        winner = attempt;
+                        return attempt.response;
+                    }
+                    if (lastFailed != null) {
+                        lastFailed.close();
+                    }
+                    lastFailed = attempt;
+                    if (inFlight == 0 && attempts.size() < candidates.size()) {
+                        failedOverCount.increment();
+                        send();
+                        inFlight++;
+                        hedgeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hedgeDelayMillis);
+                    }
+                }
+                if (lastFailed.response != null) {
+                    winner = lastFailed;
+                    return lastFailed.response;
+                }
+                throw lastFailed.failure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the token endpoint");
+            } finally {
+                decided.set(true);
+                for (Attempt attempt : attempts) {
+                    if (attempt != winner) {
+                        attempt.call.cancel();
+                    }
+                }
+                if (lastFailed != null && lastFailed != winner) {
+                    lastFailed.close();
+                }
+                closeCompleted();
+            }
+        }
+
+        /**
+         * Sends the request to the next candidate endpoint.
+         */
+        private void send() {
+            Auth0TokenEndpoint endpoint = candidates.get(attempts.size());
+            Attempt attempt = new Attempt(httpClient.newCall(requestBuilder.url(endpoint.getUrl()).build()));
+            attempts.add(attempt);
+            long startedAt = System.nanoTime();
+            attempt.call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    if (!call.isCanceled()) {
+                        recordFailure(endpoint);
+                    }
+                    attempt.failure = e;
+                    complete(attempt);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    recordResponse(endpoint, response, startedAt);
+                    attempt.response = response;
+                    complete(attempt);
+                }
+            });
+        }
+
+        private void complete(Attempt attempt) {
+            completed.offer(attempt);
+            // Responses arriving once the request is decided are closed by whichever side sees them last.
+            if (decided.get()) {
+                closeCompleted();
+            }
+        }
+
+        private void closeCompleted() {
+            Attempt attempt;
+            while ((attempt = completed.poll()) != null) {
+                attempt.close();
+            }
+        }
+    }
+
+    private List<Auth0TokenEndpoint> getAvailableEndpoints(long now) {
+        List<Auth0TokenEndpoint> availableEndpoints = new ArrayList<>(endpoints.size());
+        for (Auth0TokenEndpoint endpoint : endpoints) {
+            if (endpoint.isAvailable(now)) {
+                availableEndpoints.add(endpoint);
+            }
+        }
+        return availableEndpoints;
+    }
+
+    private void recordResponse(Auth0TokenEndpoint endpoint, Response response, long startedAt) {
+        if (response.code() >= 500) {
+            recordFailure(endpoint);
+            return;
+        }
+        endpoint.recordSuccess();
+        recordLatency(System.nanoTime() - startedAt);
+    }
+
+    private void recordFailure(Auth0TokenEndpoint endpoint) {
+        if (endpoints.size() > 1 && endpoint.recordFailure(System.currentTimeMillis())) {
+            log.warn("Token endpoint " + endpoint.getUrl() + " failed "
+                    + Auth0Constants.TOKEN_ENDPOINT_EJECTION_FAILURES + " requests in a row, ejecting it for a while");
+        }
+    }
+
+    /**
+     * Records the latency of a successful request, and once a window of requests is complete moves the hedge delay
+     * to the configured percentile of its latencies.
+     */
+    private void recordLatency(long nanos) {
+        window.record(nanos);
+        long now = System.currentTimeMillis();
+        if (now - windowStartedAt < Auth0Constants.TOKEN_HEDGE_WINDOW_MILLIS
+                || window.getCount() < Auth0Constants.TOKEN_HEDGE_MIN_SAMPLES) {
+            return;
+        }
+        synchronized (windowLock) {
+            if (now - windowStartedAt < Auth0Constants.TOKEN_HEDGE_WINDOW_MILLIS) {
+                return;
+            }
+            long percentileMillis = (long) Math.ceil(window.getPercentileMillis(
+                    Auth0Constants.TOKEN_HEDGE_DELAY_PERCENTILE));
+            hedgeDelayMillis = Math.max(Auth0Constants.TOKEN_HEDGE_MIN_DELAY_MILLIS,
+                    Math.min(percentileMillis, Auth0Constants.TOKEN_HEDGE_MAX_DELAY_MILLIS));
+            window = new Auth0LatencyHistogram();
+            windowStartedAt = now;
+        }
+    }
+
+    /**
+     * Earns every request a fraction of a hedge, up to a small burst of hedges.
+     */
+    private void depositHedgeCredit() {
+        long deposit = (long) (HEDGE_COST * Auth0Constants.TOKEN_HEDGE_BUDGET_RATIO);
+        long maxCredits = HEDGE_COST * Auth0Constants.TOKEN_HEDGE_MAX_BURST;
+        long credits;
+        do {
+            credits = hedgeCredits.get();
+            if (credits >= maxCredits) {
+                return;
+            }
+        } while (!hedgeCredits.compareAndSet(credits, Math.min(credits + deposit, maxCredits)));
+    }
+
+    private boolean tryWithdrawHedgeCredit() {
+        long credits;
+        do {
+            credits = hedgeCredits.get();
+            if (credits < HEDGE_COST) {
+                return false;
+            }
+        } while (!hedgeCredits.compareAndSet(credits, credits - HEDGE_COST));
+        return true;
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.grant;
+
+import feign.FeignException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.journal.Auth0Event;
+import org.wso2.auth0.client.journal.Auth0EventJournal;
+import org.wso2.auth0.client.journal.Auth0EventType;
+import org.wso2.auth0.client.model.Auth0ClientGrant;
+import org.wso2.auth0.client.model.Auth0ClientGrants;
+import org.wso2.auth0.client.scope.Auth0ScopeCatalog;
+import org.wso2.auth0.client.util.Auth0ThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Grants clients of a tenant to the WSO2 resource server, so that they can obtain tokens for it without the grant
+ * being added in the Auth0 dashboard. Grants carry no scopes, so the scopes of each client are still chosen by an
+ * administrator in the dashboard, unless granting all scopes is enabled. Clients are then granted every scope in the
+ * scope catalog of the tenant, and the grants created by this provisioner are extended with the scopes added to the
+ * catalog later, while grants written in the dashboard are never changed. Auth0 creates one grant per call, so grants
+ * requested together are coalesced by client, written after a short window and spaced out to stay within the
+ * management API rate limit. Clients known to be granted are remembered along with the version of the catalog they
+ * were granted, so that a client is granted again once scopes were added to the catalog.
+ */
+public class Auth0ClientGrantProvisioner {
+    private static final Log log = LogFactory.getLog(Auth0ClientGrantProvisioner.class);
+    private static final long NO_SCOPES = -1;
+    private final String tenantName;
+    private final Auth0ClientGrants clientGrants;
+    private final String resourceServerIdentifier;
+    private final Auth0ScopeCatalog scopeCatalog;
+    private final Auth0EventJournal journal;
+    // Version of the scope catalog each client known to be granted was granted, or NO_SCOPES.
+    private final Map<String, Long> grantedClients = new ConcurrentHashMap<>();
+    // Grants created by this provisioner, the only ones it extends.
+    private final Set<String> createdGrantIds = ConcurrentHashMap.newKeySet();
+    private final Map<String, CompletableFuture<Void>> pendingGrants = new LinkedHashMap<>();
+    private final Object pendingLock = new Object();
+    private final ScheduledExecutorService scheduler;
+    private boolean flushScheduled;
+    private volatile boolean enabled = true;
+    private volatile boolean grantAllScopes;
+
+    public Auth0ClientGrantProvisioner(String tenantName, Auth0ClientGrants clientGrants,
+                                       String resourceServerIdentifier, Auth0ScopeCatalog scopeCatalog,
+                                       Auth0EventJournal journal) {
+        this.tenantName = tenantName;
+        this.clientGrants = clientGrants;
+        this.resourceServerIdentifier = resourceServerIdentifier;
+        this.scopeCatalog = scopeCatalog;
+        this.journal = journal;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new Auth0ThreadFactory("auth0-client-grants"));
+    }
+
+    /**
+     * Queues a grant of the client to the resource server, unless the client is known to be granted the current
+     * scopes of the catalog already.
+     *
+     * @param clientId client to grant.
+     * @return a future completed once the grant exists.
+     */
+    public CompletableFuture<Void> grant(String clientId) {
+        if (!enabled || isGranted(clientId)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        synchronized (pendingLock) {
+            CompletableFuture<Void> pendingGrant = pendingGrants.get(clientId);
+            if (pendingGrant == null) {
+                pendingGrant = new CompletableFuture<>();
+                pendingGrants.put(clientId, pendingGrant);
+                scheduleFlush(Auth0Constants.CLIENT_GRANT_BATCH_WINDOW_MILLIS);
+            }
+            return pendingGrant;
+        }
+    }
+
+    /**
+     * Waits for a queued grant of the client to be written, so that a token requested right after the client was
+     * created is not refused. Returns right away if no grant of the client is queued.
+     *
+     * @param clientId client whose grant is awaited.
+     * @return {@code true} if the client is known to be granted the current scopes of the catalog.
+     */
+    public boolean awaitGrant(String clientId) {
+        CompletableFuture<Void> pendingGrant;
+        synchronized (pendingLock) {
+            pendingGrant = pendingGrants.get(clientId);
+        }
+        if (pendingGrant != null) {
+            await(clientId, pendingGrant);
+        }
+        return isGranted(clientId);
+    }
+
+    /**
+     * Grants the client and waits for the grant to be written.
+     *
+     * @param clientId client to grant.
+     * @return {@code true} if the client is known to be granted the current scopes of the catalog.
+     */
+    public boolean grantAndWait(String clientId) {
+        await(clientId, grant(clientId));
+        return isGranted(clientId);
+    }
+
+    public boolean isGranted(String clientId) {
+        Long grantedVersion = grantedClients.get(clientId);
+        if (grantedVersion == null) {
+            return false;
+        }
+        return !grantAllScopes || grantedVersion == scopeCatalog.getSnapshot().getVersion();
+    }
+
+    /**
+     * Sets whether clients are granted every scope of the scope catalog, which lets any application obtain tokens
+     * with the scopes of every API. Disabled by default, in which case grants carry no scopes.
+     *
+     * @param grantAllScopes whether to grant every scope of the catalog.
+     */
+    public void setGrantAllScopes(boolean grantAllScopes) {
+        this.grantAllScopes = grantAllScopes;
+    }
+
+    /**
+     * Forgets a client, for example after it was deleted.
+     *
+     * @param clientId client to forget.
+     */
+    public void forget(String clientId) {
+        grantedClients.remove(clientId);
+    }
+
+    /**
+     * Stops the background writer. Grants still queued are left to be created on the first token request of the
+     * client.
+     */
+    public void close() {
+        scheduler.shutdownNow();
+        synchronized (pendingLock) {
+            for (CompletableFuture<Void> pendingGrant : pendingGrants.values()) {
+                pendingGrant.complete(null);
+            }
+            pendingGrants.clear();
+        }
+    }
+
+    private void await(String clientId, CompletableFuture<Void> pendingGrant) {
+        try {
+            pendingGrant.get(Auth0Constants.CLIENT_GRANT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Could not grant client " + clientId + " to resource server " + resourceServerIdentifier
+                    + " in tenant : " + tenantName, e);
+        }
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush() {
+        if (grantAllScopes && !scopeCatalog.isLoaded()) {
+            // Granting before the catalog is loaded would create grants without scopes, wait for the first refresh.
+            synchronized (pendingLock) {
+                flushScheduled = false;
+                scheduleFlush(Auth0Constants.CLIENT_GRANT_RATE_LIMIT_DELAY_MILLIS);
+            }
+            return;
+        }
+        List<Map.Entry<String, CompletableFuture<Void>>> batch = new ArrayList<>();
+        synchronized (pendingLock) {
+            flushScheduled = false;
+            Iterator<Map.Entry<String, CompletableFuture<Void>>> iterator = pendingGrants.entrySet().iterator();
+            while (iterator.hasNext() && batch.size() < Auth0Constants.CLIENT_GRANT_BATCH_SIZE) {
+                batch.add(iterator.next());
+            }
+        }
+        long retryDelayMillis = Auth0Constants.CLIENT_GRANT_BATCH_WINDOW_MILLIS;
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0 && !pause(Auth0Constants.CLIENT_GRANT_MIN_INTERVAL_MILLIS)) {
+                return;
+            }
+            String clientId = batch.get(i).getKey();
+            CompletableFuture<Void> pendingGrant = batch.get(i).getValue();
+            Throwable failure;
+            try {
+                createGrant(clientId);
+                failure = null;
+            } catch (FeignException e) {
+                if (e.status() == 429) {
+                    // Leave this and the remaining grants of the batch queued and retry them later.
+                    retryDelayMillis = Auth0Constants.CLIENT_GRANT_RATE_LIMIT_DELAY_MILLIS;
+                    break;
+                }
+                if (e.status() == 403) {
+                    log.warn("The management API client of tenant " + tenantName + " is not allowed to grant "
+                            + "clients to the WSO2 resource server, add the create:client_grants scope to it, and the "
+                            + "read:client_grants and update:client_grants scopes when granting all scopes. Clients "
+                            + "need to be granted in the Auth0 dashboard until then.");
+                    enabled = false;
+                }
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            synchronized (pendingLock) {
+                pendingGrants.remove(clientId, pendingGrant);
+            }
+            if (failure == null) {
+                pendingGrant.complete(null);
+            } else {
+                pendingGrant.completeExceptionally(failure);
+            }
+        }
+        synchronized (pendingLock) {
+            if (!enabled) {
+                for (CompletableFuture<Void> pendingGrant : pendingGrants.values()) {
+                    pendingGrant.complete(null);
+                }
+                pendingGrants.clear();
+            } else if (!pendingGrants.isEmpty()) {
+                scheduleFlush(retryDelayMillis);
+            }
+        }
+    }
+
+    private void createGrant(String clientId) {
+        boolean allScopes = grantAllScopes;
+        Auth0ScopeCatalog.Snapshot snapshot = scopeCatalog.getSnapshot();
+        List<String> scopes = allScopes ? new ArrayList<>(snapshot.getScopes().keySet()) : new ArrayList<String>();
+        try {
+            Auth0ClientGrant clientGrant = clientGrants.createClientGrant(new Auth0ClientGrant(clientId,
+                    resourceServerIdentifier, scopes));
+            String grantId = clientGrant != null ? clientGrant.getId() : null;
+            if (allScopes && grantId != null) {
+                if (createdGrantIds.size() >= Auth0Constants.CLIENT_GRANT_CACHE_MAX_SIZE) {
+                    createdGrantIds.clear();
+                }
+                createdGrantIds.add(grantId);
+            }
+            journal.record(Auth0Event.of(Auth0EventType.CLIENT_GRANT_CREATED, tenantName, clientId, grantId));
+        } catch (FeignException e) {
+            if (e.status() != 409) {
+                throw e;
+            }
+            if (allScopes) {
+                extendGrant(clientId, scopes);
+            }
+        }
+        if (grantedClients.size() >= Auth0Constants.CLIENT_GRANT_CACHE_MAX_SIZE) {
+            grantedClients.clear();
+        }
+        grantedClients.put(clientId, allScopes ? snapshot.getVersion() : NO_SCOPES);
+        if (log.isDebugEnabled()) {
+            log.debug("Granted client " + clientId + " to resource server " + resourceServerIdentifier
+                    + " in tenant : " + tenantName + " with scopes : " + scopes);
+        }
+    }
+
+    /**
+     * Adds the scopes the existing grant of the client lacks to it, if the grant was created by this provisioner.
+     * Grants written in the Auth0 dashboard, by another node or before a restart are left as they are.
+     */
+    private void extendGrant(String clientId, List<String> scopes) {
+        List<Auth0ClientGrant> existingGrants = clientGrants.getClientGrants(clientId, resourceServerIdentifier);
+        if (existingGrants == null || existingGrants.isEmpty()) {
+            return;
+        }
+        Auth0ClientGrant existingGrant = existingGrants.get(0);
+        if (!createdGrantIds.contains(existingGrant.getId())) {
+            if (log.isDebugEnabled()) {
+                log.debug("Left grant " + existingGrant.getId() + " of client " + clientId + " in tenant : "
+                        + tenantName + " unchanged, as it was not created by the key manager");
+            }
+            return;
+        }
+        Set<String> grantedScopes = new LinkedHashSet<>();
+        if (existingGrant.getScope() != null) {
+            grantedScopes.addAll(existingGrant.getScope());
+        }
+        if (!grantedScopes.addAll(scopes)) {
+            return;
+        }
+        Auth0ClientGrant scopePatch = new Auth0ClientGrant();
+        scopePatch.setScope(new ArrayList<>(grantedScopes));
+        clientGrants.updateClientGrant(existingGrant.getId(), scopePatch);
+        journal.record(Auth0Event.of(Auth0EventType.CLIENT_GRANT_UPDATED, tenantName, clientId,
+                existingGrant.getId()));
+    }
+
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
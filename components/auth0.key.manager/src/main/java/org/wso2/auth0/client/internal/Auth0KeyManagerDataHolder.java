@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.internal;
+
+import com.hazelcast.core.HazelcastInstance;
+
+/**
+ * Holds the OSGi services consumed by the Auth0 key manager.
+ */
+public class Auth0KeyManagerDataHolder {
+    private static final Auth0KeyManagerDataHolder instance = new Auth0KeyManagerDataHolder();
+    private volatile HazelcastInstance hazelcastInstance;
+
+    private Auth0KeyManagerDataHolder() {
+    }
+
+    public static Auth0KeyManagerDataHolder getInstance() {
+        return instance;
+    }
+
+    public HazelcastInstance getHazelcastInstance() {
+        return hazelcastInstance;
+    }
+
+    public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+}
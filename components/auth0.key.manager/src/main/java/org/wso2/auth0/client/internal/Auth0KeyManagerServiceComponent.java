@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.internal;
+
+import com.hazelcast.core.HazelcastInstance;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.wso2.auth0.client.token.Auth0RevocationFilter;
+
+@Component(
+        name = "auth0.key.manager.component",
+        immediate = true
+)
+public class Auth0KeyManagerServiceComponent {
+    private static final Log log = LogFactory.getLog(Auth0KeyManagerServiceComponent.class);
+
+    @Reference(
+            name = "hazelcast.instance.service",
+            service = HazelcastInstance.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetHazelcastInstance")
+    protected void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        if (log.isDebugEnabled()) {
+            log.debug("Hazelcast instance is available for the Auth0 key manager");
+        }
+        Auth0KeyManagerDataHolder.getInstance().setHazelcastInstance(hazelcastInstance);
+        Auth0RevocationFilter.getInstance().attachCluster(hazelcastInstance);
+    }
+
+    protected void unsetHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        Auth0RevocationFilter.getInstance().detachCluster();
+        Auth0KeyManagerDataHolder.getInstance().setHazelcastInstance(null);
+    }
+}
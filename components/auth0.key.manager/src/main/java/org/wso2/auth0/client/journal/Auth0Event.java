@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.journal;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Immutable event of the event journal, written as one JSON line. Events never carry tokens or secrets.
+ */
+public final class Auth0Event {
+    @SerializedName("timestamp")
+    private final long timestamp;
+    @SerializedName("type")
+    private final Auth0EventType type;
+    @SerializedName("tenant")
+    private final String tenant;
+    @SerializedName("client_id")
+    private final String clientId;
+    @SerializedName("detail")
+    private final String detail;
+    @SerializedName("status")
+    private final Integer status;
+    @SerializedName("elapsed_millis")
+    private final Long elapsedMillis;
+
+    private Auth0Event(Auth0EventType type, String tenant, String clientId, String detail, Integer status,
+                       Long elapsedMillis) {
+        this.timestamp = System.currentTimeMillis();
+        this.type = type;
+        this.tenant = tenant;
+        this.clientId = clientId;
+        this.detail = detail;
+        this.status = status;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Creates an event about an application or its tokens.
+     *
+     * @param type     event type.
+     * @param tenant   tenant the application is placed on.
+     * @param clientId client id of the application.
+     * @param detail   additional detail, such as the granted scopes, or {@code null}.
+     * @return an {@code Auth0Event}
+     */
+    public static Auth0Event of(Auth0EventType type, String tenant, String clientId, String detail) {
+        return new Auth0Event(type, tenant, clientId, detail, null, null);
+    }
+
+    /**
+     * Creates an event about a call to the management API.
+     *
+     * @param tenant        tenant the call was made to.
+     * @param method        Feign method called.
+     * @param status        HTTP status, or {@code -1} if the call failed before a response was received.
+     * @param elapsedMillis time taken by the call.
+     * @return an {@code Auth0Event}
+     */
+    public static Auth0Event managementCall(String tenant, String method, int status, long elapsedMillis) {
+        return new Auth0Event(Auth0EventType.MANAGEMENT_CALL, tenant, null, method, status, elapsedMillis);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Auth0EventType getType() {
+        return type;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+}
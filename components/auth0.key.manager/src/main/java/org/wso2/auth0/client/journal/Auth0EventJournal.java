@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.journal;
+
+import com.google.gson.Gson;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.util.Auth0ThreadFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured journal of key manager operations. Events are put in a lock-free ring buffer by the request threads and
+ * written to a rolling local file in batches by a background writer, so recording an event never waits for I/O. When
+ * the buffer is full the configured {@code Auth0JournalOverflowPolicy} decides which events are dropped.
+ */
+public class Auth0EventJournal {
+    private static final Log log = LogFactory.getLog(Auth0EventJournal.class);
+    private final Auth0EventRingBuffer buffer;
+    private final Auth0JournalOverflowPolicy overflowPolicy;
+    private final Auth0RollingFileWriter fileWriter;
+    private final Gson gson = new Gson();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final Thread writerThread;
+    private volatile boolean running;
+
+    /**
+     * Creates a journal writing to the given file. The journal records nothing until it is started.
+     *
+     * @param file           journal file.
+     * @param capacity       number of events the buffer holds.
+     * @param overflowPolicy what to do when the buffer is full.
+     */
+    public Auth0EventJournal(File file, int capacity, Auth0JournalOverflowPolicy overflowPolicy) {
+        this.buffer = new Auth0EventRingBuffer(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.fileWriter = new Auth0RollingFileWriter(file, Auth0Constants.EVENT_JOURNAL_MAX_FILE_BYTES,
+                Auth0Constants.EVENT_JOURNAL_MAX_BACKUPS);
+        this.writerThread = new Auth0ThreadFactory("auth0-event-journal").newThread(this::drain);
+    }
+
+    public void start() {
+        running = true;
+        writerThread.start();
+    }
+
+    /**
+     * Records an event without blocking.
+     *
+     * @param event event to record.
+     */
+    public void record(Auth0Event event) {
+        if (!running) {
+            return;
+        }
+        if (buffer.offer(event)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                do {
+                    if (buffer.poll() != null) {
+                        dropped.increment();
+                    }
+                } while (!buffer.offer(event));
+                return;
+            case WAIT:
+                long deadline = System.nanoTime()
+                        + TimeUnit.MICROSECONDS.toNanos(Auth0Constants.EVENT_JOURNAL_OFFER_WAIT_MICROS);
+                while (System.nanoTime() < deadline) {
+                    Thread.yield();
+                    if (buffer.offer(event)) {
+                        return;
+                    }
+                }
+                dropped.increment();
+                return;
+            default:
+                dropped.increment();
+        }
+    }
+
+    /**
+     * Stops the journal, writing the events still in the buffer.
+     */
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(Auth0Constants.EVENT_JOURNAL_CLOSE_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    private void drain() {
+        List<Auth0Event> batch = new ArrayList<>(Auth0Constants.EVENT_JOURNAL_BATCH_SIZE);
+        while (true) {
+            boolean stopping = !running;
+            if (buffer.drainTo(batch, Auth0Constants.EVENT_JOURNAL_BATCH_SIZE) == 0) {
+                if (stopping) {
+                    break;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Auth0Constants.EVENT_JOURNAL_IDLE_PARK_MILLIS));
+                continue;
+            }
+            write(batch);
+            batch.clear();
+        }
+        try {
+            fileWriter.close();
+        } catch (IOException e) {
+            log.warn("Error while closing the event journal", e);
+        }
+    }
+
+    private void write(List<Auth0Event> batch) {
+        try {
+            for (Auth0Event event : batch) {
+                fileWriter.write(gson.toJson(event));
+            }
+            fileWriter.flush();
+            written.add(batch.size());
+        } catch (IOException e) {
+            dropped.add(batch.size());
+            log.error("Error while writing " + batch.size() + " events to the event journal", e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.journal;
+
+import feign.Logger;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+
+/**
+ * Feign logger recording every management API call as a structured event in the event journal instead of formatting
+ * and writing log lines on the request thread. Request and response bodies are never recorded.
+ */
+public class Auth0JournalFeignLogger extends Logger {
+    private final Auth0EventJournal journal;
+    private final String tenant;
+
+    public Auth0JournalFeignLogger(Auth0EventJournal journal, String tenant) {
+        this.journal = journal;
+        this.tenant = tenant;
+    }
+
+    @Override
+    protected void log(String configKey, String format, Object... args) {
+        // Only the structured events below are recorded.
+    }
+
+    @Override
+    protected void logRequest(String configKey, Level logLevel, Request request) {
+        // The call is recorded once its response is received.
+    }
+
+    @Override
+    protected Response logAndRebufferResponse(String configKey, Level logLevel, Response response, long elapsedTime)
+            throws IOException {
+        journal.record(Auth0Event.managementCall(tenant, configKey, response.status(), elapsedTime));
+        return response;
+    }
+
+    @Override
+    protected IOException logIOException(String configKey, Level logLevel, IOException ioe, long elapsedTime) {
+        journal.record(Auth0Event.managementCall(tenant, configKey, -1, elapsedTime));
+        return ioe;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.journal;
+
+/**
+ * What recording an event does when the event journal buffer is full.
+ */
+public enum Auth0JournalOverflowPolicy {
+    /**
+     * Drops the event being recorded.
+     */
+    DROP_NEWEST,
+    /**
+     * Drops the oldest buffered events to make room for the event being recorded.
+     */
+    DROP_OLDEST,
+    /**
+     * Spins for a short, bounded time for the writer to make room, then drops the event being recorded.
+     */
+    WAIT;
+
+    /**
+     * Parses a policy from its configuration value, falling back to {@link #DROP_NEWEST}.
+     *
+     * @param value configuration value, such as {@code drop_oldest}.
+     * @return an {@code Auth0JournalOverflowPolicy}
+     */
+    public static Auth0JournalOverflowPolicy fromValue(Object value) {
+        if (value != null) {
+            for (Auth0JournalOverflowPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(value.toString())) {
+                    return policy;
+                }
+            }
+        }
+        return DROP_NEWEST;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.journal;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Appends lines to a file, rolling it over to {@code <file>.1}, {@code <file>.2} and so on once it grows beyond a
+ * maximum size. Only the given number of rolled over files are kept. Not thread safe.
+ */
+class Auth0RollingFileWriter implements Closeable {
+    private final File file;
+    private final long maxFileBytes;
+    private final int maxBackups;
+    private Writer writer;
+    private long fileBytes;
+
+    Auth0RollingFileWriter(File file, long maxFileBytes, int maxBackups) {
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.maxBackups = maxBackups;
+    }
+
+    void write(String line) throws IOException {
+        if (writer == null) {
+            open();
+        }
+        writer.write(line);
+        writer.write('\n');
+        fileBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        if (fileBytes >= maxFileBytes) {
+            roll();
+        }
+    }
+
+    void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void open() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        fileBytes = file.length();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true),
+                StandardCharsets.UTF_8));
+    }
+
+    private void roll() throws IOException {
+        close();
+        File oldest = backup(maxBackups);
+        if (oldest.exists() && !oldest.delete()) {
+            throw new IOException("Could not delete " + oldest);
+        }
+        for (int i = maxBackups - 1; i >= 1; i--) {
+            File backup = backup(i);
+            if (backup.exists() && !backup.renameTo(backup(i + 1))) {
+                throw new IOException("Could not roll over " + backup);
+            }
+        }
+        if (!file.renameTo(backup(1))) {
+            throw new IOException("Could not roll over " + file);
+        }
+        open();
+    }
+
+    private File backup(int index) {
+        return new File(file.getPath() + "." + index);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.metrics;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Records the time spent by a call in each connection phase: DNS resolution, TCP connect, TLS handshake, waiting for
+ * a pooled connection and waiting for the server to respond. Only one in every {@code sampleRate} calls is
+ * instrumented, the others get the no-op listener of OkHttp.
+ */
+public class Auth0HttpEventListener extends EventListener {
+    private final long callStart;
+    private long dnsStart;
+    private long dnsTime;
+    private long connectStart;
+    private long connectTime;
+    private long secureConnectStart;
+    private long requestEnd;
+    private boolean connected;
+    private final Auth0HttpHostMetrics hostMetrics;
+
+    Auth0HttpEventListener(Auth0HttpHostMetrics hostMetrics) {
+        this.hostMetrics = hostMetrics;
+        this.callStart = System.nanoTime();
+    }
+
+    /**
+     * Creates a listener factory which instruments one in every {@code sampleRate} calls.
+     *
+     * @param metrics    metrics the timings are recorded to.
+     * @param sampleRate sampling rate.
+     * @return an {@code EventListener.Factory}
+     */
+    public static EventListener.Factory factory(Auth0Metrics metrics, int sampleRate) {
+        return call -> ThreadLocalRandom.current().nextInt(sampleRate) == 0
+                ? new Auth0HttpEventListener(metrics.getHostMetrics(call.request().url().host()))
+                : EventListener.NONE;
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        long elapsed = System.nanoTime() - dnsStart;
+        dnsTime += elapsed;
+        hostMetrics.dns.record(elapsed);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        hostMetrics.tlsHandshake.record(System.nanoTime() - secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        long elapsed = System.nanoTime() - connectStart;
+        connectTime += elapsed;
+        connected = true;
+        hostMetrics.connect.record(elapsed);
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol,
+                              IOException ioe) {
+        connectTime += System.nanoTime() - connectStart;
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        if (connected) {
+            hostMetrics.newConnections.increment();
+        } else {
+            hostMetrics.reusedConnections.increment();
+        }
+        // Time to obtain a connection which was not spent resolving or connecting is spent waiting on the pool.
+        hostMetrics.poolWait.record(Math.max(0, System.nanoTime() - callStart - dnsTime - connectTime));
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        requestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        requestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        if (requestEnd > 0) {
+            hostMetrics.server.record(System.nanoTime() - requestEnd);
+        }
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        hostMetrics.total.record(System.nanoTime() - callStart);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        hostMetrics.failures.increment();
+        hostMetrics.total.record(System.nanoTime() - callStart);
+    }
+}
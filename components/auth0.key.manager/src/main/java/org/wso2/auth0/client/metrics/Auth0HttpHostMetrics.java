@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection phase latencies and connection reuse counts of the calls sampled for one host.
+ */
+public class Auth0HttpHostMetrics {
+    final Auth0LatencyHistogram dns = new Auth0LatencyHistogram();
+    final Auth0LatencyHistogram connect = new Auth0LatencyHistogram();
+    final Auth0LatencyHistogram tlsHandshake = new Auth0LatencyHistogram();
+    final Auth0LatencyHistogram poolWait = new Auth0LatencyHistogram();
+    final Auth0LatencyHistogram server = new Auth0LatencyHistogram();
+    final Auth0LatencyHistogram total = new Auth0LatencyHistogram();
+    final LongAdder reusedConnections = new LongAdder();
+    final LongAdder newConnections = new LongAdder();
+    final LongAdder failures = new LongAdder();
+
+    /**
+     * Adds the metrics of this host to the given map, with keys prefixed by the given prefix.
+     *
+     * @param prefix  key prefix.
+     * @param metrics map to add the metrics to.
+     */
+    void export(String prefix, Map<String, Double> metrics) {
+        export(prefix + "dns", dns, metrics);
+        export(prefix + "connect", connect, metrics);
+        export(prefix + "tls", tlsHandshake, metrics);
+        export(prefix + "poolWait", poolWait, metrics);
+        export(prefix + "server", server, metrics);
+        export(prefix + "total", total, metrics);
+        long reused = reusedConnections.sum();
+        long created = newConnections.sum();
+        metrics.put(prefix + "connections.reused", (double) reused);
+        metrics.put(prefix + "connections.new", (double) created);
+        metrics.put(prefix + "connections.reuseRatio", reused + created == 0 ? 0 : reused / (double) (reused + created));
+        metrics.put(prefix + "failures", (double) failures.sum());
+    }
+
+    private static void export(String prefix, Auth0LatencyHistogram histogram, Map<String, Double> metrics) {
+        metrics.put(prefix + ".count", (double) histogram.getCount());
+        metrics.put(prefix + ".mean", histogram.getMeanMillis());
+        metrics.put(prefix + ".p50", histogram.getPercentileMillis(50));
+        metrics.put(prefix + ".p99", histogram.getPercentileMillis(99));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.metrics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics of a key manager instance: gauges registered by its components and the connection phase latencies of its
+ * HTTP clients per host. The metrics are published as an MXBean named after the key manager.
+ */
+public class Auth0Metrics implements Auth0MetricsMXBean {
+    private static final Log log = LogFactory.getLog(Auth0Metrics.class);
+    private static final String OBJECT_NAME = "org.wso2.auth0.client:type=KeyManagerMetrics,name=";
+    private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Auth0HttpHostMetrics> hostMetrics = new ConcurrentHashMap<>();
+    private ObjectName objectName;
+
+    /**
+     * Registers a gauge. A gauge registered under an existing name replaces it.
+     *
+     * @param name  metric name.
+     * @param gauge supplier of the current value.
+     */
+    public void registerGauge(String name, Supplier<? extends Number> gauge) {
+        gauges.put(name, gauge);
+    }
+
+    Auth0HttpHostMetrics getHostMetrics(String host) {
+        return hostMetrics.computeIfAbsent(host, key -> new Auth0HttpHostMetrics());
+    }
+
+    @Override
+    public Map<String, Double> getMetrics() {
+        Map<String, Double> metrics = new TreeMap<>();
+        for (Map.Entry<String, Supplier<? extends Number>> gauge : gauges.entrySet()) {
+            Number value = gauge.getValue().get();
+            if (value != null) {
+                metrics.put(gauge.getKey(), value.doubleValue());
+            }
+        }
+        for (Map.Entry<String, Auth0HttpHostMetrics> host : hostMetrics.entrySet()) {
+            host.getValue().export("http." + host.getKey() + ".", metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Publishes the metrics over JMX, under the name of the key manager. When the key manager was renamed, the metrics
+     * published under the previous name are unregistered first, so that they do not keep this instance reachable.
+     *
+     * @param keyManagerName name of the key manager the metrics belong to.
+     */
+    public synchronized void register(String keyManagerName) {
+        unregister();
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME + ObjectName.quote(String.valueOf(keyManagerName)));
+            if (mBeanServer.isRegistered(name)) {
+                mBeanServer.unregisterMBean(name);
+            }
+            mBeanServer.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            log.warn("Could not register metrics of key manager : " + keyManagerName, e);
+        }
+    }
+
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            log.debug("Could not unregister key manager metrics", e);
+        }
+        objectName = null;
+    }
+}
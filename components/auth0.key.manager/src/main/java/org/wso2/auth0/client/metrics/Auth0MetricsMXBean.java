@@ -16,23 +16,16 @@
  * under the License.
  */
 
-package org.wso2.Auth0.client;
+package org.wso2.auth0.client.metrics;
 
-import static org.junit.Assert.assertTrue;
-
-import org.junit.Test;
+import java.util.Map;
 
 /**
- * Unit test for simple App.
+ * JMX view of the Auth0 key manager metrics.
  */
-public class AppTest 
-{
+public interface Auth0MetricsMXBean {
     /**
-     * Rigorous Test :-)
+     * Returns the current value of every metric, keyed by metric name. Latencies are in milliseconds.
      */
-    @Test
-    public void shouldAnswerWithTrue()
-    {
-        assertTrue( true );
-    }
+    Map<String, Double> getMetrics();
 }
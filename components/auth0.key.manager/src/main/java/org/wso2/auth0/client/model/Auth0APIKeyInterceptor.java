@@ -21,60 +21,136 @@ package org.wso2.auth0.client.model;
 import com.google.gson.Gson;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
+import okhttp3.FormBody;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.apache.commons.httpclient.HttpStatus;
-import org.apache.commons.io.IOUtils;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.message.BasicNameValuePair;
 import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.cache.Auth0TokenCache;
+import org.wso2.auth0.client.failover.Auth0TokenEndpointGroup;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
 
+/**
+ * Adds a management API token to the requests of the Feign clients. The credentials used to obtain the token can be
+ * replaced while requests are in flight, so that rotating them does not require new clients.
+ */
 public class Auth0APIKeyInterceptor implements RequestInterceptor {
-    private Auth0AccessTokenResponse accessTokenInfo;
+    private final String audience;
+    private final Auth0TokenCache tokenCache;
+    private volatile Credentials credentials;
 
+    /**
+     * Immutable set of credentials of the service client.
+     */
+    private static final class Credentials {
+        private final Auth0TokenEndpointGroup tokenEndpoints;
+        private final String consumerKey;
+        private final String consumerSecret;
+        private final String tokenCacheKey;
 
-    public Auth0APIKeyInterceptor(String tokenEndpoint, String consumerKey, String consumerSecret, String audience)
-            throws IOException {
-        HttpClient httpClient = HttpClientBuilder.create().useSystemProperties().build();
-        HttpPost httpPost = new HttpPost(tokenEndpoint);
-        List<NameValuePair> parameters = new ArrayList<NameValuePair>();
-        parameters.add(new BasicNameValuePair(Auth0Constants.GRANT_TYPE,
-                Auth0Constants.GRANT_TYPE_CLIENT_CREDENTIALS));
-        parameters.add(new BasicNameValuePair(Auth0Constants.AUDIENCE, audience));
-        byte[] credentials = org.apache.commons.codec.binary.Base64
-                .encodeBase64((consumerKey + ":" + consumerSecret).getBytes(StandardCharsets.UTF_8));
-        httpPost.setHeader(APIConstants.AUTHORIZATION_HEADER_DEFAULT, APIConstants.AUTHORIZATION_BASIC
-                + new String(credentials, StandardCharsets.UTF_8));
-        httpPost.setEntity(new UrlEncodedFormEntity(parameters));
-        HttpResponse response = httpClient.execute(httpPost);
-        int statusCode = response.getStatusLine().getStatusCode();
-        HttpEntity entity = response.getEntity();
-        if (entity == null) {
-            new APIManagementException(String.format(Auth0Constants.STRING_FORMAT,
-                    Auth0Constants.ERROR_COULD_NOT_READ_HTTP_ENTITY, response));
-        }
-        if (HttpStatus.SC_OK == statusCode) {
-            try (InputStream inputStream = entity.getContent()) {
-                String content = IOUtils.toString(inputStream);
-                accessTokenInfo = new Gson().fromJson(content, Auth0AccessTokenResponse.class);
-            }
+        Credentials(Auth0TokenEndpointGroup tokenEndpoints, String consumerKey, String consumerSecret,
+                    String audience) {
+            this.tokenEndpoints = tokenEndpoints;
+            this.consumerKey = consumerKey;
+            this.consumerSecret = consumerSecret;
+            this.tokenCacheKey = Auth0TokenCache.managementTokenKey(consumerKey, consumerSecret, audience);
         }
     }
 
+    public Auth0APIKeyInterceptor(Auth0TokenEndpointGroup tokenEndpoints, String consumerKey, String consumerSecret,
+                                  String audience, Auth0TokenCache tokenCache) {
+        this.audience = audience;
+        this.tokenCache = tokenCache;
+        this.credentials = new Credentials(tokenEndpoints, consumerKey, consumerSecret, audience);
+    }
+
     @Override
     public void apply(RequestTemplate requestTemplate) {
+        Auth0AccessTokenResponse accessTokenInfo;
+        try {
+            accessTokenInfo = getAccessToken(credentials);
+        } catch (APIManagementException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
         requestTemplate.header("Authorization", "Bearer ".concat(accessTokenInfo.getAccessToken()));
     }
+
+    /**
+     * Obtains a token with the current credentials, to find out whether they are valid.
+     *
+     * @throws APIManagementException if no token could be obtained.
+     */
+    public void verify() throws APIManagementException {
+        getAccessToken(credentials);
+    }
+
+    /**
+     * Obtains a token with new credentials without using them yet, to find out whether they are valid before they
+     * replace the current credentials.
+     *
+     * @param tokenEndpoints token endpoints of the tenant.
+     * @param consumerKey    client id of the service client.
+     * @param consumerSecret client secret of the service client.
+     * @throws APIManagementException if no token could be obtained with the new credentials.
+     */
+    public void verify(Auth0TokenEndpointGroup tokenEndpoints, String consumerKey, String consumerSecret)
+            throws APIManagementException {
+        getAccessToken(new Credentials(tokenEndpoints, consumerKey, consumerSecret, audience));
+    }
+
+    /**
+     * Replaces the credentials used to obtain tokens, which should have been verified first so that requests do not
+     * switch to credentials which are not valid.
+     *
+     * @param tokenEndpoints token endpoints of the tenant.
+     * @param consumerKey    client id of the service client.
+     * @param consumerSecret client secret of the service client.
+     */
+    public void updateCredentials(Auth0TokenEndpointGroup tokenEndpoints, String consumerKey,
+                                  String consumerSecret) {
+        Credentials updatedCredentials = new Credentials(tokenEndpoints, consumerKey, consumerSecret, audience);
+        Credentials previousCredentials = credentials;
+        credentials = updatedCredentials;
+        if (!previousCredentials.tokenCacheKey.equals(updatedCredentials.tokenCacheKey)) {
+            tokenCache.invalidate(previousCredentials.tokenCacheKey);
+        }
+    }
+
+    private Auth0AccessTokenResponse getAccessToken(Credentials credentials) throws APIManagementException {
+        Auth0AccessTokenResponse accessTokenInfo = tokenCache.get(credentials.tokenCacheKey,
+                () -> requestAccessToken(credentials));
+        if (accessTokenInfo == null || accessTokenInfo.getAccessToken() == null) {
+            throw new APIManagementException("Could not obtain an access token for the management API");
+        }
+        return accessTokenInfo;
+    }
+
+    private Auth0AccessTokenResponse requestAccessToken(Credentials credentials) throws APIManagementException {
+        byte[] encodedCredentials = org.apache.commons.codec.binary.Base64.encodeBase64(
+                (credentials.consumerKey + ":" + credentials.consumerSecret).getBytes(StandardCharsets.UTF_8));
+        Request.Builder requestBuilder = new Request.Builder()
+                .header(APIConstants.AUTHORIZATION_HEADER_DEFAULT, APIConstants.AUTHORIZATION_BASIC
+                        + new String(encodedCredentials, StandardCharsets.UTF_8))
+                .post(new FormBody.Builder()
+                        .add(Auth0Constants.GRANT_TYPE, Auth0Constants.GRANT_TYPE_CLIENT_CREDENTIALS)
+                        .add(Auth0Constants.AUDIENCE, audience).build());
+        try (Response response = credentials.tokenEndpoints.execute(requestBuilder)) {
+            ResponseBody body = response.body();
+            if (body == null) {
+                throw new APIManagementException(String.format(Auth0Constants.STRING_FORMAT,
+                        Auth0Constants.ERROR_COULD_NOT_READ_HTTP_ENTITY, response));
+            }
+            if (HttpStatus.SC_OK == response.code()) {
+                return new Gson().fromJson(body.string(), Auth0AccessTokenResponse.class);
+            }
+        } catch (IOException e) {
+            throw new APIManagementException(Auth0Constants.ERROR_OCCURRED_WHILE_READ_OR_CLOSE_BUFFER_READER, e);
+        }
+        return null;
+    }
 }
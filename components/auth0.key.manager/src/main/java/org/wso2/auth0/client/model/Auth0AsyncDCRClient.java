@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.model;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@code Auth0DCRClient}.
+ */
+public interface Auth0AsyncDCRClient {
+    public CompletableFuture<Auth0ClientInfo> createApplication(Auth0ClientInfo clientInfo);
+
+    public CompletableFuture<Auth0ClientInfo> getApplication(String clientId);
+
+    public CompletableFuture<Auth0ClientInfo> updateApplication(String clientId, Auth0ClientInfo clientInfo);
+
+    public CompletableFuture<Void> deleteApplication(String clientId);
+
+    public CompletableFuture<Auth0ClientInfo> regenerateClientSecret(String clientId);
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.model;
+
+import feign.Headers;
+import feign.Param;
+import feign.RequestLine;
+
+import java.util.List;
+
+public interface Auth0ClientGrants {
+    @RequestLine("POST")
+    @Headers("Content-Type: application/json")
+    public Auth0ClientGrant createClientGrant(Auth0ClientGrant clientGrant);
+
+    @RequestLine("GET ?client_id={clientId}&audience={audience}")
+    @Headers("Content-Type: application/json")
+    public List<Auth0ClientGrant> getClientGrants(@Param("clientId") String clientId,
+                                                  @Param("audience") String audience);
+
+    @RequestLine("PATCH /{id}")
+    @Headers("Content-Type: application/json")
+    public Auth0ClientGrant updateClientGrant(@Param("id") String id, Auth0ClientGrant clientGrant);
+}
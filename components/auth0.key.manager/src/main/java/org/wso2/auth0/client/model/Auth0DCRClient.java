@@ -39,6 +39,11 @@ public interface Auth0DCRClient {
     @Headers("Content-Type: application/json")
     public void deleteApplication(@Param("clientId") String clientId);
 
+    @RequestLine("GET ?fields={fields}&include_fields=true&from={from}&take={take}")
+    @Headers("Content-Type: application/json")
+    public Auth0ClientPage listApplications(@Param("fields") String fields, @Param("from") String from,
+                                            @Param("take") int take);
+
     @RequestLine("POST /{clientId}/rotate-secret")
     @Headers("Content-Type: application/json")
     public Auth0ClientInfo regenerateClientSecret(@Param("clientId") String clientId);
@@ -24,12 +24,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Auth0ResourceServerInfo {
+    @SerializedName("id")
+    private String id;
     @SerializedName("name")
     private String name;
     @SerializedName("identifier")
     private String identifier;
     @SerializedName("scopes")
-    private List<String> scopes = new ArrayList<>();
+    private List<Auth0ScopeInfo> scopes = new ArrayList<>();
     @SerializedName("signing_alg")
     private String signingAlg;
     @SerializedName("signing_secret")
@@ -45,6 +47,14 @@ public class Auth0ResourceServerInfo {
     @SerializedName("client")
     private Object client;
 
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
@@ -61,11 +71,11 @@ public class Auth0ResourceServerInfo {
         this.identifier = identifier;
     }
 
-    public List<String> getScopes() {
+    public List<Auth0ScopeInfo> getScopes() {
         return scopes;
     }
 
-    public void setScopes(List<String> scopes) {
+    public void setScopes(List<Auth0ScopeInfo> scopes) {
         this.scopes = scopes;
     }
 
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.model;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body of a resource server PATCH request. Kept separate from {@code Auth0ResourceServerInfo} so that only the
+ * scopes are sent, since Auth0 rejects the identifier in updates and primitive fields would reset the settings.
+ */
+public class Auth0ResourceServerPatch {
+    @SerializedName("scopes")
+    private List<Auth0ScopeInfo> scopes = new ArrayList<>();
+
+    public Auth0ResourceServerPatch() {
+    }
+
+    public Auth0ResourceServerPatch(List<Auth0ScopeInfo> scopes) {
+        this.scopes = scopes;
+    }
+
+    public List<Auth0ScopeInfo> getScopes() {
+        return scopes;
+    }
+
+    public void setScopes(List<Auth0ScopeInfo> scopes) {
+        this.scopes = scopes;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.model;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection details of an Auth0 tenant the key manager places applications on.
+ */
+public class Auth0TenantConfiguration {
+    @SerializedName("name")
+    private String name;
+    @SerializedName("token_endpoint")
+    private String tokenEndpoint;
+    @SerializedName("audience")
+    private String audience;
+    @SerializedName("client_id")
+    private String clientId;
+    @SerializedName("client_secret")
+    private String clientSecret;
+    @SerializedName("additional_token_endpoints")
+    private List<String> additionalTokenEndpoints;
+
+    public Auth0TenantConfiguration() {
+    }
+
+    public Auth0TenantConfiguration(String name, String tokenEndpoint, String audience, String clientId,
+                                    String clientSecret, List<String> additionalTokenEndpoints) {
+        this.name = name;
+        this.tokenEndpoint = tokenEndpoint;
+        this.audience = audience;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.additionalTokenEndpoints = additionalTokenEndpoints;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getTokenEndpoint() {
+        return tokenEndpoint;
+    }
+
+    public void setTokenEndpoint(String tokenEndpoint) {
+        this.tokenEndpoint = tokenEndpoint;
+    }
+
+    public String getAudience() {
+        return audience;
+    }
+
+    public void setAudience(String audience) {
+        this.audience = audience;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getClientSecret() {
+        return clientSecret;
+    }
+
+    public void setClientSecret(String clientSecret) {
+        this.clientSecret = clientSecret;
+    }
+
+    public List<String> getAdditionalTokenEndpoints() {
+        return additionalTokenEndpoints;
+    }
+
+    public void setAdditionalTokenEndpoints(List<String> additionalTokenEndpoints) {
+        this.additionalTokenEndpoints = additionalTokenEndpoints;
+    }
+
+    /**
+     * Returns the token endpoint followed by the additional token endpoints, in order of preference.
+     */
+    public List<String> getTokenEndpoints() {
+        List<String> tokenEndpoints = new ArrayList<>();
+        tokenEndpoints.add(tokenEndpoint);
+        if (additionalTokenEndpoints != null) {
+            for (String additionalTokenEndpoint : additionalTokenEndpoints) {
+                if (additionalTokenEndpoint != null && !additionalTokenEndpoint.trim().isEmpty()
+                        && !tokenEndpoints.contains(additionalTokenEndpoint.trim())) {
+                    tokenEndpoints.add(additionalTokenEndpoint.trim());
+                }
+            }
+        }
+        return tokenEndpoints;
+    }
+}
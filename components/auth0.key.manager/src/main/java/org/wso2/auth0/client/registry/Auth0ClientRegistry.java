@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.registry;
+
+import org.wso2.auth0.client.model.Auth0ClientInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compact local replica of the clients of the Auth0 tenants, holding only the fields served by the key manager.
+ * <p>
+ * Clients are stored column wise in parallel arrays indexed by slot, rather than as one object per client. Values
+ * shared by many clients, namely application types, token endpoint authentication methods, tenant names and the
+ * combinations of grant types, are interned once and referenced by a small integer. Clients are found through an open
+ * addressing index from a 64 bit hash of the client id to the slot, which keeps no object per entry either.
+ * <p>
+ * Each slot remembers when it was stored. Unless changes to the clients are followed, clients older than the maximum
+ * age are no longer served, so that they are read from Auth0 again and changes made elsewhere show up in time.
+ */
+public class Auth0ClientRegistry {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_SYMBOL = 0;
+    private static final int FREE = 0;
+    private static final int REMOVED = -1;
+    private static final String CALLBACK_SEPARATOR = " ";
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final List<String> symbols = new ArrayList<>();
+    private final Map<List<String>, Integer> grantTypeSetIds = new HashMap<>();
+    private final List<List<String>> grantTypeSets = new ArrayList<>();
+    private String[] clientIds = new String[INITIAL_CAPACITY];
+    private String[] clientNames = new String[INITIAL_CAPACITY];
+    private String[] clientSecrets = new String[INITIAL_CAPACITY];
+    private String[] callbacks = new String[INITIAL_CAPACITY];
+    private short[] applicationTypes = new short[INITIAL_CAPACITY];
+    private short[] authMethods = new short[INITIAL_CAPACITY];
+    private short[] tenants = new short[INITIAL_CAPACITY];
+    private int[] grantTypes = new int[INITIAL_CAPACITY];
+    private long[] storedAt = new long[INITIAL_CAPACITY];
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private int slotCount;
+    private long[] indexHashes = new long[INITIAL_CAPACITY * 2];
+    // Slot of each index entry plus one, FREE for an empty entry or REMOVED for an entry left by a removal.
+    private int[] indexSlots = new int[INITIAL_CAPACITY * 2];
+    private int indexUsed;
+    private int size;
+    private Set<String> removedWhileLoading;
+    private volatile long maxAgeMillis = Long.MAX_VALUE;
+
+    public Auth0ClientRegistry() {
+        symbols.add(null);
+        grantTypeSets.add(Collections.<String>emptyList());
+        grantTypeSetIds.put(Collections.<String>emptyList(), 0);
+    }
+
+    /**
+     * Changes how long a client is served after it was stored.
+     *
+     * @param maxAgeMillis maximum age in milliseconds, or {@code Long.MAX_VALUE} while changes to the clients are
+     *                     followed.
+     */
+    public void setMaxAge(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * Returns a copy of a client.
+     *
+     * @param clientId client id.
+     * @return an {@code Auth0ClientInfo}, or {@code null} if the client is not in the replica or is older than the
+     *         maximum age.
+     */
+    public Auth0ClientInfo get(String clientId) {
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(clientId);
+            if (slot < 0 || System.currentTimeMillis() - storedAt[slot] > maxAgeMillis) {
+                return null;
+            }
+            Auth0ClientInfo clientInfo = new Auth0ClientInfo();
+            clientInfo.setClientId(clientIds[slot]);
+            clientInfo.setClientName(clientNames[slot]);
+            clientInfo.setClientSecret(clientSecrets[slot]);
+            clientInfo.setApplicationType(symbols.get(applicationTypes[slot]));
+            clientInfo.setTokenEndpointAuthMethod(symbols.get(authMethods[slot]));
+            clientInfo.setGrantTypes(new ArrayList<>(grantTypeSets.get(grantTypes[slot])));
+            clientInfo.setRedirectUris(callbacks[slot] != null
+                    ? new ArrayList<>(Arrays.asList(callbacks[slot].split(CALLBACK_SEPARATOR)))
+                    : new ArrayList<String>());
+            return clientInfo;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the name of the tenant a client is in.
+     *
+     * @param clientId client id.
+     * @return tenant name, or {@code null} if the client is not in the replica.
+     */
+    public String getTenantName(String clientId) {
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(clientId);
+            return slot < 0 ? null : symbols.get(tenants[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the secrets of the clients of a tenant.
+     *
+     * @param tenantName tenant name.
+     * @return client secrets keyed by client id.
+     */
+    public Map<String, String> getClientSecrets(String tenantName) {
+        lock.readLock().lock();
+        try {
+            Map<String, String> clientSecretsById = new HashMap<>();
+            Integer tenant = symbolIds.get(tenantName);
+            if (tenant == null) {
+                return clientSecretsById;
+            }
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (clientIds[slot] != null && tenants[slot] == tenant) {
+                    clientSecretsById.put(clientIds[slot], clientSecrets[slot]);
+                }
+            }
+            return clientSecretsById;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces a client after it was written or read by this node.
+     *
+     * @param tenantName tenant the client is in.
+     * @param clientInfo client returned by Auth0.
+     */
+    public void put(String tenantName, Auth0ClientInfo clientInfo) {
+        if (clientInfo == null || clientInfo.getClientId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            store(tenantName, clientInfo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a client read while loading the replica. Clients already in the replica or removed since loading started
+     * are newer than the listing and are left as they are.
+     *
+     * @param tenantName tenant the client is in.
+     * @param clientInfo client read from the listing.
+     */
+    public void putLoaded(String tenantName, Auth0ClientInfo clientInfo) {
+        if (clientInfo == null || clientInfo.getClientId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (findSlot(clientInfo.getClientId()) < 0 && (removedWhileLoading == null
+                    || !removedWhileLoading.contains(clientInfo.getClientId()))) {
+                store(tenantName, clientInfo);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String clientId) {
+        lock.writeLock().lock();
+        try {
+            if (removedWhileLoading != null) {
+                removedWhileLoading.add(clientId);
+            }
+            long hash = hash(clientId);
+            int mask = indexSlots.length - 1;
+            for (int i = (int) hash & mask; indexSlots[i] != FREE; i = (i + 1) & mask) {
+                int slot = indexSlots[i] - 1;
+                if (indexSlots[i] != REMOVED && indexHashes[i] == hash && clientId.equals(clientIds[slot])) {
+                    indexSlots[i] = REMOVED;
+                    clearSlot(slot);
+                    size--;
+                    return;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks the start of loading the replica, from which on removals are remembered so that the clients removed are
+     * not added back from a listing read before their removal.
+     */
+    public void startLoading() {
+        lock.writeLock().lock();
+        try {
+            removedWhileLoading = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void finishLoading() {
+        lock.writeLock().lock();
+        try {
+            removedWhileLoading = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int findSlot(String clientId) {
+        long hash = hash(clientId);
+        int mask = indexSlots.length - 1;
+        for (int i = (int) hash & mask; indexSlots[i] != FREE; i = (i + 1) & mask) {
+            if (indexSlots[i] != REMOVED && indexHashes[i] == hash && clientId.equals(clientIds[indexSlots[i] - 1])) {
+                return indexSlots[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void store(String tenantName, Auth0ClientInfo clientInfo) {
+        // Intern first, so that running out of symbols leaves the registry unchanged.
+        short applicationType = symbol(clientInfo.getApplicationType());
+        short authMethod = symbol(clientInfo.getTokenEndpointAuthMethod());
+        short tenant = symbol(tenantName);
+        int grantTypeSet = grantTypeSet(clientInfo.getGrantTypes());
+        int slot = findSlot(clientInfo.getClientId());
+        if (slot < 0) {
+            slot = allocateSlot();
+            if ((indexUsed + 1) * 4 > indexSlots.length * 3) {
+                rebuildIndex(size + 1 > indexSlots.length / 2 ? indexSlots.length * 2 : indexSlots.length);
+            }
+            insertIndex(hash(clientInfo.getClientId()), slot);
+            size++;
+        }
+        clientIds[slot] = clientInfo.getClientId();
+        clientNames[slot] = clientInfo.getClientName();
+        clientSecrets[slot] = clientInfo.getClientSecret();
+        List<String> redirectUris = clientInfo.getRedirectUris();
+        callbacks[slot] = redirectUris != null && !redirectUris.isEmpty()
+                ? String.join(CALLBACK_SEPARATOR, redirectUris) : null;
+        applicationTypes[slot] = applicationType;
+        authMethods[slot] = authMethod;
+        tenants[slot] = tenant;
+        grantTypes[slot] = grantTypeSet;
+        storedAt[slot] = System.currentTimeMillis();
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (slotCount == clientIds.length) {
+            int capacity = clientIds.length * 2;
+            clientIds = Arrays.copyOf(clientIds, capacity);
+            clientNames = Arrays.copyOf(clientNames, capacity);
+            clientSecrets = Arrays.copyOf(clientSecrets, capacity);
+            callbacks = Arrays.copyOf(callbacks, capacity);
+            applicationTypes = Arrays.copyOf(applicationTypes, capacity);
+            authMethods = Arrays.copyOf(authMethods, capacity);
+            tenants = Arrays.copyOf(tenants, capacity);
+            grantTypes = Arrays.copyOf(grantTypes, capacity);
+            storedAt = Arrays.copyOf(storedAt, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void clearSlot(int slot) {
+        clientIds[slot] = null;
+        clientNames[slot] = null;
+        clientSecrets[slot] = null;
+        callbacks[slot] = null;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private void insertIndex(long hash, int slot) {
+        int mask = indexSlots.length - 1;
+        int i = (int) hash & mask;
+        while (indexSlots[i] != FREE) {
+            i = (i + 1) & mask;
+        }
+        indexHashes[i] = hash;
+        indexSlots[i] = slot + 1;
+        indexUsed++;
+    }
+
+    /**
+     * Rebuilds the index without the entries left by removals, growing it if needed.
+     */
+    private void rebuildIndex(int capacity) {
+        long[] oldHashes = indexHashes;
+        int[] oldSlots = indexSlots;
+        indexHashes = new long[capacity];
+        indexSlots = new int[capacity];
+        indexUsed = 0;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] > 0) {
+                insertIndex(oldHashes[i], oldSlots[i] - 1);
+            }
+        }
+    }
+
+    private short symbol(String value) {
+        if (value == null) {
+            return NO_SYMBOL;
+        }
+        Integer id = symbolIds.get(value);
+        if (id == null) {
+            if (symbols.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct values in the client registry");
+            }
+            id = symbols.size();
+            symbols.add(value);
+            symbolIds.put(value, id);
+        }
+        return id.shortValue();
+    }
+
+    private int grantTypeSet(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return 0;
+        }
+        Integer id = grantTypeSetIds.get(values);
+        if (id == null) {
+            List<String> grantTypeSet = new ArrayList<>(values.size());
+            for (String value : values) {
+                grantTypeSet.add(symbols.get(symbol(value)));
+            }
+            grantTypeSet = Collections.unmodifiableList(grantTypeSet);
+            id = grantTypeSets.size();
+            grantTypeSets.add(grantTypeSet);
+            grantTypeSetIds.put(grantTypeSet, id);
+        }
+        return id;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the client id, with the high bits mixed into the low bits used to pick the index entry.
+     */
+    private static long hash(String clientId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < clientId.length(); i++) {
+            hash ^= clientId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash ^ (hash >>> 32);
+    }
+}
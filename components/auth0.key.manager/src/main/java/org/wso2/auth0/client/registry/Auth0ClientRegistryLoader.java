@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.registry;
+
+import feign.FeignException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.model.Auth0ClientInfo;
+import org.wso2.auth0.client.model.Auth0ClientPage;
+import org.wso2.auth0.client.tenant.Auth0Tenant;
+import org.wso2.auth0.client.util.Auth0ThreadFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Fills a client registry in the background by listing the clients of every tenant page by page. Until it is done,
+ * clients missing from the registry are read from Auth0 as before.
+ */
+public class Auth0ClientRegistryLoader {
+    private static final Log log = LogFactory.getLog(Auth0ClientRegistryLoader.class);
+    private static final String FIELDS = "client_id,name,client_secret,app_type,token_endpoint_auth_method,"
+            + "grant_types,callbacks";
+    private final Auth0ClientRegistry registry;
+    private final List<Auth0Tenant> tenants;
+    private ExecutorService executor;
+    private volatile boolean loaded;
+
+    public Auth0ClientRegistryLoader(Auth0ClientRegistry registry, List<Auth0Tenant> tenants) {
+        this.registry = registry;
+        this.tenants = new ArrayList<>(tenants);
+    }
+
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(new Auth0ThreadFactory("auth0-client-registry"));
+        executor.execute(this::load);
+    }
+
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns whether every client of every tenant has been listed.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    private void load() {
+        registry.startLoading();
+        try {
+            for (Auth0Tenant tenant : tenants) {
+                if (!loadTenant(tenant)) {
+                    return;
+                }
+            }
+            loaded = true;
+            log.info("Loaded " + registry.size() + " Auth0 clients into the client registry");
+        } catch (RuntimeException e) {
+            log.error("Error while loading the client registry, clients not loaded are read from Auth0", e);
+        } finally {
+            registry.finishLoading();
+        }
+    }
+
+    private boolean loadTenant(Auth0Tenant tenant) {
+        return listTenant(tenant, clientInfo -> registry.putLoaded(tenant.getName(), clientInfo));
+    }
+
+    /**
+     * Lists the clients of a tenant on the calling thread, for example to compare them with the registry after
+     * changes to the tenant were missed.
+     *
+     * @param tenant tenant to list.
+     * @return clients keyed by id, or {@code null} if the tenant could not be listed.
+     */
+    public Map<String, Auth0ClientInfo> listClients(Auth0Tenant tenant) {
+        Map<String, Auth0ClientInfo> clients = new HashMap<>();
+        return listTenant(tenant, clientInfo -> clients.put(clientInfo.getClientId(), clientInfo)) ? clients : null;
+    }
+
+    /**
+     * Lists the clients of a tenant. Rate limited pages are retried after a delay, any other failure stops listing.
+     *
+     * @return {@code true} if every client of the tenant was listed.
+     */
+    private static boolean listTenant(Auth0Tenant tenant, Consumer<Auth0ClientInfo> consumer) {
+        String from = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            Auth0ClientPage page;
+            try {
+                page = tenant.getDCRClient().listApplications(FIELDS, from, Auth0Constants.CLIENT_REGISTRY_PAGE_SIZE);
+            } catch (FeignException e) {
+                if (e.status() == 429) {
+                    try {
+                        Thread.sleep(Auth0Constants.CLIENT_REGISTRY_RATE_LIMIT_DELAY_MILLIS);
+                    } catch (InterruptedException interruptedException) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                    continue;
+                }
+                log.warn("Error while listing the clients of Auth0 tenant " + tenant.getName()
+                        + ", clients not loaded are read from Auth0", e);
+                return false;
+            }
+            if (page == null || page.getClients() == null) {
+                return true;
+            }
+            for (Auth0ClientInfo clientInfo : page.getClients()) {
+                if (clientInfo != null && clientInfo.getClientId() != null) {
+                    consumer.accept(clientInfo);
+                }
+            }
+            from = page.getNext();
+            if (from == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.scope;
+
+import feign.FeignException;
+import org.apache.commons.lang.StringUtils;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.model.Auth0ResourceServer;
+import org.wso2.auth0.client.model.Auth0ResourceServerInfo;
+import org.wso2.auth0.client.model.Auth0ScopeInfo;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.api.model.Scope;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the scopes of the APIs in sync with the scopes of the WSO2 resource server in Auth0. Every change is written
+ * through the {@code Auth0ScopeWriteBuffer}, which reads the resource server once, computes the new scopes list and
+ * sends a single PATCH, and only when the scopes list actually changes.
+ * <p>
+ * Which scopes belong to an API is not kept here: callers pass the scope keys API Manager has recorded for the API,
+ * so that every node, including one that was restarted, works from the same record.
+ */
+public class Auth0ResourceScopeManager {
+    private final Auth0ResourceServer resourceServer;
+    private final String resourceServerIdentifier;
+    private final Auth0ScopeWriteBuffer scopeWriteBuffer;
+
+    public Auth0ResourceScopeManager(Auth0ResourceServer resourceServer, String resourceServerIdentifier,
+                                     Auth0ScopeWriteBuffer scopeWriteBuffer) {
+        this.resourceServer = resourceServer;
+        this.resourceServerIdentifier = resourceServerIdentifier;
+        this.scopeWriteBuffer = scopeWriteBuffer;
+    }
+
+    /**
+     * Adds or updates the scopes of an API in the resource server, and removes the scopes the API had before but no
+     * longer has.
+     *
+     * @param scopes         scopes of the API.
+     * @param previousScopes keys of the scopes the API had before, empty for a new API.
+     * @throws APIManagementException if the resource server could not be read or updated.
+     */
+    public void registerApiScopes(Collection<Scope> scopes, Set<String> previousScopes)
+            throws APIManagementException {
+        Map<String, String> upserts = new LinkedHashMap<>();
+        if (scopes != null) {
+            for (Scope scope : scopes) {
+                Auth0ScopeInfo scopeInfo = toAuth0Scope(scope);
+                upserts.put(scopeInfo.getValue(), scopeInfo.getDescription());
+            }
+        }
+        Set<String> removals = new HashSet<>(previousScopes);
+        removals.removeAll(upserts.keySet());
+        applyChanges(upserts, removals);
+    }
+
+    /**
+     * Returns the resource server along with the given scopes of an API.
+     *
+     * @param apiScopes keys of the scopes of the API.
+     * @return resource attributes, or {@code null} if the API has no scopes.
+     * @throws APIManagementException if the resource server could not be read.
+     */
+    public Map<String, Object> getApiResource(Set<String> apiScopes) throws APIManagementException {
+        if (apiScopes.isEmpty()) {
+            return null;
+        }
+        Auth0ResourceServerInfo resourceServerInfo = getResourceServer();
+        List<Auth0ScopeInfo> scopes = new ArrayList<>();
+        if (resourceServerInfo.getScopes() != null) {
+            for (Auth0ScopeInfo scope : resourceServerInfo.getScopes()) {
+                if (apiScopes.contains(scope.getValue())) {
+                    scopes.add(scope);
+                }
+            }
+        }
+        Map<String, Object> resource = new HashMap<>();
+        resource.put(Auth0Constants.RESOURCE_SERVER_IDENTIFIER, resourceServerInfo.getIdentifier());
+        resource.put(Auth0Constants.RESOURCE_SERVER_NAME, resourceServerInfo.getName());
+        resource.put(Auth0Constants.RESOURCE_SERVER_SCOPES, scopes);
+        return resource;
+    }
+
+    /**
+     * Removes the scopes of an API from the resource server.
+     *
+     * @param apiScopes keys of the scopes of the API.
+     * @throws APIManagementException if the resource server could not be read or updated.
+     */
+    public void removeApiScopes(Set<String> apiScopes) throws APIManagementException {
+        applyChanges(Collections.<String, String>emptyMap(), apiScopes);
+    }
+
+    /**
+     * Returns the keys of the scopes in resource attributes returned by {@link #getApiResource(Set)}.
+     *
+     * @param resource resource attributes, or {@code null}.
+     * @return scope keys, empty if there are none.
+     */
+    public static Set<String> getScopeKeys(Map<?, ?> resource) {
+        Set<String> scopeKeys = new HashSet<>();
+        Object scopes = resource != null ? resource.get(Auth0Constants.RESOURCE_SERVER_SCOPES) : null;
+        if (scopes instanceof Collection) {
+            for (Object scope : (Collection<?>) scopes) {
+                if (scope instanceof Auth0ScopeInfo) {
+                    scopeKeys.add(((Auth0ScopeInfo) scope).getValue());
+                }
+            }
+        }
+        return scopeKeys;
+    }
+
+    private void applyChanges(Map<String, String> upserts, Set<String> removals) throws APIManagementException {
+        if (upserts.isEmpty() && removals.isEmpty()) {
+            return;
+        }
+        for (String removal : removals) {
+            scopeWriteBuffer.remove(removal);
+        }
+        for (Map.Entry<String, String> upsert : upserts.entrySet()) {
+            scopeWriteBuffer.upsert(new Auth0ScopeInfo(upsert.getKey(), upsert.getValue()));
+        }
+        scopeWriteBuffer.flush();
+    }
+
+    private Auth0ResourceServerInfo getResourceServer() throws APIManagementException {
+        try {
+            return resourceServer.getResourceServer(resourceServerIdentifier);
+        } catch (FeignException e) {
+            throw new APIManagementException("Error while retrieving resource server : " + resourceServerIdentifier,
+                    e);
+        }
+    }
+
+    /**
+     * Converts an API Manager scope to an Auth0 scope. Auth0 requires a description, so the display name or the
+     * key is used when the scope does not have one.
+     *
+     * @param scope API Manager scope.
+     * @return an {@code Auth0ScopeInfo}
+     */
+    public static Auth0ScopeInfo toAuth0Scope(Scope scope) {
+        String description = scope.getDescription();
+        if (StringUtils.isEmpty(description)) {
+            description = StringUtils.isNotEmpty(scope.getName()) ? scope.getName() : scope.getKey();
+        }
+        return new Auth0ScopeInfo(scope.getKey(), description);
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.scope;
+
+import feign.FeignException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.model.Auth0ResourceServer;
+import org.wso2.auth0.client.model.Auth0ResourceServerInfo;
+import org.wso2.auth0.client.model.Auth0ScopeInfo;
+import org.wso2.auth0.client.util.Auth0ThreadFactory;
+import org.wso2.carbon.apimgt.api.model.Scope;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In memory catalog of the scopes of the WSO2 resource server. Readers work on an immutable snapshot indexed by scope
+ * name, which is replaced atomically when the catalog is refreshed from Auth0 in the background or after a local
+ * write, so scope lookups never block and never call Auth0. A refresh that read the resource server before a local
+ * write was applied is discarded, so that it cannot hide the write until the next refresh.
+ */
+public class Auth0ScopeCatalog {
+    private static final Log log = LogFactory.getLog(Auth0ScopeCatalog.class);
+    private final Auth0ResourceServer resourceServer;
+    private final String resourceServerIdentifier;
+    private final Auth0ScopeWriteBuffer scopeWriteBuffer;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    private volatile String resourceServerId;
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private volatile Runnable refreshListener;
+    // Guarded by this, counts the local writes applied to the catalog.
+    private long localWriteGeneration;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Immutable, versioned view of the scopes of the resource server. The version only changes when scopes are added
+     * or removed, so a refresh which finds the same scopes is not taken for a change of the scopes.
+     */
+    public static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, Collections.<String, Scope>emptyMap());
+        private final long version;
+        private final Map<String, Scope> scopes;
+
+        private Snapshot(long version, Map<String, Scope> scopes) {
+            this.version = version;
+            this.scopes = scopes;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns the scopes of the snapshot, which are shared by all readers and must not be modified.
+         */
+        public Map<String, Scope> getScopes() {
+            return scopes;
+        }
+    }
+
+    public Auth0ScopeCatalog(Auth0ResourceServer resourceServer, String resourceServerIdentifier,
+                             Auth0ScopeWriteBuffer scopeWriteBuffer) {
+        this.resourceServer = resourceServer;
+        this.resourceServerIdentifier = resourceServerIdentifier;
+        this.scopeWriteBuffer = scopeWriteBuffer;
+    }
+
+    /**
+     * Loads the catalog and schedules the periodic refresh.
+     *
+     * @param refreshIntervalSeconds interval between two refreshes from Auth0.
+     */
+    public void start(long refreshIntervalSeconds) {
+        scopeWriteBuffer.setWriteListener(this::replace);
+        refresh();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new Auth0ThreadFactory("auth0-scope-catalog"));
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalSeconds, refreshIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Reloads the catalog from the resource server. Failures keep the current snapshot, and so does a local write
+     * applied while the resource server was being read, whose result the next refresh will include.
+     */
+    public void refresh() {
+        long generation;
+        synchronized (this) {
+            generation = localWriteGeneration;
+        }
+        try {
+            Auth0ResourceServerInfo resourceServerInfo = resourceServer.getResourceServer(resourceServerIdentifier);
+            resourceServerId = resourceServerInfo.getId();
+            if (!install(resourceServerInfo.getScopes(), generation) && log.isDebugEnabled()) {
+                log.debug("Discarded refresh of scopes of resource server " + resourceServerIdentifier
+                        + " read before a local write");
+            }
+        } catch (FeignException e) {
+            log.error("Error while refreshing scopes of resource server : " + resourceServerIdentifier, e);
+            return;
+        }
+        Runnable listener = refreshListener;
+        if (listener != null) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.error("Error in refresh listener of resource server : " + resourceServerIdentifier, e);
+            }
+        }
+    }
+
+    /**
+     * Sets the listener run after each refresh that read the resource server, on the refreshing thread.
+     *
+     * @param refreshListener listener, or {@code null} to remove it.
+     */
+    public void setRefreshListener(Runnable refreshListener) {
+        this.refreshListener = refreshListener;
+    }
+
+    /**
+     * Checks whether the catalog was loaded from the resource server at least once.
+     */
+    public boolean isLoaded() {
+        return loaded.getCount() == 0;
+    }
+
+    /**
+     * Waits for the catalog to be loaded from the resource server for the first time.
+     *
+     * @param timeout maximum time to wait.
+     * @param unit    unit of the timeout.
+     * @return {@code true} if the catalog was loaded, {@code false} if the wait timed out.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitLoaded(long timeout, TimeUnit unit) throws InterruptedException {
+        return loaded.await(timeout, unit);
+    }
+
+    /**
+     * Checks whether the given id or identifier, as used in management API paths, is the resource server of this
+     * catalog.
+     *
+     * @param id id or identifier of a resource server.
+     * @return {@code true} if it is the resource server of this catalog.
+     */
+    public boolean isResourceServer(String id) {
+        return resourceServerIdentifier.equals(id) || id.equals(resourceServerId);
+    }
+
+    /**
+     * Replaces the catalog with the scopes of the resource server written by a local write, keeping the local writes
+     * that have not reached Auth0 yet.
+     *
+     * @param scopes scopes of the resource server.
+     */
+    public synchronized void replace(List<Auth0ScopeInfo> scopes) {
+        localWriteGeneration++;
+        install(scopes, localWriteGeneration);
+    }
+
+    private synchronized boolean install(List<Auth0ScopeInfo> scopes, long generation) {
+        if (generation != localWriteGeneration) {
+            return false;
+        }
+        Map<String, Auth0ScopeInfo> scopeInfoMap = new LinkedHashMap<>();
+        if (scopes != null) {
+            for (Auth0ScopeInfo scope : scopes) {
+                scopeInfoMap.put(scope.getValue(), scope);
+            }
+        }
+        scopeWriteBuffer.overlayPending(scopeInfoMap);
+        Map<String, Scope> scopeMap = new HashMap<>(scopeInfoMap.size() * 2);
+        for (Auth0ScopeInfo scope : scopeInfoMap.values()) {
+            scopeMap.put(scope.getValue(), toScope(scope));
+        }
+        setScopes(scopeMap);
+        loaded.countDown();
+        return true;
+    }
+
+    /**
+     * Adds or replaces a scope in the catalog after a local write.
+     *
+     * @param scope scope written locally.
+     */
+    public synchronized void upsert(Auth0ScopeInfo scope) {
+        localWriteGeneration++;
+        Map<String, Scope> scopeMap = new HashMap<>(snapshot.get().scopes);
+        scopeMap.put(scope.getValue(), toScope(scope));
+        setScopes(scopeMap);
+    }
+
+    /**
+     * Removes a scope from the catalog after a local write.
+     *
+     * @param scopeName name of the removed scope.
+     */
+    public synchronized void remove(String scopeName) {
+        localWriteGeneration++;
+        Map<String, Scope> current = snapshot.get().scopes;
+        if (!current.containsKey(scopeName)) {
+            return;
+        }
+        Map<String, Scope> scopeMap = new HashMap<>(current);
+        scopeMap.remove(scopeName);
+        setScopes(scopeMap);
+    }
+
+    private void setScopes(Map<String, Scope> scopeMap) {
+        Snapshot current = snapshot.get();
+        long version = current.scopes.keySet().equals(scopeMap.keySet()) ? current.version : current.version + 1;
+        snapshot.set(new Snapshot(version, Collections.unmodifiableMap(scopeMap)));
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Returns copies of all the scopes in the catalog, keyed by name.
+     */
+    public Map<String, Scope> getScopes() {
+        Map<String, Scope> scopes = new HashMap<>();
+        for (Map.Entry<String, Scope> scope : snapshot.get().scopes.entrySet()) {
+            scopes.put(scope.getKey(), copy(scope.getValue()));
+        }
+        return scopes;
+    }
+
+    public Scope getScope(String scopeName) {
+        Scope scope = snapshot.get().scopes.get(scopeName);
+        return scope != null ? copy(scope) : null;
+    }
+
+    public boolean contains(String scopeName) {
+        return snapshot.get().scopes.containsKey(scopeName);
+    }
+
+    private static Scope toScope(Auth0ScopeInfo scopeInfo) {
+        Scope scope = new Scope();
+        scope.setKey(scopeInfo.getValue());
+        scope.setName(scopeInfo.getValue());
+        scope.setDescription(scopeInfo.getDescription());
+        return scope;
+    }
+
+    private static Scope copy(Scope scope) {
+        Scope copy = new Scope();
+        copy.setKey(scope.getKey());
+        copy.setName(scope.getName());
+        copy.setDescription(scope.getDescription());
+        copy.setRoles(scope.getRoles());
+        return copy;
+    }
+}
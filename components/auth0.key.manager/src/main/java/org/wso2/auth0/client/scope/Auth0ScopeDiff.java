@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.scope;
+
+import org.wso2.auth0.client.model.Auth0ScopeInfo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Computes the scopes list of a resource server after applying a set of additions, updates and removals. Auth0 keeps
+ * the scopes of a resource server as a single array, so the result is the full list to be sent in one PATCH.
+ */
+public final class Auth0ScopeDiff {
+    private final List<Auth0ScopeInfo> scopes;
+    private final boolean changed;
+
+    private Auth0ScopeDiff(List<Auth0ScopeInfo> scopes, boolean changed) {
+        this.scopes = scopes;
+        this.changed = changed;
+    }
+
+    /**
+     * Applies the given changes on the current scopes of a resource server.
+     *
+     * @param currentScopes scopes currently defined in the resource server.
+     * @param upserts       scopes to add or update, keyed by scope value.
+     * @param removals      values of the scopes to remove.
+     * @return an {@code Auth0ScopeDiff}
+     */
+    public static Auth0ScopeDiff compute(Collection<Auth0ScopeInfo> currentScopes, Map<String, String> upserts,
+                                         Collection<String> removals) {
+        Map<String, String> merged = new LinkedHashMap<>();
+        if (currentScopes != null) {
+            for (Auth0ScopeInfo scope : currentScopes) {
+                merged.put(scope.getValue(), scope.getDescription());
+            }
+        }
+        boolean changed = false;
+        for (String removal : removals) {
+            if (merged.containsKey(removal)) {
+                merged.remove(removal);
+                changed = true;
+            }
+        }
+        for (Map.Entry<String, String> upsert : upserts.entrySet()) {
+            if (!merged.containsKey(upsert.getKey())
+                    || !Objects.equals(merged.get(upsert.getKey()), upsert.getValue())) {
+                merged.put(upsert.getKey(), upsert.getValue());
+                changed = true;
+            }
+        }
+        List<Auth0ScopeInfo> scopes = new ArrayList<>(merged.size());
+        for (Map.Entry<String, String> entry : merged.entrySet()) {
+            scopes.add(new Auth0ScopeInfo(entry.getKey(), entry.getValue()));
+        }
+        return new Auth0ScopeDiff(scopes, changed);
+    }
+
+    public List<Auth0ScopeInfo> getScopes() {
+        return scopes;
+    }
+
+    public boolean isChanged() {
+        return changed;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.scope;
+
+import org.wso2.auth0.client.Auth0Constants;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses space separated scope strings, as returned by the Auth0 token endpoint, into {@code Auth0ScopeSet}s. Tokens
+ * of the same application mostly share a handful of scope strings, so parsed sets are cached per distinct scope
+ * string, the least recently used first to go when the cache is full.
+ */
+public class Auth0ScopeEncoder {
+    private final Map<String, Auth0ScopeSet> cache = Collections.synchronizedMap(
+            new LinkedHashMap<String, Auth0ScopeSet>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Auth0ScopeSet> eldest) {
+                    return size() > Auth0Constants.SCOPE_ENCODING_CACHE_MAX_SIZE;
+                }
+            });
+
+    /**
+     * Encodes a space separated scope string.
+     *
+     * @param scopeString scope string, as returned by the Auth0 token endpoint.
+     * @return an {@code Auth0ScopeSet}
+     */
+    public Auth0ScopeSet encode(String scopeString) {
+        if (scopeString == null || scopeString.isEmpty()) {
+            return Auth0ScopeSet.EMPTY;
+        }
+        Auth0ScopeSet scopeSet = cache.get(scopeString);
+        if (scopeSet == null) {
+            Set<String> scopes = tokenize(scopeString);
+            scopeSet = scopes.isEmpty() ? Auth0ScopeSet.EMPTY : new Auth0ScopeSet(scopes.toArray(new String[0]));
+            cache.put(scopeString, scopeSet);
+        }
+        return scopeSet;
+    }
+
+    /**
+     * Splits a scope string on whitespace without going through the regex engine.
+     */
+    private static Set<String> tokenize(String scopeString) {
+        Set<String> scopes = new LinkedHashSet<>();
+        int length = scopeString.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean separator = i == length || Character.isWhitespace(scopeString.charAt(i));
+            if (separator && start >= 0) {
+                scopes.add(scopeString.substring(start, i));
+                start = -1;
+            } else if (!separator && start < 0) {
+                start = i;
+            }
+        }
+        return scopes;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.scope;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of scopes parsed out of a scope string by an {@code Auth0ScopeEncoder}, shared by every token with
+ * the same scope string.
+ */
+public final class Auth0ScopeSet {
+    static final Auth0ScopeSet EMPTY = new Auth0ScopeSet(new String[0]);
+    private final String[] scopes;
+
+    Auth0ScopeSet(String[] scopes) {
+        this.scopes = scopes;
+    }
+
+    /**
+     * Returns the scopes of this set, in the order they were given.
+     */
+    public String[] getScopes() {
+        return scopes.clone();
+    }
+
+    public boolean isEmpty() {
+        return scopes.length == 0;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(scopes);
+    }
+}
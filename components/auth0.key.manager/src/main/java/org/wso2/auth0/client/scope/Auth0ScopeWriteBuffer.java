@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.scope;
+
+import feign.FeignException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.cache.Auth0ClusterLock;
+import org.wso2.auth0.client.model.Auth0ResourceServer;
+import org.wso2.auth0.client.model.Auth0ResourceServerInfo;
+import org.wso2.auth0.client.model.Auth0ResourceServerPatch;
+import org.wso2.auth0.client.model.Auth0ScopeInfo;
+import org.wso2.auth0.client.util.Auth0ThreadFactory;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind buffer for the scopes of the WSO2 resource server. Scope mutations are coalesced by scope value and
+ * written after a short window with one read-modify-write of the resource server. Since Auth0 does not support
+ * conditional updates, the read-modify-write of the nodes of a cluster is serialized through a cluster lock, so that
+ * no node patches the scopes over a copy another node has changed since. Without clustering only the writes of this
+ * node are serialized.
+ * <p>
+ * Mutations that could not be written stay queued and are retried in the background. Failed writes are counted,
+ * and the last failure is thrown by {@link #flush()} until a write succeeds.
+ */
+public class Auth0ScopeWriteBuffer {
+    private static final Log log = LogFactory.getLog(Auth0ScopeWriteBuffer.class);
+    private final Auth0ResourceServer resourceServer;
+    private final String resourceServerIdentifier;
+    private final long windowMillis;
+    private final Map<String, Auth0ScopeInfo> pendingUpserts = new LinkedHashMap<>();
+    private final Set<String> pendingRemovals = new HashSet<>();
+    private final Object pendingLock = new Object();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+    private final Auth0ClusterLock clusterLock;
+    private final LongAdder failedWrites = new LongAdder();
+    private volatile APIManagementException lastFailure;
+    private boolean flushScheduled;
+    private Map<String, Auth0ScopeInfo> inFlightUpserts = Collections.emptyMap();
+    private Set<String> inFlightRemovals = Collections.emptySet();
+    private volatile Consumer<List<Auth0ScopeInfo>> writeListener;
+
+    /**
+     * @param resourceServer           client of the resource server API.
+     * @param resourceServerIdentifier identifier of the WSO2 resource server.
+     * @param windowMillis             time mutations are collected for before they are written.
+     * @param clusterLock              lock serializing the writes of the nodes of a cluster, or {@code null} when
+     *                                 clustering is not enabled.
+     */
+    public Auth0ScopeWriteBuffer(Auth0ResourceServer resourceServer, String resourceServerIdentifier,
+                                 long windowMillis, Auth0ClusterLock clusterLock) {
+        this.resourceServer = resourceServer;
+        this.resourceServerIdentifier = resourceServerIdentifier;
+        this.windowMillis = windowMillis;
+        this.clusterLock = clusterLock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new Auth0ThreadFactory("auth0-scope-writer"));
+    }
+
+    /**
+     * Queues a scope to be added to the resource server, or updated if it already exists.
+     *
+     * @param scope scope to write.
+     */
+    public void upsert(Auth0ScopeInfo scope) {
+        synchronized (pendingLock) {
+            pendingRemovals.remove(scope.getValue());
+            pendingUpserts.put(scope.getValue(), scope);
+            scheduleFlush(windowMillis);
+        }
+    }
+
+    /**
+     * Queues a scope to be removed from the resource server.
+     *
+     * @param scopeValue value of the scope to remove.
+     */
+    public void remove(String scopeValue) {
+        synchronized (pendingLock) {
+            pendingUpserts.remove(scopeValue);
+            pendingRemovals.add(scopeValue);
+            scheduleFlush(windowMillis);
+        }
+    }
+
+    /**
+     * Writes all queued mutations to the resource server and waits for the write to complete.
+     *
+     * @throws APIManagementException if the resource server could not be updated. Failed mutations stay queued.
+     */
+    public void flush() throws APIManagementException {
+        flushLock.lock();
+        try {
+            Map<String, Auth0ScopeInfo> upserts;
+            Set<String> removals;
+            synchronized (pendingLock) {
+                if (pendingUpserts.isEmpty() && pendingRemovals.isEmpty()) {
+                    lastFailure = null;
+                    return;
+                }
+                upserts = new LinkedHashMap<>(pendingUpserts);
+                removals = new HashSet<>(pendingRemovals);
+                pendingUpserts.clear();
+                pendingRemovals.clear();
+                inFlightUpserts = upserts;
+                inFlightRemovals = removals;
+            }
+            try {
+                List<Auth0ScopeInfo> writtenScopes = write(upserts, removals);
+                lastFailure = null;
+                synchronized (pendingLock) {
+                    inFlightUpserts = Collections.emptyMap();
+                    inFlightRemovals = Collections.emptySet();
+                }
+                Consumer<List<Auth0ScopeInfo>> listener = writeListener;
+                if (listener != null && writtenScopes != null) {
+                    listener.accept(writtenScopes);
+                }
+            } catch (APIManagementException e) {
+                failedWrites.increment();
+                lastFailure = e;
+                synchronized (pendingLock) {
+                    inFlightUpserts = Collections.emptyMap();
+                    inFlightRemovals = Collections.emptySet();
+                    requeue(upserts, removals);
+                }
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Applies the mutations that are queued or being written on top of the given scopes, so that a copy of the
+     * resource server read from Auth0 reflects the local writes that have not reached it yet.
+     *
+     * @param scopes scopes keyed by value, updated in place.
+     */
+    public void overlayPending(Map<String, Auth0ScopeInfo> scopes) {
+        synchronized (pendingLock) {
+            for (String removal : inFlightRemovals) {
+                scopes.remove(removal);
+            }
+            scopes.putAll(inFlightUpserts);
+            for (String removal : pendingRemovals) {
+                scopes.remove(removal);
+            }
+            scopes.putAll(pendingUpserts);
+        }
+    }
+
+    /**
+     * Returns the number of scope mutations waiting to be written.
+     */
+    public int getPendingCount() {
+        synchronized (pendingLock) {
+            return pendingUpserts.size() + pendingRemovals.size() + inFlightUpserts.size() + inFlightRemovals.size();
+        }
+    }
+
+    /**
+     * Returns the number of writes that failed so far.
+     */
+    public long getFailedWriteCount() {
+        return failedWrites.sum();
+    }
+
+    /**
+     * Returns the failure of the last write, or {@code null} if it succeeded.
+     */
+    public APIManagementException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Sets the listener notified with the scopes of the resource server after each successful write.
+     *
+     * @param writeListener listener to notify.
+     */
+    public void setWriteListener(Consumer<List<Auth0ScopeInfo>> writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    /**
+     * Writes the queued mutations and stops the background writer.
+     */
+    public void close() {
+        try {
+            flush();
+        } catch (APIManagementException e) {
+            log.error("Error while writing queued scopes of resource server : " + resourceServerIdentifier, e);
+        }
+        scheduler.shutdown();
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(this::flushInBackground, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushInBackground() {
+        synchronized (pendingLock) {
+            flushScheduled = false;
+        }
+        try {
+            flush();
+        } catch (APIManagementException e) {
+            log.error("Error while writing queued scopes of resource server : " + resourceServerIdentifier, e);
+            synchronized (pendingLock) {
+                scheduleFlush(Auth0Constants.SCOPE_WRITE_RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void requeue(Map<String, Auth0ScopeInfo> upserts, Set<String> removals) {
+        // Mutations queued while the write was in progress are newer and take precedence.
+        for (Map.Entry<String, Auth0ScopeInfo> upsert : upserts.entrySet()) {
+            if (!pendingUpserts.containsKey(upsert.getKey()) && !pendingRemovals.contains(upsert.getKey())) {
+                pendingUpserts.put(upsert.getKey(), upsert.getValue());
+            }
+        }
+        for (String removal : removals) {
+            if (!pendingUpserts.containsKey(removal)) {
+                pendingRemovals.add(removal);
+            }
+        }
+    }
+
+    private List<Auth0ScopeInfo> write(Map<String, Auth0ScopeInfo> upserts, Set<String> removals)
+            throws APIManagementException {
+        Map<String, String> upsertDescriptions = new LinkedHashMap<>();
+        for (Auth0ScopeInfo scope : upserts.values()) {
+            upsertDescriptions.put(scope.getValue(), scope.getDescription());
+        }
+        lockCluster();
+        try {
+            Auth0ResourceServerInfo resourceServerInfo = getResourceServer();
+            Auth0ScopeDiff scopeDiff = Auth0ScopeDiff.compute(resourceServerInfo.getScopes(), upsertDescriptions,
+                    removals);
+            if (!scopeDiff.isChanged()) {
+                return resourceServerInfo.getScopes();
+            }
+            Auth0ResourceServerInfo updatedResourceServer;
+            try {
+                updatedResourceServer = resourceServer.updateResourceServer(resourceServerIdentifier,
+                        new Auth0ResourceServerPatch(scopeDiff.getScopes()));
+            } catch (FeignException e) {
+                throw new APIManagementException("Error while updating scopes of resource server : "
+                        + resourceServerIdentifier, e);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Wrote " + upserts.size() + " scope updates and " + removals.size()
+                        + " scope removals to resource server " + resourceServerIdentifier);
+            }
+            return updatedResourceServer != null && updatedResourceServer.getScopes() != null
+                    ? updatedResourceServer.getScopes() : scopeDiff.getScopes();
+        } finally {
+            unlockCluster();
+        }
+    }
+
+    private void lockCluster() throws APIManagementException {
+        if (clusterLock == null) {
+            return;
+        }
+        boolean locked;
+        try {
+            locked = clusterLock.tryLock(Auth0Constants.SCOPE_WRITE_LOCK_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagementException("Interrupted while waiting for the scope write lock of resource server : "
+                    + resourceServerIdentifier, e);
+        }
+        if (!locked) {
+            throw new APIManagementException("Timed out waiting for the scope write lock of resource server : "
+                    + resourceServerIdentifier);
+        }
+    }
+
+    private void unlockCluster() {
+        if (clusterLock != null) {
+            clusterLock.unlock();
+        }
+    }
+
+    private Auth0ResourceServerInfo getResourceServer() throws APIManagementException {
+        try {
+            return resourceServer.getResourceServer(resourceServerIdentifier);
+        } catch (FeignException e) {
+            throw new APIManagementException("Error while retrieving resource server : " + resourceServerIdentifier,
+                    e);
+        }
+    }
+}
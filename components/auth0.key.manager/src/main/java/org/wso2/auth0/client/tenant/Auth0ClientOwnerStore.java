@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.auth0.client.tenant;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.util.Auth0ThreadFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the name of the tenant that owns each client in a file, so that the owner of a client has to be looked up in
+ * the tenants at most once per node, even across restarts.
+ * <p>
+ * The file is a log of owner changes, one per line. Changes are applied in memory right away and appended to the log
+ * in batches by a background writer, so recording an owner never waits for the disk. Once the log holds many more
+ * records than there are owners, the writer compacts it by writing the current owners to a new file which atomically
+ * replaces the log. Changes not written yet when the node stops are lost, which only costs another lookup.
+ */
+public class Auth0ClientOwnerStore {
+    private static final Log log = LogFactory.getLog(Auth0ClientOwnerStore.class);
+    private static final String PUT_RECORD = "P";
+    private static final String REMOVE_RECORD = "R";
+    private final File file;
+    private final Map<String, String> owners = new ConcurrentHashMap<>();
+    // Guarded by this, changes applied to the owners but not written to the log yet.
+    private List<String> pendingRecords = new ArrayList<>();
+    private boolean flushScheduled;
+    // Number of records in the log, only changed by the writer after the initial load.
+    private volatile long logRecords;
+    private final ScheduledExecutorService writer;
+
+    public Auth0ClientOwnerStore(File file) {
+        this.file = file;
+        load();
+        writer = Executors.newSingleThreadScheduledExecutor(new Auth0ThreadFactory("auth0-client-owners"));
+    }
+
+    /**
+     * Returns the name of the tenant that owns a client, or {@code null} if it is not known.
+     */
+    public String get(String clientId) {
+        return owners.get(clientId);
+    }
+
+    /**
+     * Records the tenant that owns a client.
+     */
+    public void put(String clientId, String tenantName) {
+        if (tenantName.equals(owners.get(clientId))) {
+            return;
+        }
+        synchronized (this) {
+            if (!tenantName.equals(owners.put(clientId, tenantName))) {
+                append(PUT_RECORD + " " + clientId + " " + tenantName);
+            }
+        }
+    }
+
+    /**
+     * Forgets the owner of a deleted client.
+     */
+    public void remove(String clientId) {
+        if (!owners.containsKey(clientId)) {
+            return;
+        }
+        synchronized (this) {
+            if (owners.remove(clientId) != null) {
+                append(REMOVE_RECORD + " " + clientId);
+            }
+        }
+    }
+
+    /**
+     * Writes the changes not written yet and stops the background writer.
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(Auth0Constants.CLIENT_OWNER_CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private synchronized void append(String record) {
+        pendingRecords.add(record);
+        if (!flushScheduled && !writer.isShutdown()) {
+            flushScheduled = true;
+            writer.schedule(this::flush, Auth0Constants.CLIENT_OWNER_FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void load() {
+        if (!file.isFile()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(" ", 3);
+                if (fields.length == 3 && PUT_RECORD.equals(fields[0])) {
+                    owners.put(fields[1], fields[2]);
+                } else if (fields.length == 2 && REMOVE_RECORD.equals(fields[0])) {
+                    owners.remove(fields[1]);
+                }
+                logRecords++;
+            }
+        } catch (IOException e) {
+            log.warn("Could not read client owners : " + file, e);
+        }
+    }
+
+    /**
+     * Appends the pending changes to the log, or compacts the log when it has grown too large. Runs on the writer
+     * only, and writes to the disk without holding the lock the changes are recorded under.
+     */
+    private void flush() {
+        List<String> records;
+        Map<String, String> currentOwners = null;
+        synchronized (this) {
+            flushScheduled = false;
+            records = pendingRecords;
+            if (records.isEmpty()) {
+                return;
+            }
+            pendingRecords = new ArrayList<>();
+            if (logRecords + records.size() > Auth0Constants.CLIENT_OWNER_LOG_COMPACTION_MIN_RECORDS
+                    && logRecords + records.size() > 2L * owners.size()) {
+                // The owners already hold the pending changes, and no change can be made while they are copied.
+                currentOwners = new HashMap<>(owners);
+            }
+        }
+        if (currentOwners != null) {
+            compact(currentOwners);
+        } else {
+            write(records);
+        }
+    }
+
+    private void write(List<String> records) {
+        try {
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+            try (Writer logWriter = new OutputStreamWriter(new FileOutputStream(file, true),
+                    StandardCharsets.UTF_8)) {
+                for (String record : records) {
+                    logWriter.write(record);
+                    logWriter.write('\n');
+                }
+            }
+            logRecords += records.size();
+        } catch (IOException e) {
+            log.warn("Could not write client owners : " + file, e);
+        }
+    }
+
+    /**
+     * Replaces the log with the current owners. The file is replaced atomically, so a crash never leaves a partial
+     * file behind.
+     */
+    private void compact(Map<String, String> currentOwners) {
+        File directory = file.getAbsoluteFile().getParentFile();
+        File temporaryFile = new File(directory, file.getName() + ".tmp");
+        try {
+            Files.createDirectories(directory.toPath());
+            try (OutputStream outputStream = new FileOutputStream(temporaryFile);
+                 Writer logWriter = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, String> owner : currentOwners.entrySet()) {
+                    logWriter.write(PUT_RECORD + " " + owner.getKey() + " " + owner.getValue());
+                    logWriter.write('\n');
+                }
+            }
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logRecords = currentOwners.size();
+        } catch (IOException e) {
+            log.warn("Could not compact client owners : " + file, e);
+        }
+    }
+}
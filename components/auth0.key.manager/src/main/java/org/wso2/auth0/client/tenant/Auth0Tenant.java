@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.tenant;
+
+import com.hazelcast.core.HazelcastInstance;
+import feign.Feign;
+import feign.FeignException;
+import feign.gson.GsonDecoder;
+import feign.gson.GsonEncoder;
+import feign.Logger;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.async.Auth0AsyncDCRClientImpl;
+import org.wso2.auth0.client.async.Auth0AsyncHttpExecutor;
+import org.wso2.auth0.client.async.Auth0AsyncResourceServerImpl;
+import org.wso2.auth0.client.bulkhead.Auth0TrafficClass;
+import org.wso2.auth0.client.bulkhead.Auth0TrafficLanes;
+import org.wso2.auth0.client.cache.Auth0ClusterLock;
+import org.wso2.auth0.client.cache.Auth0TokenCache;
+import org.wso2.auth0.client.changefeed.Auth0ChangeFeedListener;
+import org.wso2.auth0.client.changefeed.Auth0ChangeFeedPoller;
+import org.wso2.auth0.client.changefeed.Auth0ChangeType;
+import org.wso2.auth0.client.changefeed.Auth0LogCheckpointStore;
+import org.wso2.auth0.client.failover.Auth0TokenEndpointGroup;
+import org.wso2.auth0.client.grant.Auth0ClientGrantProvisioner;
+import org.wso2.auth0.client.journal.Auth0Event;
+import org.wso2.auth0.client.journal.Auth0EventJournal;
+import org.wso2.auth0.client.journal.Auth0EventType;
+import org.wso2.auth0.client.journal.Auth0JournalFeignLogger;
+import org.wso2.auth0.client.metrics.Auth0Metrics;
+import org.wso2.auth0.client.model.Auth0APIKeyInterceptor;
+import org.wso2.auth0.client.model.Auth0AsyncDCRClient;
+import org.wso2.auth0.client.model.Auth0AsyncResourceServer;
+import org.wso2.auth0.client.model.Auth0ClientGrants;
+import org.wso2.auth0.client.model.Auth0DCRClient;
+import org.wso2.auth0.client.model.Auth0Logs;
+import org.wso2.auth0.client.model.Auth0ResourceServer;
+import org.wso2.auth0.client.model.Auth0ResourceServerInfo;
+import org.wso2.auth0.client.model.Auth0TenantConfiguration;
+import org.wso2.auth0.client.scope.Auth0ResourceScopeManager;
+import org.wso2.auth0.client.scope.Auth0ScopeCatalog;
+import org.wso2.auth0.client.scope.Auth0ScopeWriteBuffer;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.api.model.Scope;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * An Auth0 tenant applications are placed on, along with everything needed to talk to it: its own traffic lanes for
+ * token, management read and management write calls, token endpoints, management API token, management API clients,
+ * the WSO2 resource server with its scopes and the grants of the clients to it.
+ */
+public class Auth0Tenant {
+    private static final Log log = LogFactory.getLog(Auth0Tenant.class);
+    private final String resourceServerIdentifier;
+    private final Auth0TrafficLanes trafficLanes;
+    private final Auth0Metrics metrics;
+    private final Auth0APIKeyInterceptor auth0APIKeyInterceptor;
+    private final Auth0DCRClient dcrClient;
+    private final Auth0ResourceServer resourceServer;
+    private final Auth0AsyncDCRClient asyncDCRClient;
+    private final Auth0AsyncResourceServer asyncResourceServer;
+    private final Auth0ScopeWriteBuffer scopeWriteBuffer;
+    private final Auth0ResourceScopeManager resourceScopeManager;
+    private final Auth0ScopeCatalog scopeCatalog;
+    private final Auth0ClientGrantProvisioner clientGrantProvisioner;
+    private final Auth0EventJournal journal;
+    private final Auth0ChangeFeedPoller changeFeedPoller;
+    private volatile Auth0TenantConfiguration configuration;
+    private volatile Auth0TokenEndpointGroup tokenEndpoints;
+    private volatile boolean resourceServerReady;
+
+    /**
+     * Creates the clients of a tenant. No call is made to the tenant until the first request or
+     * {@link #verifyCredentials()}.
+     *
+     * @param configuration            connection details of the tenant.
+     * @param resourceServerIdentifier identifier of the WSO2 resource server.
+     * @param tokenCache               cache of management API tokens.
+     * @param metrics                  metrics the HTTP transports report to.
+     * @param journal                  journal the management API calls are recorded to.
+     * @param asyncDecodeExecutor      executor decoding the responses of the asynchronous clients.
+     * @param predecessor              tenant this one replaces, whose traffic lanes, connection pools and, if
+     *                                 unchanged, token endpoints are reused, or {@code null}.
+     * @param checkpointStore          store of the tenant log checkpoint, or {@code null} to not follow the log.
+     * @param changeFeedListener       listener the changes read from the tenant log are reported to.
+     * @param hazelcastInstance        cluster the scope writes of the nodes are serialized through, or {@code null}
+     *                                 when clustering is not enabled.
+     */
+    public Auth0Tenant(Auth0TenantConfiguration configuration, String resourceServerIdentifier,
+                       Auth0TokenCache tokenCache, Auth0Metrics metrics, Auth0EventJournal journal,
+                       ExecutorService asyncDecodeExecutor, Auth0Tenant predecessor,
+                       Auth0LogCheckpointStore checkpointStore, Auth0ChangeFeedListener changeFeedListener,
+                       HazelcastInstance hazelcastInstance) {
+        this.configuration = configuration;
+        this.journal = journal;
+        this.resourceServerIdentifier = resourceServerIdentifier;
+        this.metrics = metrics;
+        trafficLanes = predecessor != null ? predecessor.trafficLanes
+                : new Auth0TrafficLanes(configuration.getName(), metrics);
+        List<String> tokenEndpointUrls = configuration.getTokenEndpoints();
+        if (predecessor != null && predecessor.tokenEndpoints.hasEndpoints(tokenEndpointUrls)) {
+            tokenEndpoints = predecessor.tokenEndpoints;
+        } else {
+            tokenEndpoints = new Auth0TokenEndpointGroup(tokenEndpointUrls,
+                    trafficLanes.getHttpClient(Auth0TrafficClass.TOKEN));
+            tokenEndpoints.registerMetrics(configuration.getName(), metrics);
+        }
+        auth0APIKeyInterceptor = new Auth0APIKeyInterceptor(tokenEndpoints, configuration.getClientId(),
+                configuration.getClientSecret(), configuration.getAudience(), tokenCache);
+        String clientRegistrationEndpoint = configuration.getAudience().concat("clients");
+        String resourceServerEndpoint = configuration.getAudience().concat("resource-servers");
+        Auth0JournalFeignLogger feignLogger = new Auth0JournalFeignLogger(journal, configuration.getName());
+        dcrClient = Feign.builder().client(trafficLanes.getManagementClient()).encoder(new GsonEncoder())
+                .decoder(new GsonDecoder()).logger(feignLogger).logLevel(Logger.Level.BASIC)
+                .requestInterceptor(auth0APIKeyInterceptor)
+                .target(Auth0DCRClient.class, clientRegistrationEndpoint);
+        resourceServer = Feign.builder().client(trafficLanes.getManagementClient())
+                .encoder(new GsonEncoder()).decoder(new GsonDecoder()).logger(feignLogger)
+                .logLevel(Logger.Level.BASIC).requestInterceptor(auth0APIKeyInterceptor)
+                .target(Auth0ResourceServer.class, resourceServerEndpoint);
+        Auth0ClusterLock scopeWriteLock = hazelcastInstance != null ? new Auth0ClusterLock(hazelcastInstance,
+                "scopes:" + configuration.getAudience() + resourceServerIdentifier,
+                Auth0Constants.SCOPE_WRITE_LOCK_LEASE_MILLIS) : null;
+        scopeWriteBuffer = new Auth0ScopeWriteBuffer(resourceServer, resourceServerIdentifier,
+                Auth0Constants.SCOPE_WRITE_BUFFER_WINDOW_MILLIS, scopeWriteLock);
+        metrics.registerGauge("scopeWriter." + configuration.getName() + ".pending",
+                scopeWriteBuffer::getPendingCount);
+        metrics.registerGauge("scopeWriter." + configuration.getName() + ".failed",
+                scopeWriteBuffer::getFailedWriteCount);
+        resourceScopeManager = new Auth0ResourceScopeManager(resourceServer, resourceServerIdentifier,
+                scopeWriteBuffer);
+        scopeCatalog = new Auth0ScopeCatalog(resourceServer, resourceServerIdentifier, scopeWriteBuffer);
+        Auth0ClientGrants clientGrants = Feign.builder().client(trafficLanes.getManagementClient())
+                .encoder(new GsonEncoder()).decoder(new GsonDecoder()).logger(feignLogger)
+                .logLevel(Logger.Level.BASIC).requestInterceptor(auth0APIKeyInterceptor)
+                .target(Auth0ClientGrants.class, configuration.getAudience().concat("client-grants"));
+        clientGrantProvisioner = new Auth0ClientGrantProvisioner(configuration.getName(), clientGrants,
+                resourceServerIdentifier, scopeCatalog, journal);
+        Auth0AsyncHttpExecutor asyncHttpExecutor = new Auth0AsyncHttpExecutor(trafficLanes,
+                auth0APIKeyInterceptor, asyncDecodeExecutor);
+        asyncDCRClient = new Auth0AsyncDCRClientImpl(asyncHttpExecutor, clientRegistrationEndpoint,
+                createdClient -> clientGrantProvisioner.grant(createdClient.getClientId()));
+        asyncResourceServer = new Auth0AsyncResourceServerImpl(asyncHttpExecutor, resourceServerEndpoint);
+        if (checkpointStore != null) {
+            Auth0Logs logsClient = Feign.builder().client(trafficLanes.getManagementClient())
+                    .decoder(new GsonDecoder()).requestInterceptor(auth0APIKeyInterceptor)
+                    .target(Auth0Logs.class, configuration.getAudience().concat("logs"));
+            changeFeedPoller = new Auth0ChangeFeedPoller(configuration.getName(), logsClient, checkpointStore,
+                    changeFeedListener);
+        } else {
+            changeFeedPoller = null;
+        }
+    }
+
+    /**
+     * Creates the WSO2 resource server in the tenant if it does not exist yet. Once the resource server is known to
+     * exist this returns right away.
+     */
+    public void checkAndCreateResourceServer() {
+        if (resourceServerReady) {
+            return;
+        }
+        try {
+            Auth0ResourceServerInfo resourceServerInfo = new Auth0ResourceServerInfo();
+            resourceServerInfo.setIdentifier(resourceServerIdentifier);
+            resourceServerInfo.setName(Auth0Constants.AUTH0_RESOURCE_SERVER);
+            resourceServerInfo.setTokenLifetime(Auth0Constants.DEFAULT_TOKEN_LIFETIME);
+            Auth0ResourceServerInfo createdResourceServer = resourceServer.createResourceServer(resourceServerInfo);
+            if (createdResourceServer != null) {
+                resourceServerReady = true;
+                journal.record(Auth0Event.of(Auth0EventType.RESOURCE_SERVER_CREATED, getName(), null,
+                        resourceServerIdentifier));
+            } else {
+                log.error("Error while creating resource server for : " + resourceServerIdentifier
+                        + " in tenant : " + getName());
+            }
+        } catch (FeignException exception) {
+            if (exception.status() == 409) {
+                resourceServerReady = true;
+            } else {
+                log.error("Error while creating resource server for : " + resourceServerIdentifier
+                        + " in tenant : " + getName(), exception);
+            }
+        }
+    }
+
+    /**
+     * Obtains a management API token, to find out whether the credentials of the tenant are valid.
+     *
+     * @throws APIManagementException if no token could be obtained.
+     */
+    public void verifyCredentials() throws APIManagementException {
+        try {
+            auth0APIKeyInterceptor.verify();
+        } catch (APIManagementException e) {
+            throw new APIManagementException("Could not connect to Auth0 tenant : " + getName(), e);
+        }
+    }
+
+    /**
+     * Prepares the switch of the tenant to changed credentials or token endpoints, without creating new clients. A
+     * token is obtained with changed credentials, so that a configuration is only applied once the credentials of all
+     * its tenants were found valid, and nothing is changed on the tenant until the update is applied.
+     *
+     * @param updatedConfiguration configuration of the tenant with the same name and audience.
+     * @return the update, to be passed to {@link #applyCredentials(CredentialsUpdate)}.
+     * @throws APIManagementException if no token could be obtained with the new credentials.
+     */
+    public CredentialsUpdate verifyCredentials(Auth0TenantConfiguration updatedConfiguration)
+            throws APIManagementException {
+        Auth0TenantConfiguration current = configuration;
+        List<String> updatedTokenEndpointUrls = updatedConfiguration.getTokenEndpoints();
+        Auth0TokenEndpointGroup updatedTokenEndpoints = tokenEndpoints.hasEndpoints(updatedTokenEndpointUrls)
+                ? tokenEndpoints : new Auth0TokenEndpointGroup(updatedTokenEndpointUrls,
+                trafficLanes.getHttpClient(Auth0TrafficClass.TOKEN));
+        boolean credentialsChanged = updatedTokenEndpoints != tokenEndpoints
+                || !StringUtils.equals(current.getClientId(), updatedConfiguration.getClientId())
+                || !StringUtils.equals(current.getClientSecret(), updatedConfiguration.getClientSecret());
+        if (credentialsChanged) {
+            try {
+                auth0APIKeyInterceptor.verify(updatedTokenEndpoints, updatedConfiguration.getClientId(),
+                        updatedConfiguration.getClientSecret());
+            } catch (APIManagementException e) {
+                throw new APIManagementException("Could not connect to Auth0 tenant " + getName()
+                        + " with the updated credentials", e);
+            }
+        }
+        return new CredentialsUpdate(updatedConfiguration, updatedTokenEndpoints, credentialsChanged);
+    }
+
+    /**
+     * Switches the tenant to credentials verified with {@link #verifyCredentials(Auth0TenantConfiguration)}. Makes
+     * no call to the tenant.
+     *
+     * @param update verified update of the tenant.
+     */
+    public void applyCredentials(CredentialsUpdate update) {
+        if (update.credentialsChanged) {
+            auth0APIKeyInterceptor.updateCredentials(update.tokenEndpoints, update.configuration.getClientId(),
+                    update.configuration.getClientSecret());
+        }
+        if (update.tokenEndpoints != tokenEndpoints) {
+            update.tokenEndpoints.registerMetrics(getName(), metrics);
+            tokenEndpoints = update.tokenEndpoints;
+        }
+        configuration = update.configuration;
+    }
+
+    /**
+     * Verified change of the credentials or token endpoints of a tenant, not applied yet.
+     */
+    public static final class CredentialsUpdate {
+        private final Auth0TenantConfiguration configuration;
+        private final Auth0TokenEndpointGroup tokenEndpoints;
+        private final boolean credentialsChanged;
+
+        private CredentialsUpdate(Auth0TenantConfiguration configuration, Auth0TokenEndpointGroup tokenEndpoints,
+                                  boolean credentialsChanged) {
+            this.configuration = configuration;
+            this.tokenEndpoints = tokenEndpoints;
+            this.credentialsChanged = credentialsChanged;
+        }
+    }
+
+    /**
+     * Applies a change of a resource server read from the tenant log. Changes to the WSO2 resource server refresh the
+     * scope catalog, and its deletion makes the next request create it again.
+     *
+     * @param resourceServerId id or identifier of the changed resource server.
+     * @param changeType       kind of change.
+     */
+    public void onResourceServerChanged(String resourceServerId, Auth0ChangeType changeType) {
+        if (!scopeCatalog.isResourceServer(resourceServerId)) {
+            return;
+        }
+        if (changeType == Auth0ChangeType.DELETED) {
+            resourceServerReady = false;
+        } else {
+            scopeCatalog.refresh();
+        }
+    }
+
+    /**
+     * Brings the scopes of this tenant in line with those of the primary tenant, which is the one API Manager reads
+     * scopes from, by queueing the scopes to add, update or remove on the scope write buffer. Called right after the
+     * primary catalog was refreshed, so that it is compared at its freshest; a write which has not reached the
+     * catalog of this tenant yet is only queued again, since scope writes are idempotent.
+     *
+     * @param primaryCatalog scope catalog of the primary tenant.
+     */
+    public void reconcileScopes(Auth0ScopeCatalog primaryCatalog) {
+        if (!primaryCatalog.isLoaded() || !scopeCatalog.isLoaded()) {
+            return;
+        }
+        Map<String, Scope> expectedScopes = primaryCatalog.getSnapshot().getScopes();
+        Map<String, Scope> currentScopes = scopeCatalog.getSnapshot().getScopes();
+        int changes = 0;
+        for (Scope scope : expectedScopes.values()) {
+            Scope currentScope = currentScopes.get(scope.getKey());
+            if (currentScope == null || !Objects.equals(currentScope.getDescription(), scope.getDescription())) {
+                scopeWriteBuffer.upsert(Auth0ResourceScopeManager.toAuth0Scope(scope));
+                changes++;
+            }
+        }
+        for (String scopeName : currentScopes.keySet()) {
+            if (!expectedScopes.containsKey(scopeName)) {
+                scopeWriteBuffer.remove(scopeName);
+                changes++;
+            }
+        }
+        if (changes > 0) {
+            log.info("Reconciling " + changes + " scopes of tenant " + getName() + " with the primary tenant");
+        }
+    }
+
+    /**
+     * Starts the background refresh of the scope catalog of the tenant and, if enabled, the polling of its log.
+     */
+    public void start() {
+        scopeCatalog.start(Auth0Constants.SCOPE_CATALOG_REFRESH_INTERVAL_SECONDS);
+        if (changeFeedPoller != null) {
+            changeFeedPoller.start(Auth0Constants.CHANGE_FEED_POLL_INTERVAL_SECONDS);
+        }
+    }
+
+    public void close() {
+        if (changeFeedPoller != null) {
+            changeFeedPoller.close();
+        }
+        scopeCatalog.close();
+        scopeWriteBuffer.close();
+        clientGrantProvisioner.close();
+    }
+
+    public String getName() {
+        return configuration.getName();
+    }
+
+    public String getAudience() {
+        return configuration.getAudience();
+    }
+
+    public String getResourceServerIdentifier() {
+        return resourceServerIdentifier;
+    }
+
+    public Auth0TrafficLanes getTrafficLanes() {
+        return trafficLanes;
+    }
+
+    /**
+     * Returns the token endpoints application token requests are sent to.
+     */
+    public Auth0TokenEndpointGroup getTokenEndpoints() {
+        return tokenEndpoints;
+    }
+
+    public Auth0DCRClient getDCRClient() {
+        return dcrClient;
+    }
+
+    public Auth0ResourceServer getResourceServer() {
+        return resourceServer;
+    }
+
+    public Auth0AsyncDCRClient getAsyncDCRClient() {
+        return asyncDCRClient;
+    }
+
+    public Auth0AsyncResourceServer getAsyncResourceServer() {
+        return asyncResourceServer;
+    }
+
+    public Auth0ScopeWriteBuffer getScopeWriteBuffer() {
+        return scopeWriteBuffer;
+    }
+
+    public Auth0ResourceScopeManager getResourceScopeManager() {
+        return resourceScopeManager;
+    }
+
+    public Auth0ScopeCatalog getScopeCatalog() {
+        return scopeCatalog;
+    }
+
+    /**
+     * Returns the provisioner granting the clients of the tenant to the WSO2 resource server.
+     */
+    public Auth0ClientGrantProvisioner getClientGrantProvisioner() {
+        return clientGrantProvisioner;
+    }
+}
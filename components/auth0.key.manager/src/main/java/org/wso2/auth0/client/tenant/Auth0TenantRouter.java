@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.tenant;
+
+import feign.FeignException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.registry.Auth0ClientRegistry;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Places applications on Auth0 tenants and routes the operations on a client to the tenant that owns it.
+ * <p>
+ * New applications are placed on a consistent hash ring of the tenants, keyed by the application name, so that a
+ * given application always lands on the same tenant and adding a tenant only moves a proportional share of new
+ * placements. Since Auth0 generates the client id, the owner of a client is recorded in the client owner store when
+ * it is created, and clients this node has not seen yet are looked up in the client registry, if there is one, or
+ * else in each tenant, once.
+ */
+public class Auth0TenantRouter {
+    private static final Log log = LogFactory.getLog(Auth0TenantRouter.class);
+    private final List<Auth0Tenant> tenants;
+    private final Map<String, Auth0Tenant> tenantsByName = new HashMap<>();
+    private final TreeMap<Long, Auth0Tenant> ring = new TreeMap<>();
+    private final Auth0ClientOwnerStore clientOwners;
+    private final Auth0ClientRegistry clientRegistry;
+
+    /**
+     * Creates a router over the given tenants.
+     *
+     * @param tenants        tenants, the first one being the primary tenant.
+     * @param clientOwners   store of the tenants that own the clients seen so far.
+     * @param clientRegistry replica of the clients of the tenants, or {@code null}.
+     */
+    public Auth0TenantRouter(List<Auth0Tenant> tenants, Auth0ClientOwnerStore clientOwners,
+                             Auth0ClientRegistry clientRegistry) {
+        this.tenants = Collections.unmodifiableList(new ArrayList<>(tenants));
+        this.clientOwners = clientOwners;
+        this.clientRegistry = clientRegistry;
+        for (Auth0Tenant tenant : tenants) {
+            tenantsByName.put(tenant.getName(), tenant);
+            for (int i = 0; i < Auth0Constants.TENANT_RING_VIRTUAL_NODES; i++) {
+                ring.put(hash(tenant.getName() + "#" + i), tenant);
+            }
+        }
+    }
+
+    /**
+     * Returns the tenant the primary key manager configuration points to.
+     */
+    public Auth0Tenant getPrimary() {
+        return tenants.get(0);
+    }
+
+    public List<Auth0Tenant> getTenants() {
+        return tenants;
+    }
+
+    public Auth0ClientOwnerStore getClientOwners() {
+        return clientOwners;
+    }
+
+    /**
+     * Returns the tenant with the given name, or {@code null} if there is none.
+     */
+    public Auth0Tenant getTenant(String name) {
+        return tenantsByName.get(name);
+    }
+
+    /**
+     * Picks the tenant a new application is created on.
+     *
+     * @param applicationName name of the new application.
+     * @return an {@code Auth0Tenant}
+     */
+    public Auth0Tenant place(String applicationName) {
+        if (tenants.size() == 1) {
+            return getPrimary();
+        }
+        SortedMap<Long, Auth0Tenant> tail = ring.tailMap(hash(String.valueOf(applicationName)));
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    /**
+     * Records the tenant a client was created on.
+     */
+    public void assign(String clientId, Auth0Tenant tenant) {
+        if (tenants.size() > 1) {
+            clientOwners.put(clientId, tenant.getName());
+        }
+    }
+
+    /**
+     * Returns the tenant that owns a client.
+     *
+     * @param clientId client id.
+     * @return an {@code Auth0Tenant}
+     * @throws APIManagementException if no tenant owns the client.
+     */
+    public Auth0Tenant route(String clientId) throws APIManagementException {
+        if (tenants.size() == 1) {
+            return getPrimary();
+        }
+        String owner = getKnownOwner(clientId);
+        if (owner != null && tenantsByName.containsKey(owner)) {
+            return tenantsByName.get(owner);
+        }
+        for (Auth0Tenant tenant : tenants) {
+            try {
+                tenant.getDCRClient().getApplication(clientId);
+                clientOwners.put(clientId, tenant.getName());
+                return tenant;
+            } catch (FeignException e) {
+                if (e.status() != 404) {
+                    throw new APIManagementException("Error while looking up client " + clientId + " in tenant : "
+                            + tenant.getName(), e);
+                }
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Client " + clientId + " was not found in any tenant");
+        }
+        throw new APIManagementException("Client " + clientId + " was not found in any Auth0 tenant");
+    }
+
+    /**
+     * Checks, without calling Auth0, whether a tenant is known to own a client.
+     *
+     * @param tenant   tenant.
+     * @param clientId client id.
+     * @return {@code true} if the client is known to be in the tenant.
+     */
+    public boolean isKnownOwner(Auth0Tenant tenant, String clientId) {
+        if (tenants.size() == 1) {
+            return tenant == getPrimary();
+        }
+        return tenant.getName().equals(getKnownOwner(clientId));
+    }
+
+    private String getKnownOwner(String clientId) {
+        String owner = clientOwners.get(clientId);
+        if (owner == null && clientRegistry != null) {
+            owner = clientRegistry.getTenantName(clientId);
+        }
+        return owner;
+    }
+
+    /**
+     * Forgets the owner of a deleted client.
+     */
+    public void forget(String clientId) {
+        if (tenants.size() > 1) {
+            clientOwners.remove(clientId);
+        }
+    }
+
+    private static long hash(String key) {
+        byte[] digest = DigestUtils.md5(key.getBytes(StandardCharsets.UTF_8));
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (digest[i] & 0xff);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.token;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.util.Auth0ThreadFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ledger of the tokens issued through the key manager, indexed by consumer key and ordered by expiry. Auth0 has no API
+ * to list the tokens of a client, so this ledger is what backs the token lookups by consumer key.
+ * <p>
+ * Tokens are kept by identifier rather than in full, which keeps the ledger small with Auth0 tokens being JWTs of a
+ * kilobyte or more: the identifier is the {@code jti} claim of the token or, without one, its signature, which is
+ * what the gateway caches and revokes JWTs by. Only the latest token of each consumer key is kept in full, so that it
+ * can be returned by consumer key. Each token is a single {@code IssuedToken}, which all the indexes refer to.
+ * <p>
+ * Expired tokens are purged incrementally by a hashed timing wheel: each token is placed in the slot of its expiry
+ * time and every tick only visits the entries of one slot, so purging never scans the whole ledger. The ledger is
+ * bounded both per consumer key and in total: a consumer key over its bound drops its own token expiring first, and
+ * a full ledger drops the token expiring first across all consumer keys.
+ */
+public class Auth0IssuedTokenLedger {
+    private static final Log log = LogFactory.getLog(Auth0IssuedTokenLedger.class);
+    private static final Comparator<IssuedToken> EXPIRY_ORDER = Comparator
+            .comparingLong(IssuedToken::getExpiresAt).thenComparing(IssuedToken::getTokenId);
+    private final Map<String, ConsumerTokens> consumerTokens = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<IssuedToken> allByExpiry = new ConcurrentSkipListSet<>(EXPIRY_ORDER);
+    private final AtomicReferenceArray<ConcurrentLinkedQueue<IssuedToken>> wheel;
+    // Held shared while adding to a slot and exclusively while swapping a slot out, so that no token is added to a
+    // slot that was already swapped out.
+    private final ReadWriteLock wheelLock = new ReentrantReadWriteLock();
+    private final AtomicInteger size = new AtomicInteger();
+    private final long tickMillis;
+    private final int maxTokens;
+    private final int maxTokensPerConsumer;
+    private final ScheduledExecutorService scheduler;
+    private long lastTick;
+
+    /**
+     * Token recorded in the ledger.
+     */
+    public static final class IssuedToken {
+        private final String consumerKey;
+        private final String tokenId;
+        private final String scope;
+        private final long issuedAt;
+        private final long expiresAt;
+        // Only set while this is the latest token of its consumer key, guarded by the monitor of its ConsumerTokens.
+        private volatile String accessToken;
+        private volatile boolean removed;
+
+        IssuedToken(String consumerKey, String tokenId, String accessToken, String scope, long issuedAt,
+                    long expiresAt) {
+            this.consumerKey = consumerKey;
+            this.tokenId = tokenId;
+            this.accessToken = accessToken;
+            this.scope = scope;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getConsumerKey() {
+            return consumerKey;
+        }
+
+        /**
+         * Returns the identifier of the token, its {@code jti} claim or, without one, its signature.
+         */
+        public String getTokenId() {
+            return tokenId;
+        }
+
+        /**
+         * Returns the token, which is only kept for the latest token of a consumer key.
+         */
+        public String getAccessToken() {
+            return accessToken;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public long getIssuedAt() {
+            return issuedAt;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    /**
+     * Tokens of one consumer key. Guarded by its own monitor, which is only contended by calls for the same key.
+     */
+    private static final class ConsumerTokens {
+        private final Map<String, IssuedToken> byTokenId = new HashMap<>();
+        private final TreeSet<IssuedToken> byExpiry = new TreeSet<>(EXPIRY_ORDER);
+    }
+
+    public Auth0IssuedTokenLedger(long tickMillis, int wheelSize, int maxTokens, int maxTokensPerConsumer) {
+        this.tickMillis = tickMillis;
+        this.maxTokens = maxTokens;
+        this.maxTokensPerConsumer = maxTokensPerConsumer;
+        this.wheel = new AtomicReferenceArray<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.set(i, new ConcurrentLinkedQueue<IssuedToken>());
+        }
+        this.lastTick = System.currentTimeMillis() / tickMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new Auth0ThreadFactory("auth0-token-ledger"));
+        scheduler.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records a token issued to a consumer key. Recording a token which is already in the ledger has no effect.
+     *
+     * @param consumerKey   consumer key the token was issued to.
+     * @param accessToken   issued token.
+     * @param scope         scopes of the token separated by space.
+     * @param validitySecs  remaining lifetime of the token in seconds.
+     */
+    public void record(String consumerKey, String accessToken, String scope, long validitySecs) {
+        if (consumerKey == null || accessToken == null || validitySecs <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        IssuedToken issuedToken = new IssuedToken(consumerKey, tokenIdOf(accessToken), accessToken,
+                scope, now, now + validitySecs * 1000L);
+        while (true) {
+            ConsumerTokens tokens = consumerTokens.computeIfAbsent(consumerKey, key -> new ConsumerTokens());
+            synchronized (tokens) {
+                // The entry may have been dropped by a concurrent purge or removal, in which case a new one is used.
+                if (consumerTokens.get(consumerKey) != tokens) {
+                    continue;
+                }
+                if (tokens.byTokenId.containsKey(issuedToken.tokenId)) {
+                    return;
+                }
+                if (tokens.byExpiry.size() >= maxTokensPerConsumer) {
+                    remove(tokens, tokens.byExpiry.first());
+                }
+                if (!tokens.byExpiry.isEmpty()) {
+                    IssuedToken latest = tokens.byExpiry.last();
+                    if (EXPIRY_ORDER.compare(latest, issuedToken) > 0) {
+                        issuedToken.accessToken = null;
+                    } else {
+                        latest.accessToken = null;
+                    }
+                }
+                tokens.byTokenId.put(issuedToken.tokenId, issuedToken);
+                tokens.byExpiry.add(issuedToken);
+                allByExpiry.add(issuedToken);
+                size.incrementAndGet();
+                break;
+            }
+        }
+        wheelLock.readLock().lock();
+        try {
+            wheel.get(slotOf(issuedToken.expiresAt)).add(issuedToken);
+        } finally {
+            wheelLock.readLock().unlock();
+        }
+        // Trim outside the monitor of the consumer key, as evicting takes the monitor of another key.
+        while (size.get() > maxTokens) {
+            if (!evictFirstExpiring()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the identifiers of the tokens of a consumer key which have not expired.
+     *
+     * @param consumerKey consumer key.
+     * @return the {@code jti}, or signature, of the active tokens, ordered by expiry.
+     */
+    public Set<String> getActiveTokens(String consumerKey) {
+        Set<String> activeTokens = new LinkedHashSet<>();
+        ConsumerTokens tokens = consumerTokens.get(consumerKey);
+        if (tokens == null) {
+            return activeTokens;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (tokens) {
+            for (IssuedToken issuedToken : tokens.byExpiry) {
+                if (issuedToken.expiresAt > now) {
+                    activeTokens.add(issuedToken.tokenId);
+                }
+            }
+        }
+        return activeTokens;
+    }
+
+    /**
+     * Returns the active token of a consumer key which expires last, the only one kept in full.
+     *
+     * @param consumerKey consumer key.
+     * @return the token, or {@code null} if the consumer key has no active token or its latest token was dropped.
+     */
+    public IssuedToken getLatestToken(String consumerKey) {
+        ConsumerTokens tokens = consumerTokens.get(consumerKey);
+        if (tokens == null) {
+            return null;
+        }
+        synchronized (tokens) {
+            if (tokens.byExpiry.isEmpty()) {
+                return null;
+            }
+            IssuedToken issuedToken = tokens.byExpiry.last();
+            return issuedToken.accessToken != null && issuedToken.expiresAt > System.currentTimeMillis()
+                    ? issuedToken : null;
+        }
+    }
+
+    /**
+     * Returns the consumer keys tokens were recorded for.
+     */
+    public Set<String> getConsumerKeys() {
+        return new HashSet<>(consumerTokens.keySet());
+    }
+
+    /**
+     * Removes all tokens of a consumer key.
+     *
+     * @param consumerKey consumer key.
+     */
+    public void removeConsumer(String consumerKey) {
+        ConsumerTokens tokens = consumerTokens.remove(consumerKey);
+        if (tokens == null) {
+            return;
+        }
+        synchronized (tokens) {
+            for (IssuedToken issuedToken : tokens.byExpiry) {
+                issuedToken.removed = true;
+                allByExpiry.remove(issuedToken);
+            }
+            size.addAndGet(-tokens.byExpiry.size());
+            tokens.byExpiry.clear();
+            tokens.byTokenId.clear();
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void remove(ConsumerTokens tokens, IssuedToken issuedToken) {
+        if (tokens.byTokenId.remove(issuedToken.tokenId) != null) {
+            tokens.byExpiry.remove(issuedToken);
+            allByExpiry.remove(issuedToken);
+            issuedToken.removed = true;
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the {@code jti} claim of a JWT or, without one, its signature. Tokens which are not JWTs are their own
+     * identifier.
+     */
+    static String tokenIdOf(String accessToken) {
+        int payloadStart = accessToken.indexOf('.');
+        int signatureStart = accessToken.lastIndexOf('.');
+        if (payloadStart < 0 || signatureStart == payloadStart) {
+            return accessToken;
+        }
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(accessToken.substring(payloadStart + 1, signatureStart));
+            JsonElement claims = new JsonParser().parse(new String(payload, StandardCharsets.UTF_8));
+            if (claims.isJsonObject()) {
+                JsonElement jwtId = claims.getAsJsonObject().get("jti");
+                if (jwtId != null && jwtId.isJsonPrimitive()) {
+                    return jwtId.getAsString();
+                }
+            }
+        } catch (IllegalArgumentException | JsonParseException e) {
+            log.debug("Could not read the claims of an issued token", e);
+        }
+        return accessToken.substring(signatureStart + 1);
+    }
+
+    private int slotOf(long time) {
+        return (int) ((time / tickMillis) % wheel.length());
+    }
+
+    /**
+     * Processes the slots of all ticks elapsed since the previous run. Entries of a slot which are not yet due belong
+     * to a later revolution of the wheel and are put back.
+     */
+    private void advance() {
+        try {
+            long now = System.currentTimeMillis();
+            long currentTick = now / tickMillis;
+            long firstTick = Math.max(lastTick + 1, currentTick - wheel.length() + 1);
+            for (long tick = firstTick; tick <= currentTick; tick++) {
+                int slot = (int) (tick % wheel.length());
+                ConcurrentLinkedQueue<IssuedToken> entries;
+                wheelLock.writeLock().lock();
+                try {
+                    entries = wheel.getAndSet(slot, new ConcurrentLinkedQueue<IssuedToken>());
+                } finally {
+                    wheelLock.writeLock().unlock();
+                }
+                for (IssuedToken issuedToken : entries) {
+                    if (issuedToken.removed) {
+                        continue;
+                    }
+                    if (issuedToken.expiresAt <= now) {
+                        expire(issuedToken);
+                    } else {
+                        // Only this thread swaps slots out, so the current queue of the slot stays in the wheel.
+                        wheel.get(slot).add(issuedToken);
+                    }
+                }
+            }
+            lastTick = currentTick;
+        } catch (RuntimeException e) {
+            log.error("Error while purging expired tokens from the issued token ledger", e);
+        }
+    }
+
+    /**
+     * Drops the token expiring first across all consumer keys, to make room in a full ledger.
+     *
+     * @return {@code false} if the ledger is empty.
+     */
+    private boolean evictFirstExpiring() {
+        IssuedToken issuedToken = allByExpiry.pollFirst();
+        if (issuedToken == null) {
+            return false;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Issued token ledger is full, dropping a token of " + issuedToken.consumerKey);
+        }
+        expire(issuedToken);
+        return true;
+    }
+
+    private void expire(IssuedToken issuedToken) {
+        ConsumerTokens tokens = consumerTokens.get(issuedToken.consumerKey);
+        if (tokens == null) {
+            return;
+        }
+        synchronized (tokens) {
+            remove(tokens, issuedToken);
+            if (tokens.byExpiry.isEmpty()) {
+                consumerTokens.remove(issuedToken.consumerKey, tokens);
+            }
+        }
+    }
+}
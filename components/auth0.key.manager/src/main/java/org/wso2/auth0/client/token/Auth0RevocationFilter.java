@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.token;
+
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.ITopic;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revocation filter for tokens validated locally. Holds a "not before" time per revoked client, and any token issued
+ * to the client before that time is treated as revoked. An entry is kept only for the longest token lifetime, after
+ * which every token it could match has expired anyway.
+ * <p>
+ * The filter is shared by the key manager, which populates it when a client is deleted or its secret is rotated, and
+ * the JWT validator, which consults it for every token. When clustering is enabled, revocations are published to the
+ * other nodes of the cluster and kept in a distributed map for nodes that join later. Nodes outside the cluster only
+ * learn about revocations made elsewhere through the change feed.
+ */
+public class Auth0RevocationFilter {
+    private static final Log log = LogFactory.getLog(Auth0RevocationFilter.class);
+    private static final Auth0RevocationFilter instance =
+            new Auth0RevocationFilter(Auth0Constants.DEFAULT_TOKEN_LIFETIME);
+    private final Map<String, Long> notBefore = new ConcurrentHashMap<>();
+    private final long retentionSeconds;
+    private IMap<String, Long> clusterNotBefore;
+    private ITopic<String> clusterRevocations;
+    private String clusterListenerId;
+
+    Auth0RevocationFilter(long retentionSeconds) {
+        this.retentionSeconds = retentionSeconds;
+    }
+
+    public static Auth0RevocationFilter getInstance() {
+        return instance;
+    }
+
+    /**
+     * Revokes all tokens issued to the client so far.
+     *
+     * @param clientId client whose tokens are revoked.
+     */
+    public void revoke(String clientId) {
+        revoke(clientId, System.currentTimeMillis() / 1000L);
+    }
+
+    /**
+     * Revokes the tokens issued to the client before the given time, for example when a change made elsewhere is
+     * learnt about after the fact. An earlier time never overrides a later revocation of the same client.
+     *
+     * @param clientId          client whose tokens are revoked.
+     * @param revokedAtSeconds  time of the revocation, in seconds since the epoch.
+     */
+    public void revoke(String clientId, long revokedAtSeconds) {
+        revokeLocally(clientId, revokedAtSeconds);
+        publish(clientId, revokedAtSeconds);
+    }
+
+    /**
+     * Shares revocations with the other nodes of a cluster, and applies the revocations they made so far.
+     *
+     * @param hazelcastInstance cluster to share revocations with.
+     */
+    public synchronized void attachCluster(HazelcastInstance hazelcastInstance) {
+        detachCluster();
+        try {
+            IMap<String, Long> revokedClients = hazelcastInstance.getMap(
+                    Auth0Constants.REVOCATION_FILTER_CLUSTER_NAME);
+            ITopic<String> revocations = hazelcastInstance.getTopic(Auth0Constants.REVOCATION_FILTER_CLUSTER_NAME);
+            clusterListenerId = revocations.addMessageListener(
+                    message -> applyRevocation(message.getMessageObject()));
+            for (Map.Entry<String, Long> revokedClient : revokedClients.entrySet()) {
+                revokeLocally(revokedClient.getKey(), revokedClient.getValue());
+            }
+            clusterNotBefore = revokedClients;
+            clusterRevocations = revocations;
+        } catch (HazelcastException e) {
+            log.warn("Could not share token revocations with the cluster", e);
+        }
+    }
+
+    /**
+     * Stops sharing revocations with the cluster.
+     */
+    public synchronized void detachCluster() {
+        if (clusterRevocations != null) {
+            try {
+                clusterRevocations.removeMessageListener(clusterListenerId);
+            } catch (HazelcastException e) {
+                log.debug("Could not remove token revocation listener", e);
+            }
+        }
+        clusterNotBefore = null;
+        clusterRevocations = null;
+        clusterListenerId = null;
+    }
+
+    /**
+     * Waits until the second in which the client was last revoked has passed, so that a token issued now is not
+     * taken for a token issued in the same second before the revocation. Returns right away unless the client was
+     * revoked in the current second.
+     *
+     * @param clientId client a token is about to be issued to.
+     */
+    public void awaitRevocationSecond(String clientId) {
+        Long revokedAt = notBefore.get(clientId);
+        if (revokedAt == null) {
+            return;
+        }
+        long waitMillis = (revokedAt + 1) * 1000L - System.currentTimeMillis();
+        if (waitMillis > 0 && waitMillis <= 1000L) {
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void revokeLocally(String clientId, long revokedAtSeconds) {
+        notBefore.merge(clientId, revokedAtSeconds, Math::max);
+        if (notBefore.size() % Auth0Constants.REVOCATION_FILTER_PURGE_INTERVAL == 0) {
+            purgeExpired(System.currentTimeMillis() / 1000L);
+        }
+    }
+
+    private void publish(String clientId, long revokedAtSeconds) {
+        IMap<String, Long> revokedClients;
+        ITopic<String> revocations;
+        synchronized (this) {
+            revokedClients = clusterNotBefore;
+            revocations = clusterRevocations;
+        }
+        if (revocations == null) {
+            return;
+        }
+        try {
+            Long current = revokedClients.get(clientId);
+            if (current == null || current < revokedAtSeconds) {
+                revokedClients.set(clientId, revokedAtSeconds, retentionSeconds, TimeUnit.SECONDS);
+            }
+            revocations.publish(clientId + " " + revokedAtSeconds);
+        } catch (HazelcastException e) {
+            log.warn("Could not publish revocation of client " + clientId + " to the cluster", e);
+        }
+    }
+
+    private void applyRevocation(String revocation) {
+        int separator = revocation.lastIndexOf(' ');
+        try {
+            revokeLocally(revocation.substring(0, separator), Long.parseLong(revocation.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed token revocation : " + revocation, e);
+        }
+    }
+
+    /**
+     * Checks whether a token is revoked.
+     *
+     * @param clientId         client the token was issued to.
+     * @param issuedAtSeconds  issue time of the token, in seconds since the epoch.
+     * @return {@code true} if the token was issued before the client was revoked, or in the same second, since
+     *         issue times only have second precision.
+     */
+    public boolean isRevoked(String clientId, long issuedAtSeconds) {
+        if (clientId == null || notBefore.isEmpty()) {
+            return false;
+        }
+        Long revokedAt = notBefore.get(clientId);
+        if (revokedAt == null) {
+            return false;
+        }
+        if (revokedAt + retentionSeconds < System.currentTimeMillis() / 1000L) {
+            notBefore.remove(clientId, revokedAt);
+            return false;
+        }
+        return issuedAtSeconds <= revokedAt;
+    }
+
+    public int size() {
+        return notBefore.size();
+    }
+
+    private void purgeExpired(long now) {
+        for (Iterator<Long> iterator = notBefore.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next() + retentionSeconds < now) {
+                iterator.remove();
+            }
+        }
+    }
+}
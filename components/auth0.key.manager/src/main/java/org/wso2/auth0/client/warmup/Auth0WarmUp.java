@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.warmup;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.bulkhead.Auth0TrafficClass;
+import org.wso2.auth0.client.scope.Auth0ScopeCatalog;
+import org.wso2.auth0.client.scope.Auth0ScopeEncoder;
+import org.wso2.auth0.client.tenant.Auth0Tenant;
+import org.wso2.auth0.client.util.Auth0ThreadFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Brings a freshly configured key manager to its steady state in the background, so that the first requests do not
+ * pay for what only the first requests pay for. It opens a few connections to the token and management API hosts of
+ * every tenant and leaves them in the connection pools, which also resolves the hosts and completes the TLS
+ * handshakes, opens a connection to the JWKS endpoint as well, encodes the scopes of the scope catalog once it is
+ * loaded, and runs the request and response mapping code on synthetic applications until it is compiled. The JWKS
+ * itself is not kept, since the JWT validator of the gateway caches the keys it fetches on its own.
+ * <p>
+ * The connections are opened with unauthenticated {@code HEAD} requests, whose responses are discarded, so the
+ * warm-up does not count against the management API rate limit.
+ */
+public class Auth0WarmUp {
+    private static final Log log = LogFactory.getLog(Auth0WarmUp.class);
+    private final List<Auth0Tenant> tenants;
+    private final String jwksEndpoint;
+    private final Auth0ScopeEncoder scopeEncoder;
+    private final Runnable mappingIteration;
+    private ExecutorService executor;
+    private volatile boolean completed;
+
+    /**
+     * Creates the warm-up of a configuration.
+     *
+     * @param tenants          tenants whose connections are opened, the first one being the primary tenant.
+     * @param jwksEndpoint     JWKS endpoint of the key manager, or {@code null}.
+     * @param scopeEncoder     encoder the scopes of the primary tenant are encoded with, or {@code null} to leave
+     *                         them cold.
+     * @param mappingIteration one synthetic run of the mapping code, or {@code null} to leave it cold.
+     */
+    public Auth0WarmUp(List<Auth0Tenant> tenants, String jwksEndpoint, Auth0ScopeEncoder scopeEncoder,
+                       Runnable mappingIteration) {
+        this.tenants = new ArrayList<>(tenants);
+        this.jwksEndpoint = jwksEndpoint;
+        this.scopeEncoder = scopeEncoder;
+        this.mappingIteration = mappingIteration;
+    }
+
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(new Auth0ThreadFactory("auth0-warm-up"));
+        executor.execute(this::warmUp);
+    }
+
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns whether the warm-up has run to the end.
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    private void warmUp() {
+        long startedAt = System.nanoTime();
+        try {
+            List<Call> calls = new ArrayList<>();
+            for (Auth0Tenant tenant : tenants) {
+                for (String tokenEndpoint : tenant.getTokenEndpoints().getUrls()) {
+                    calls.addAll(openConnections(tenant.getTrafficLanes().getHttpClient(Auth0TrafficClass.TOKEN),
+                            tokenEndpoint));
+                }
+                calls.addAll(openConnections(tenant.getTrafficLanes().getHttpClient(
+                        Auth0TrafficClass.MANAGEMENT_READ), tenant.getAudience()));
+                calls.addAll(openConnections(tenant.getTrafficLanes().getHttpClient(
+                        Auth0TrafficClass.MANAGEMENT_WRITE), tenant.getAudience()));
+            }
+            if (StringUtils.isNotBlank(jwksEndpoint) && !tenants.isEmpty()) {
+                calls.add(tenants.get(0).getTrafficLanes().getHttpClient(Auth0TrafficClass.TOKEN)
+                        .newCall(new Request.Builder().url(jwksEndpoint).head().build()));
+            }
+            if (!awaitAll(calls)) {
+                return;
+            }
+            if (scopeEncoder != null && !tenants.isEmpty() && !encodeScopes(tenants.get(0).getScopeCatalog())) {
+                return;
+            }
+            if (mappingIteration != null) {
+                for (int i = 0; i < Auth0Constants.WARM_UP_MAPPING_ITERATIONS; i++) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    mappingIteration.run();
+                }
+            }
+            completed = true;
+            log.info("Auth0 key manager warmed up in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)
+                    + " ms");
+        } catch (RuntimeException e) {
+            log.warn("Error while warming up the Auth0 key manager, requests will warm it up instead", e);
+        }
+    }
+
+    /**
+     * Encodes the scopes of the catalog, once the catalog has been loaded from the resource server.
+     *
+     * @return {@code false} if interrupted.
+     */
+    private boolean encodeScopes(Auth0ScopeCatalog scopeCatalog) {
+        try {
+            if (!scopeCatalog.awaitLoaded(Auth0Constants.WARM_UP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for the scopes of the resource server while warming up");
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        scopeEncoder.encode(String.join(" ", scopeCatalog.getSnapshot().getScopes().keySet()));
+        return true;
+    }
+
+    /**
+     * Creates the calls that open connections to the host of the given URL, one per connection to keep in the pool.
+     */
+    private List<Call> openConnections(OkHttpClient httpClient, String url) {
+        List<Call> calls = new ArrayList<>();
+        for (int i = 0; i < Auth0Constants.WARM_UP_CONNECTIONS_PER_LANE; i++) {
+            calls.add(httpClient.newCall(new Request.Builder().url(url).head().build()));
+        }
+        return calls;
+    }
+
+    /**
+     * Runs the calls in parallel, so that each one needs a connection of its own, and waits for all of them.
+     *
+     * @return {@code false} if interrupted.
+     */
+    private boolean awaitAll(List<Call> calls) {
+        CountDownLatch pending = new CountDownLatch(calls.size());
+        for (Call call : calls) {
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call failedCall, IOException e) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Could not open a connection to " + failedCall.request().url(), e);
+                    }
+                    pending.countDown();
+                }
+
+                @Override
+                public void onResponse(Call completedCall, Response response) throws IOException {
+                    try {
+                        if (response.body() != null) {
+                            // Reading the body to the end returns the connection to the pool.
+                            response.body().bytes();
+                        }
+                    } finally {
+                        response.close();
+                        pending.countDown();
+                    }
+                }
+            });
+        }
+        try {
+            if (!pending.await(Auth0Constants.WARM_UP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Timed out opening connections to Auth0 while warming up");
+            }
+            return true;
+        } catch (InterruptedException e) {
+            for (Call call : calls) {
+                call.cancel();
+            }
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.bulkhead;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises the rules by which the adaptive limit grows and shrinks.
+ */
+public class Auth0AdaptiveLimitTest {
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+    private long now = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void growsByOneForEveryLimitOfCallsWhileBusy() {
+        Auth0AdaptiveLimit limit = new Auth0AdaptiveLimit(10, 1, 20);
+        for (int i = 0; i < 9; i++) {
+            assertEquals(10, sample(limit, RTT, 10, false));
+        }
+        // The limit grows by 1 / limit per call, so the eleventh call reaches the next step.
+        sample(limit, RTT, 10, false);
+        assertEquals(11, sample(limit, RTT, 10, false));
+    }
+
+    @Test
+    public void doesNotGrowWhileIdleOrBeyondTheMaximum() {
+        Auth0AdaptiveLimit idle = new Auth0AdaptiveLimit(10, 1, 20);
+        for (int i = 0; i < 100; i++) {
+            sample(idle, RTT, 4, false);
+        }
+        assertEquals(10, idle.getLimit());
+
+        Auth0AdaptiveLimit capped = new Auth0AdaptiveLimit(10, 1, 12);
+        for (int i = 0; i < 1000; i++) {
+            sample(capped, RTT, 12, false);
+        }
+        assertEquals(12, capped.getLimit());
+    }
+
+    @Test
+    public void halvesOnceForDropsOfTheSameBurst() {
+        Auth0AdaptiveLimit limit = new Auth0AdaptiveLimit(10, 1, 20);
+        long burstStartedAt = now;
+        assertEquals(5, limit.onSample(burstStartedAt, RTT, 10, true));
+        // A call started before the decrease was already in flight, and does not shrink the limit again.
+        assertEquals(5, limit.onSample(burstStartedAt + 1, RTT, 10, true));
+        assertEquals(2, limit.onSample(burstStartedAt + 2 * RTT, RTT, 10, true));
+        assertEquals(1, limit.onSample(burstStartedAt + 4 * RTT, RTT, 10, true));
+        assertEquals(1, limit.onSample(burstStartedAt + 6 * RTT, RTT, 10, true));
+    }
+
+    @Test
+    public void shrinksWhenTheLatencyRisesAboveTheBaseline() {
+        Auth0AdaptiveLimit limit = new Auth0AdaptiveLimit(10, 1, 20);
+        sample(limit, RTT, 1, false);
+        long slowStartedAt = now;
+        assertEquals(9, limit.onSample(slowStartedAt, 10 * RTT, 1, false));
+        assertEquals(9, limit.onSample(slowStartedAt + 1, 10 * RTT, 1, false));
+        now = slowStartedAt + 20 * RTT;
+        assertEquals(8, sample(limit, 10 * RTT, 1, false));
+    }
+
+    @Test
+    public void takesTheLatencyAsBaselineOnceAtTheMinimum() {
+        Auth0AdaptiveLimit limit = new Auth0AdaptiveLimit(4, 4, 8);
+        sample(limit, RTT, 0, false);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(4, sample(limit, 10 * RTT, 0, false));
+        }
+        // The slower latency is now the baseline, so a busy lane grows again at that latency.
+        for (int i = 0; i < 10; i++) {
+            sample(limit, 10 * RTT, 4, false);
+        }
+        assertTrue(limit.getLimit() > 4);
+    }
+
+    private int sample(Auth0AdaptiveLimit limit, long rttNanos, int inFlight, boolean dropped) {
+        int newLimit = limit.onSample(now, rttNanos, inFlight, dropped);
+        now += rttNanos;
+        return newLimit;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.bulkhead;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Exercises which failed calls shrink the adaptive limit of a bulkhead.
+ */
+public class Auth0BulkheadTest {
+
+    @Test
+    public void cancelledCallsDoNotShrinkTheLimit() {
+        Auth0Bulkhead bulkhead = new Auth0Bulkhead("test", 10, 0, 0, new Auth0AdaptiveLimit(10, 1, 20));
+        intercept(bulkhead, failingChain(true));
+        assertEquals(10, bulkhead.getLimit());
+        assertEquals(0, bulkhead.getActiveCount());
+    }
+
+    @Test
+    public void failedCallsShrinkTheLimit() {
+        Auth0Bulkhead bulkhead = new Auth0Bulkhead("test", 10, 0, 0, new Auth0AdaptiveLimit(10, 1, 20));
+        intercept(bulkhead, failingChain(false));
+        assertEquals(5, bulkhead.getLimit());
+        assertEquals(0, bulkhead.getActiveCount());
+    }
+
+    private static void intercept(Auth0Bulkhead bulkhead, Interceptor.Chain chain) {
+        try {
+            bulkhead.intercept(chain);
+            fail("The call was expected to fail");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Returns a chain whose call fails with an I/O error, after being cancelled or not.
+     */
+    private static Interceptor.Chain failingChain(boolean cancelled) {
+        Call call = (Call) Proxy.newProxyInstance(Call.class.getClassLoader(), new Class<?>[]{Call.class},
+                (proxy, method, args) -> {
+                    if ("isCanceled".equals(method.getName())) {
+                        return cancelled;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return (Interceptor.Chain) Proxy.newProxyInstance(Interceptor.Chain.class.getClassLoader(),
+                new Class<?>[]{Interceptor.Chain.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "request":
+                            return null;
+                        case "call":
+                            return call;
+                        case "proceed":
+                            throw new IOException(cancelled ? "Canceled" : "timeout");
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.cache;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.model.Auth0AccessTokenResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Runs the token cache against two Hazelcast members started in the same JVM.
+ */
+public class Auth0TokenCacheClusterTest {
+    private static final long SKEW_MILLIS = Auth0Constants.TOKEN_CACHE_EXPIRY_SKEW_SECONDS * 1000L;
+    private static HazelcastInstance firstMember;
+    private static HazelcastInstance secondMember;
+
+    @BeforeClass
+    public static void startCluster() {
+        Config config = new Config();
+        config.getGroupConfig().setName("auth0-token-cache-test-" + UUID.randomUUID());
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+        firstMember = Hazelcast.newHazelcastInstance(config);
+        secondMember = Hazelcast.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void stopCluster() {
+        Hazelcast.shutdownAll();
+    }
+
+    @Test
+    public void loadsTokenOnceWhenBothNodesMissAtOnce() throws Exception {
+        Auth0TokenCache firstNode = new Auth0TokenCache(new Auth0ClusterTokenStore(firstMember, SKEW_MILLIS));
+        Auth0TokenCache secondNode = new Auth0TokenCache(new Auth0ClusterTokenStore(secondMember, SKEW_MILLIS));
+        String key = Auth0TokenCache.applicationTokenKey("client", "secret", "client_credentials", "");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Auth0TokenCache.TokenLoader loader = () -> {
+            loads.incrementAndGet();
+            try {
+                // Keep the token endpoint busy long enough for the other node to miss as well.
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return tokenResponse(UUID.randomUUID().toString());
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Auth0AccessTokenResponse>> responses = new ArrayList<>();
+            for (Auth0TokenCache node : new Auth0TokenCache[]{firstNode, secondNode}) {
+                Callable<Auth0AccessTokenResponse> call = () -> {
+                    start.await();
+                    return node.get(key, loader);
+                };
+                responses.add(executor.submit(call));
+            }
+            start.countDown();
+            String firstToken = responses.get(0).get(10, TimeUnit.SECONDS).getAccessToken();
+            String secondToken = responses.get(1).get(10, TimeUnit.SECONDS).getAccessToken();
+            assertEquals(1, loads.get());
+            assertEquals(firstToken, secondToken);
+        } finally {
+            executor.shutdownNow();
+            firstNode.close();
+            secondNode.close();
+        }
+    }
+
+    @Test
+    public void loadsOnceWhenLoaderReturnsNoToken() throws Exception {
+        Auth0TokenCache node = new Auth0TokenCache(new Auth0ClusterTokenStore(firstMember, SKEW_MILLIS));
+        AtomicInteger loads = new AtomicInteger();
+        try {
+            assertNull(node.get("app:missing", () -> {
+                loads.incrementAndGet();
+                return null;
+            }));
+            assertEquals(1, loads.get());
+            Auth0AccessTokenResponse notGranted = new Auth0AccessTokenResponse();
+            notGranted.setAccessToken("not granted");
+            assertEquals("not granted", node.get("app:not-granted", () -> {
+                loads.incrementAndGet();
+                return notGranted;
+            }).getAccessToken());
+            assertEquals(2, loads.get());
+        } finally {
+            node.close();
+        }
+    }
+
+    @Test
+    public void invalidateClientRemovesItsTokensFromTheCluster() throws Exception {
+        Auth0TokenCache firstNode = new Auth0TokenCache(new Auth0ClusterTokenStore(firstMember, SKEW_MILLIS));
+        Auth0TokenCache secondNode = new Auth0TokenCache(new Auth0ClusterTokenStore(secondMember, SKEW_MILLIS));
+        String revokedKey = Auth0TokenCache.applicationTokenKey("revoked_client", "secret", "client_credentials", "");
+        String otherKey = Auth0TokenCache.applicationTokenKey("revokedXclient", "secret", "client_credentials", "");
+        AtomicInteger loads = new AtomicInteger();
+        Auth0TokenCache.TokenLoader loader = () -> tokenResponse("token-" + loads.incrementAndGet());
+        try {
+            assertEquals("token-1", firstNode.get(revokedKey, loader).getAccessToken());
+            assertEquals("token-2", firstNode.get(otherKey, loader).getAccessToken());
+            firstNode.invalidateClient("revoked_client");
+            assertEquals("token-3", secondNode.get(revokedKey, loader).getAccessToken());
+            assertEquals("token-2", secondNode.get(otherKey, loader).getAccessToken());
+            assertEquals(3, loads.get());
+        } finally {
+            firstNode.close();
+            secondNode.close();
+        }
+    }
+
+    private static Auth0AccessTokenResponse tokenResponse(String accessToken) {
+        Auth0AccessTokenResponse response = new Auth0AccessTokenResponse();
+        response.setAccessToken(accessToken);
+        response.setTokenType("Bearer");
+        response.setExpiry(3600);
+        return response;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.failover;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.auth0.client.Auth0Constants;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises hedging, failover and ejection against two token endpoints served by a local HTTP server.
+ */
+public class Auth0TokenEndpointGroupTest {
+    private final ServedEndpoint primary = new ServedEndpoint();
+    private final ServedEndpoint secondary = new ServedEndpoint();
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private OkHttpClient httpClient;
+    private Auth0TokenEndpointGroup group;
+
+    /**
+     * Token endpoint answering every request with a fixed status after a fixed delay.
+     */
+    private static final class ServedEndpoint {
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile int status = 200;
+        private volatile long delayMillis;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/primary/oauth/token", exchange -> serve(primary, exchange));
+        server.createContext("/secondary/oauth/token", exchange -> serve(secondary, exchange));
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        httpClient = new OkHttpClient();
+        group = new Auth0TokenEndpointGroup(Arrays.asList(baseUrl + "/primary/oauth/token",
+                baseUrl + "/secondary/oauth/token"), httpClient);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        httpClient.dispatcher().executorService().shutdownNow();
+    }
+
+    @Test
+    public void hedgesToTheNextEndpointAfterTheDelayAndCancelsTheLoser() throws Exception {
+        // Every request earns a fraction of a hedge, so enough requests have to go first.
+        long requestsPerHedge = Math.round(1 / Auth0Constants.TOKEN_HEDGE_BUDGET_RATIO);
+        for (int i = 1; i < requestsPerHedge; i++) {
+            assertEquals(200, execute());
+        }
+        assertEquals(0, secondary.requests.get());
+
+        primary.delayMillis = 3000;
+        long startedAt = System.currentTimeMillis();
+        assertEquals(200, execute());
+        long elapsed = System.currentTimeMillis() - startedAt;
+        assertTrue(elapsed >= Auth0Constants.TOKEN_HEDGE_MAX_DELAY_MILLIS);
+        assertTrue(elapsed < primary.delayMillis);
+        assertEquals(1, secondary.requests.get());
+
+        // The request to the primary endpoint is cancelled rather than left waiting for its response.
+        long deadline = System.currentTimeMillis() + 1000;
+        while (httpClient.dispatcher().runningCallsCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, httpClient.dispatcher().runningCallsCount());
+    }
+
+    @Test
+    public void doesNotHedgeWithoutBudget() throws Exception {
+        primary.delayMillis = Auth0Constants.TOKEN_HEDGE_MAX_DELAY_MILLIS + 500;
+        long startedAt = System.currentTimeMillis();
+        assertEquals(200, execute());
+        assertTrue(System.currentTimeMillis() - startedAt >= primary.delayMillis);
+        assertEquals(1, primary.requests.get());
+        assertEquals(0, secondary.requests.get());
+    }
+
+    @Test
+    public void failsOverOnServerError() throws Exception {
+        primary.status = 503;
+        assertEquals(200, execute());
+        assertEquals(1, primary.requests.get());
+        assertEquals(1, secondary.requests.get());
+    }
+
+    @Test
+    public void returnsTheLastServerErrorIfEveryEndpointFails() throws Exception {
+        primary.status = 503;
+        secondary.status = 502;
+        assertEquals(502, execute());
+    }
+
+    @Test
+    public void ejectsAnEndpointFailingInARow() throws Exception {
+        primary.status = 503;
+        for (int i = 0; i < Auth0Constants.TOKEN_ENDPOINT_EJECTION_FAILURES; i++) {
+            assertEquals(200, execute());
+        }
+        assertEquals(Auth0Constants.TOKEN_ENDPOINT_EJECTION_FAILURES, primary.requests.get());
+
+        assertEquals(200, execute());
+        assertEquals(Auth0Constants.TOKEN_ENDPOINT_EJECTION_FAILURES, primary.requests.get());
+        assertEquals(Auth0Constants.TOKEN_ENDPOINT_EJECTION_FAILURES + 1, secondary.requests.get());
+    }
+
+    private int execute() throws IOException {
+        Request.Builder requestBuilder = new Request.Builder()
+                .post(RequestBody.create(MediaType.parse(Auth0Constants.CONTENT_TYPE_JSON), "{}"));
+        try (Response response = group.execute(requestBuilder)) {
+            return response.code();
+        }
+    }
+
+    private static void serve(ServedEndpoint endpoint, HttpExchange exchange) throws IOException {
+        endpoint.requests.incrementAndGet();
+        try {
+            Thread.sleep(endpoint.delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", Auth0Constants.CONTENT_TYPE_JSON);
+        exchange.sendResponseHeaders(endpoint.status, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+}
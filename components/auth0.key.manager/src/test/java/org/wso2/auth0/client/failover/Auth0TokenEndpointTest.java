@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.failover;
+
+import org.junit.Test;
+import org.wso2.auth0.client.Auth0Constants;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises the ejection of an endpoint after failures in a row and its backoff.
+ */
+public class Auth0TokenEndpointTest {
+
+    @Test
+    public void ejectsAfterFailuresInARow() {
+        Auth0TokenEndpoint endpoint = new Auth0TokenEndpoint("https://tenant.auth0.com/oauth/token");
+        long now = 1000000;
+        for (int i = 1; i < Auth0Constants.TOKEN_ENDPOINT_EJECTION_FAILURES; i++) {
+            assertFalse(endpoint.recordFailure(now));
+        }
+        endpoint.recordSuccess();
+        for (int i = 1; i < Auth0Constants.TOKEN_ENDPOINT_EJECTION_FAILURES; i++) {
+            assertFalse(endpoint.recordFailure(now));
+        }
+        assertTrue(endpoint.isAvailable(now));
+        assertTrue(endpoint.recordFailure(now));
+        assertFalse(endpoint.isAvailable(now));
+        assertTrue(endpoint.isAvailable(now + Auth0Constants.TOKEN_ENDPOINT_EJECTION_MILLIS));
+    }
+
+    @Test
+    public void ejectsForLongerUntilASuccess() {
+        Auth0TokenEndpoint endpoint = new Auth0TokenEndpoint("https://tenant.auth0.com/oauth/token");
+        long now = 1000000;
+        eject(endpoint, now);
+        now += Auth0Constants.TOKEN_ENDPOINT_EJECTION_MILLIS;
+        eject(endpoint, now);
+        assertFalse(endpoint.isAvailable(now + Auth0Constants.TOKEN_ENDPOINT_EJECTION_MILLIS));
+        assertTrue(endpoint.isAvailable(now + 2 * Auth0Constants.TOKEN_ENDPOINT_EJECTION_MILLIS));
+
+        endpoint.recordSuccess();
+        now += 2 * Auth0Constants.TOKEN_ENDPOINT_EJECTION_MILLIS;
+        eject(endpoint, now);
+        assertTrue(endpoint.isAvailable(now + Auth0Constants.TOKEN_ENDPOINT_EJECTION_MILLIS));
+    }
+
+    private static void eject(Auth0TokenEndpoint endpoint, long now) {
+        for (int i = 0; i < Auth0Constants.TOKEN_ENDPOINT_EJECTION_FAILURES; i++) {
+            endpoint.recordFailure(now);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.auth0.client.journal;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the event ring buffer and the journal built on it with producers and consumers racing each other.
+ */
+public class Auth0EventRingBufferTest {
+    private static final int PRODUCERS = 4;
+    private static final int CONSUMERS = 2;
+    private static final int EVENTS_PER_PRODUCER = 50000;
+
+    @Test
+    public void holdsCapacityRoundedUpToPowerOfTwo() {
+        Auth0EventRingBuffer buffer = new Auth0EventRingBuffer(3);
+        Auth0Event[] events = new Auth0Event[4];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = event(0, i);
+            assertTrue(buffer.offer(events[i]));
+        }
+        assertFalse(buffer.offer(event(0, 4)));
+        assertEquals(4, buffer.size());
+        for (Auth0Event event : events) {
+            assertSame(event, buffer.poll());
+        }
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void deliversEveryEventOnceAndInOrderOfEachProducer() throws Exception {
+        Auth0EventRingBuffer buffer = new Auth0EventRingBuffer(64);
+        AtomicIntegerArray deliveries = new AtomicIntegerArray(PRODUCERS * EVENTS_PER_PRODUCER);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS + CONSUMERS);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int producer = 0; producer < PRODUCERS; producer++) {
+                int producerId = producer;
+                producers.add(executor.submit(() -> {
+                    start.await();
+                    for (int sequence = 0; sequence < EVENTS_PER_PRODUCER; sequence++) {
+                        Auth0Event event = event(producerId, sequence);
+                        while (!buffer.offer(event)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> consumers = new ArrayList<>();
+            for (int consumer = 0; consumer < CONSUMERS; consumer++) {
+                consumers.add(executor.submit(() -> {
+                    int[] lastSequences = new int[PRODUCERS];
+                    Arrays.fill(lastSequences, -1);
+                    start.await();
+                    while (true) {
+                        boolean stopping = !producing.get();
+                        Auth0Event event = buffer.poll();
+                        if (event == null) {
+                            if (stopping) {
+                                return null;
+                            }
+                            Thread.yield();
+                            continue;
+                        }
+                        int producerId = Integer.parseInt(event.getTenant());
+                        int sequence = Integer.parseInt(event.getDetail());
+                        assertTrue("events of a producer were polled out of order",
+                                sequence > lastSequences[producerId]);
+                        lastSequences[producerId] = sequence;
+                        deliveries.incrementAndGet(producerId * EVENTS_PER_PRODUCER + sequence);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> producer : producers) {
+                producer.get(30, TimeUnit.SECONDS);
+            }
+            producing.set(false);
+            for (Future<?> consumer : consumers) {
+                consumer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int i = 0; i < deliveries.length(); i++) {
+            assertEquals("deliveries of event " + i, 1, deliveries.get(i));
+        }
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void journalAccountsForEveryEventWhenDroppingOldest() throws Exception {
+        File directory = Files.createTempDirectory("auth0-journal").toFile();
+        Auth0EventJournal journal = new Auth0EventJournal(new File(directory, "events.log"), 16,
+                Auth0JournalOverflowPolicy.DROP_OLDEST);
+        journal.start();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int producer = 0; producer < PRODUCERS; producer++) {
+                int producerId = producer;
+                producers.add(executor.submit(() -> {
+                    start.await();
+                    for (int sequence = 0; sequence < EVENTS_PER_PRODUCER; sequence++) {
+                        journal.record(event(producerId, sequence));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> producer : producers) {
+                producer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            journal.close();
+        }
+        assertTrue("no event was dropped", journal.getDroppedCount() > 0);
+        assertEquals(PRODUCERS * EVENTS_PER_PRODUCER, journal.getWrittenCount() + journal.getDroppedCount());
+        assertEquals(0, journal.getPendingCount());
+    }
+
+    private static Auth0Event event(int producer, int sequence) {
+        return Auth0Event.of(Auth0EventType.TOKEN_ISSUED, String.valueOf(producer), null, String.valueOf(sequence));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.auth0.client.metrics;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the JMX registration of the metrics across renames of the key manager.
+ */
+public class Auth0MetricsTest {
+
+    @Test
+    public void unregistersPreviousNameOnRename() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName previousName = objectName("metrics-test-before");
+        ObjectName renamedName = objectName("metrics-test-after");
+        Auth0Metrics metrics = new Auth0Metrics();
+        metrics.register("metrics-test-before");
+        assertTrue(mBeanServer.isRegistered(previousName));
+
+        metrics.register("metrics-test-after");
+        assertFalse(mBeanServer.isRegistered(previousName));
+        assertTrue(mBeanServer.isRegistered(renamedName));
+
+        metrics.unregister();
+        assertFalse(mBeanServer.isRegistered(renamedName));
+    }
+
+    private static ObjectName objectName(String keyManagerName) throws Exception {
+        return new ObjectName("org.wso2.auth0.client:type=KeyManagerMetrics,name=" + ObjectName.quote(keyManagerName));
+    }
+}
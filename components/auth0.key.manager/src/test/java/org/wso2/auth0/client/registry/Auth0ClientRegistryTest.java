@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.auth0.client.registry;
+
+import org.junit.Test;
+import org.wso2.auth0.client.model.Auth0ClientInfo;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Exercises the open addressing index of the client registry through puts, removals and growth.
+ */
+public class Auth0ClientRegistryTest {
+    private static final String TENANT = "tenant";
+
+    @Test
+    public void findsClientsAfterGrowing() {
+        Auth0ClientRegistry registry = new Auth0ClientRegistry();
+        int clients = 5000;
+        for (int i = 0; i < clients; i++) {
+            registry.put(TENANT, client(i, "secret"));
+        }
+        assertEquals(clients, registry.size());
+        for (int i = 0; i < clients; i++) {
+            Auth0ClientInfo clientInfo = registry.get(clientId(i));
+            assertNotNull("client " + i, clientInfo);
+            assertEquals(clientId(i), clientInfo.getClientId());
+            assertEquals("app-" + i, clientInfo.getClientName());
+            assertEquals(Arrays.asList("client_credentials"), clientInfo.getGrantTypes());
+        }
+        assertNull(registry.get("missing"));
+    }
+
+    @Test
+    public void replacesClientInPlace() {
+        Auth0ClientRegistry registry = new Auth0ClientRegistry();
+        registry.put(TENANT, client(1, "old"));
+        registry.put(TENANT, client(1, "new"));
+        assertEquals(1, registry.size());
+        assertEquals("new", registry.get(clientId(1)).getClientSecret());
+    }
+
+    @Test
+    public void findsClientsPastRemovedEntriesAndReusesSlots() {
+        Auth0ClientRegistry registry = new Auth0ClientRegistry();
+        int clients = 3000;
+        for (int i = 0; i < clients; i++) {
+            registry.put(TENANT, client(i, "secret"));
+        }
+        for (int i = 0; i < clients; i += 2) {
+            registry.remove(clientId(i));
+        }
+        assertEquals(clients / 2, registry.size());
+        for (int i = 0; i < clients; i++) {
+            if (i % 2 == 0) {
+                assertNull("removed client " + i, registry.get(clientId(i)));
+            } else {
+                assertNotNull("client " + i, registry.get(clientId(i)));
+            }
+        }
+        // Removing a client twice, or one that was never added, changes nothing.
+        registry.remove(clientId(0));
+        registry.remove("missing");
+        assertEquals(clients / 2, registry.size());
+        for (int i = 0; i < clients; i += 2) {
+            registry.put(TENANT, client(i, "again"));
+        }
+        assertEquals(clients, registry.size());
+        for (int i = 0; i < clients; i++) {
+            assertEquals("client " + i, i % 2 == 0 ? "again" : "secret",
+                    registry.get(clientId(i)).getClientSecret());
+        }
+    }
+
+    @Test
+    public void rebuildsIndexFilledWithRemovedEntries() {
+        Auth0ClientRegistry registry = new Auth0ClientRegistry();
+        registry.put(TENANT, client(-1, "kept"));
+        // Every cycle leaves a removed entry behind, far more than the index holds, so it has to be rebuilt.
+        for (int i = 0; i < 20000; i++) {
+            registry.put(TENANT, client(i, "secret"));
+            registry.remove(clientId(i));
+        }
+        assertEquals(1, registry.size());
+        assertEquals("kept", registry.get(clientId(-1)).getClientSecret());
+        assertNull(registry.get(clientId(19999)));
+    }
+
+    @Test
+    public void stopsServingClientsOlderThanMaxAge() throws InterruptedException {
+        Auth0ClientRegistry registry = new Auth0ClientRegistry();
+        registry.put(TENANT, client(1, "secret"));
+        registry.setMaxAge(1);
+        Thread.sleep(20);
+        assertNull(registry.get(clientId(1)));
+        assertEquals(TENANT, registry.getTenantName(clientId(1)));
+        registry.put(TENANT, client(1, "secret"));
+        registry.setMaxAge(Long.MAX_VALUE);
+        assertNotNull(registry.get(clientId(1)));
+    }
+
+    @Test
+    public void skipsLoadedClientsRemovedWhileLoading() {
+        Auth0ClientRegistry registry = new Auth0ClientRegistry();
+        registry.startLoading();
+        registry.remove(clientId(1));
+        registry.putLoaded(TENANT, client(1, "listed"));
+        registry.putLoaded(TENANT, client(2, "listed"));
+        registry.finishLoading();
+        assertNull(registry.get(clientId(1)));
+        assertEquals("listed", registry.get(clientId(2)).getClientSecret());
+    }
+
+    private static String clientId(int i) {
+        return "client-" + i;
+    }
+
+    private static Auth0ClientInfo client(int i, String secret) {
+        Auth0ClientInfo clientInfo = new Auth0ClientInfo();
+        clientInfo.setClientId(clientId(i));
+        clientInfo.setClientName("app-" + i);
+        clientInfo.setClientSecret(secret);
+        clientInfo.setApplicationType("non_interactive");
+        clientInfo.setGrantTypes(Arrays.asList("client_credentials"));
+        return clientInfo;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.scope;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.model.Auth0ScopeInfo;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.api.model.Scope;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Exercises the sync of the scopes of APIs to the resource server, one update per change.
+ */
+public class Auth0ResourceScopeManagerTest {
+    private InMemoryResourceServer server;
+    private Auth0ScopeWriteBuffer buffer;
+    private Auth0ResourceScopeManager manager;
+
+    @Before
+    public void setUp() {
+        server = new InMemoryResourceServer("other");
+        buffer = new Auth0ScopeWriteBuffer(server, InMemoryResourceServer.IDENTIFIER, TimeUnit.HOURS.toMillis(1),
+                null);
+        manager = new Auth0ResourceScopeManager(server, InMemoryResourceServer.IDENTIFIER, buffer);
+    }
+
+    @After
+    public void tearDown() {
+        buffer.close();
+    }
+
+    @Test
+    public void registersAllScopesOfANewApiInOneUpdate() throws APIManagementException {
+        List<Scope> scopes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            scopes.add(scope("scope" + i, "Scope " + i));
+        }
+        manager.registerApiScopes(scopes, Collections.<String>emptySet());
+        assertEquals(1, server.updates.get());
+        assertEquals(501, server.getScopes().size());
+        assertEquals("Scope 42", server.getScopes().get("scope42"));
+    }
+
+    @Test
+    public void updatesChangedScopesAndRemovesDroppedOnesInOneUpdate() throws APIManagementException {
+        manager.registerApiScopes(Arrays.asList(scope("read", "Read"), scope("write", "Write"),
+                scope("admin", "Admin")), Collections.<String>emptySet());
+        manager.registerApiScopes(Arrays.asList(scope("read", "Read all"), scope("delete", "Delete")),
+                new HashSet<>(Arrays.asList("read", "write", "admin")));
+        assertEquals(2, server.updates.get());
+        assertEquals(new HashSet<>(Arrays.asList("other", "read", "delete")), server.getScopes().keySet());
+        assertEquals("Read all", server.getScopes().get("read"));
+    }
+
+    @Test
+    public void skipsTheUpdateWhenTheScopesAreUnchanged() throws APIManagementException {
+        Set<String> previousScopes = new HashSet<>(Arrays.asList("read"));
+        manager.registerApiScopes(Arrays.asList(scope("read", "Read")), Collections.<String>emptySet());
+        manager.registerApiScopes(Arrays.asList(scope("read", "Read")), previousScopes);
+        manager.registerApiScopes(Collections.<Scope>emptyList(), Collections.<String>emptySet());
+        assertEquals(1, server.updates.get());
+    }
+
+    @Test
+    public void removesTheScopesOfADeletedApi() throws APIManagementException {
+        manager.registerApiScopes(Arrays.asList(scope("read", "Read"), scope("write", "Write")),
+                Collections.<String>emptySet());
+        manager.removeApiScopes(new HashSet<>(Arrays.asList("read", "write")));
+        assertEquals(2, server.updates.get());
+        assertEquals(Collections.singleton("other"), server.getScopes().keySet());
+    }
+
+    @Test
+    public void returnsTheScopesOfAnApi() throws APIManagementException {
+        manager.registerApiScopes(Arrays.asList(scope("read", "Read"), scope("write", "Write")),
+                Collections.<String>emptySet());
+        Map<String, Object> resource = manager.getApiResource(new HashSet<>(Arrays.asList("read", "missing")));
+        assertEquals(InMemoryResourceServer.IDENTIFIER, resource.get(Auth0Constants.RESOURCE_SERVER_IDENTIFIER));
+        assertEquals(Collections.singleton("read"), Auth0ResourceScopeManager.getScopeKeys(resource));
+        assertNull(manager.getApiResource(Collections.<String>emptySet()));
+    }
+
+    @Test
+    public void describesScopesWithoutDescriptionByNameOrKey() {
+        Scope named = scope("read", null);
+        named.setName("Read");
+        assertEquals("Read", Auth0ResourceScopeManager.toAuth0Scope(named).getDescription());
+        Auth0ScopeInfo unnamed = Auth0ResourceScopeManager.toAuth0Scope(scope("write", ""));
+        assertEquals("write", unnamed.getValue());
+        assertEquals("write", unnamed.getDescription());
+    }
+
+    private static Scope scope(String key, String description) {
+        Scope scope = new Scope();
+        scope.setKey(key);
+        scope.setDescription(description);
+        return scope;
+    }
+}
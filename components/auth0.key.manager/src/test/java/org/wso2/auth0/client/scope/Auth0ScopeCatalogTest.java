@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.scope;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wso2.auth0.client.model.Auth0ScopeInfo;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.api.model.Scope;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises the snapshots of the scope catalog through refreshes and local writes.
+ */
+public class Auth0ScopeCatalogTest {
+    private InMemoryResourceServer server;
+    private Auth0ScopeWriteBuffer buffer;
+    private Auth0ScopeCatalog catalog;
+
+    @Before
+    public void setUp() {
+        server = new InMemoryResourceServer("read", "write");
+        buffer = new Auth0ScopeWriteBuffer(server, InMemoryResourceServer.IDENTIFIER, TimeUnit.HOURS.toMillis(1),
+                null);
+        catalog = new Auth0ScopeCatalog(server, InMemoryResourceServer.IDENTIFIER, buffer);
+    }
+
+    @After
+    public void tearDown() {
+        catalog.close();
+        buffer.close();
+    }
+
+    @Test
+    public void discardsARefreshReadBeforeALocalWrite() {
+        catalog.refresh();
+        server.setScopes(new Auth0ScopeInfo("read", "Read"), new Auth0ScopeInfo("remote", "Remote"));
+        server.onRead = () -> catalog.upsert(new Auth0ScopeInfo("local", "Local"));
+        catalog.refresh();
+        assertEquals(new HashSet<>(Arrays.asList("read", "write", "local")), catalog.getScopes().keySet());
+
+        server.onRead = null;
+        catalog.refresh();
+        assertEquals(new HashSet<>(Arrays.asList("read", "remote")), catalog.getScopes().keySet());
+    }
+
+    @Test
+    public void keepsTheSnapshotWhenARefreshFails() {
+        server.failing = true;
+        catalog.refresh();
+        assertFalse(catalog.isLoaded());
+
+        server.failing = false;
+        catalog.refresh();
+        assertTrue(catalog.isLoaded());
+        Auth0ScopeCatalog.Snapshot loaded = catalog.getSnapshot();
+        server.failing = true;
+        catalog.refresh();
+        assertSame(loaded, catalog.getSnapshot());
+    }
+
+    @Test
+    public void changesTheVersionOnlyWhenScopesAreAddedOrRemoved() {
+        catalog.refresh();
+        long version = catalog.getSnapshot().getVersion();
+        catalog.refresh();
+        assertEquals(version, catalog.getSnapshot().getVersion());
+        catalog.upsert(new Auth0ScopeInfo("read", "Read all"));
+        assertEquals(version, catalog.getSnapshot().getVersion());
+        assertEquals("Read all", catalog.getScope("read").getDescription());
+
+        catalog.upsert(new Auth0ScopeInfo("admin", "Admin"));
+        assertEquals(version + 1, catalog.getSnapshot().getVersion());
+        catalog.remove("missing");
+        assertEquals(version + 1, catalog.getSnapshot().getVersion());
+        catalog.remove("admin");
+        assertEquals(version + 2, catalog.getSnapshot().getVersion());
+    }
+
+    @Test
+    public void showsWritesOfTheBufferBeforeTheyReachAuth0() throws APIManagementException {
+        catalog.start(TimeUnit.HOURS.toSeconds(1));
+        buffer.upsert(new Auth0ScopeInfo("pending", "Pending"));
+        catalog.refresh();
+        assertTrue(catalog.contains("pending"));
+
+        buffer.remove("pending");
+        buffer.upsert(new Auth0ScopeInfo("written", "Written"));
+        buffer.flush();
+        assertFalse(catalog.contains("pending"));
+        assertTrue(catalog.contains("written"));
+        assertTrue(catalog.isResourceServer("resource-server-id"));
+    }
+
+    @Test
+    public void returnsCopiesOfTheSharedScopes() {
+        catalog.refresh();
+        Scope scope = catalog.getScope("read");
+        scope.setDescription("Changed");
+        assertNotSame(scope, catalog.getSnapshot().getScopes().get("read"));
+        assertEquals("Description of read", catalog.getScope("read").getDescription());
+        catalog.getScopes().remove("read");
+        assertTrue(catalog.contains("read"));
+    }
+}
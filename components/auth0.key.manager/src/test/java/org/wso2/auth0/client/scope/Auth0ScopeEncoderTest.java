@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.auth0.client.scope;
+
+import org.junit.Test;
+import org.wso2.auth0.client.Auth0Constants;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises the parsing of scope strings and the cache of parsed scope sets.
+ */
+public class Auth0ScopeEncoderTest {
+
+    @Test
+    public void splitsOnAnyWhitespaceAndDropsDuplicates() {
+        Auth0ScopeEncoder encoder = new Auth0ScopeEncoder();
+        assertArrayEquals(new String[]{"read:api", "write:api", "admin"},
+                encoder.encode("  read:api\twrite:api \n admin read:api ").getScopes());
+    }
+
+    @Test
+    public void returnsEmptySetForMissingOrBlankScopes() {
+        Auth0ScopeEncoder encoder = new Auth0ScopeEncoder();
+        assertTrue(encoder.encode(null).isEmpty());
+        assertTrue(encoder.encode("").isEmpty());
+        assertTrue(encoder.encode("   ").isEmpty());
+    }
+
+    @Test
+    public void sharesSetsParsedFromTheSameString() {
+        Auth0ScopeEncoder encoder = new Auth0ScopeEncoder();
+        Auth0ScopeSet scopeSet = encoder.encode("read:api write:api");
+        assertSame(scopeSet, encoder.encode("read:api write:api"));
+        String[] scopes = scopeSet.getScopes();
+        scopes[0] = "changed";
+        assertArrayEquals(new String[]{"read:api", "write:api"}, scopeSet.getScopes());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedString() {
+        Auth0ScopeEncoder encoder = new Auth0ScopeEncoder();
+        Auth0ScopeSet hot = encoder.encode("hot");
+        Auth0ScopeSet cold = encoder.encode("cold");
+        for (int i = 0; i < Auth0Constants.SCOPE_ENCODING_CACHE_MAX_SIZE - 1; i++) {
+            encoder.encode("scope" + i);
+            // Keep the hot string recently used while the cache fills up.
+            encoder.encode("hot");
+        }
+        assertSame(hot, encoder.encode("hot"));
+        assertNotSame(cold, encoder.encode("cold"));
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.scope;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.cache.Auth0ClusterLock;
+import org.wso2.auth0.client.model.Auth0ScopeInfo;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Exercises the coalescing of scope writes, the requeue of failed writes and their serialization through the cluster
+ * lock.
+ */
+public class Auth0ScopeWriteBufferTest {
+    private static final long NO_WINDOW = TimeUnit.HOURS.toMillis(1);
+    private static HazelcastInstance member;
+
+    @BeforeClass
+    public static void startMember() {
+        Config config = new Config();
+        config.getGroupConfig().setName("auth0-scope-write-test-" + UUID.randomUUID());
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+        member = Hazelcast.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void stopMember() {
+        Hazelcast.shutdownAll();
+    }
+
+    @Test
+    public void coalescesMutationsOfAWindowIntoOneWrite() throws InterruptedException {
+        InMemoryResourceServer server = new InMemoryResourceServer("existing", "removed");
+        Auth0ScopeWriteBuffer buffer = new Auth0ScopeWriteBuffer(server, InMemoryResourceServer.IDENTIFIER, 300,
+                null);
+        try {
+            buffer.upsert(new Auth0ScopeInfo("read", "Read"));
+            buffer.upsert(new Auth0ScopeInfo("write", "Write"));
+            buffer.upsert(new Auth0ScopeInfo("read", "Read all"));
+            buffer.remove("removed");
+            buffer.upsert(new Auth0ScopeInfo("dropped", "Dropped"));
+            buffer.remove("dropped");
+            assertEquals(0, server.updates.get());
+
+            long deadline = System.currentTimeMillis() + 3000;
+            while (buffer.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(0, buffer.getPendingCount());
+            assertEquals(1, server.reads.get());
+            assertEquals(1, server.updates.get());
+            assertEquals(new HashSet<>(Arrays.asList("existing", "read", "write")), server.getScopes().keySet());
+            assertEquals("Read all", server.getScopes().get("read"));
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void flushSkipsTheUpdateWhenNothingChanges() throws APIManagementException {
+        InMemoryResourceServer server = new InMemoryResourceServer("existing");
+        Auth0ScopeWriteBuffer buffer = new Auth0ScopeWriteBuffer(server, InMemoryResourceServer.IDENTIFIER,
+                NO_WINDOW, null);
+        try {
+            buffer.upsert(new Auth0ScopeInfo("existing", "Description of existing"));
+            buffer.remove("missing");
+            buffer.flush();
+            assertEquals(1, server.reads.get());
+            assertEquals(0, server.updates.get());
+            assertEquals(0, buffer.getPendingCount());
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void requeuesFailedMutationsBehindNewerOnes() throws APIManagementException {
+        InMemoryResourceServer server = new InMemoryResourceServer("existing");
+        Auth0ScopeWriteBuffer buffer = new Auth0ScopeWriteBuffer(server, InMemoryResourceServer.IDENTIFIER,
+                NO_WINDOW, null);
+        try {
+            buffer.upsert(new Auth0ScopeInfo("read", "Read"));
+            buffer.upsert(new Auth0ScopeInfo("write", "Write"));
+            // A newer mutation is queued while the write is in progress, and the write then fails.
+            server.onRead = () -> {
+                buffer.upsert(new Auth0ScopeInfo("read", "Read all"));
+                server.failing = true;
+            };
+            try {
+                buffer.flush();
+                fail("The write was expected to fail");
+            } catch (APIManagementException e) {
+                assertNotNull(buffer.getLastFailure());
+            }
+            assertEquals(1, buffer.getFailedWriteCount());
+            assertEquals(2, buffer.getPendingCount());
+
+            server.onRead = null;
+            server.failing = false;
+            buffer.flush();
+            assertNull(buffer.getLastFailure());
+            assertEquals(0, buffer.getPendingCount());
+            assertEquals("Read all", server.getScopes().get("read"));
+            assertEquals("Write", server.getScopes().get("write"));
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void overlaysQueuedMutationsOnACopyReadFromAuth0() {
+        InMemoryResourceServer server = new InMemoryResourceServer();
+        Auth0ScopeWriteBuffer buffer = new Auth0ScopeWriteBuffer(server, InMemoryResourceServer.IDENTIFIER,
+                NO_WINDOW, null);
+        try {
+            buffer.upsert(new Auth0ScopeInfo("read", "Read"));
+            buffer.remove("removed");
+            Map<String, Auth0ScopeInfo> scopes = new HashMap<>();
+            scopes.put("removed", new Auth0ScopeInfo("removed", "Removed"));
+            buffer.overlayPending(scopes);
+            assertEquals(new HashSet<>(Arrays.asList("read")), scopes.keySet());
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void serializesWritesThroughTheClusterLock() throws Exception {
+        InMemoryResourceServer server = new InMemoryResourceServer("existing");
+        String lockName = "scope-write-" + UUID.randomUUID();
+        Auth0ClusterLock firstLock = new Auth0ClusterLock(member, lockName,
+                Auth0Constants.SCOPE_WRITE_LOCK_LEASE_MILLIS);
+        Auth0ScopeWriteBuffer firstNode = new Auth0ScopeWriteBuffer(server, InMemoryResourceServer.IDENTIFIER,
+                NO_WINDOW, firstLock);
+        Auth0ScopeWriteBuffer secondNode = new Auth0ScopeWriteBuffer(server, InMemoryResourceServer.IDENTIFIER,
+                NO_WINDOW, new Auth0ClusterLock(member, lockName, Auth0Constants.SCOPE_WRITE_LOCK_LEASE_MILLIS));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertTrue(firstLock.tryLock(0));
+            firstNode.upsert(new Auth0ScopeInfo("read", "Read"));
+            secondNode.upsert(new Auth0ScopeInfo("write", "Write"));
+            // Reading slowly would let the two read-modify-writes overlap and one of them lose its scope.
+            server.onRead = () -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            Future<?> firstWrite = executor.submit(() -> {
+                firstNode.flush();
+                return null;
+            });
+            Future<?> secondWrite = executor.submit(() -> {
+                secondNode.flush();
+                return null;
+            });
+            Thread.sleep(300);
+            assertEquals(0, server.reads.get());
+            firstLock.unlock();
+
+            firstWrite.get(5, TimeUnit.SECONDS);
+            secondWrite.get(5, TimeUnit.SECONDS);
+            assertEquals(new HashSet<>(Arrays.asList("existing", "read", "write")), server.getScopes().keySet());
+            assertEquals(2, server.updates.get());
+        } finally {
+            executor.shutdownNow();
+            firstNode.close();
+            secondNode.close();
+        }
+    }
+}
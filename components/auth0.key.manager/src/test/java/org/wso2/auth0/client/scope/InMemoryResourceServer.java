@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.scope;
+
+import feign.FeignException;
+import org.wso2.auth0.client.model.Auth0ResourceServer;
+import org.wso2.auth0.client.model.Auth0ResourceServerInfo;
+import org.wso2.auth0.client.model.Auth0ResourceServerPatch;
+import org.wso2.auth0.client.model.Auth0ScopeInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resource server API backed by a scopes list in memory, counting the reads and updates it serves.
+ */
+class InMemoryResourceServer implements Auth0ResourceServer {
+    static final String IDENTIFIER = "https://wso2.example.com";
+    final AtomicInteger reads = new AtomicInteger();
+    final AtomicInteger updates = new AtomicInteger();
+    // Run on every read, after the scopes were read, to interleave other work with a read-modify-write.
+    volatile Runnable onRead;
+    volatile boolean failing;
+    private List<Auth0ScopeInfo> scopes = new ArrayList<>();
+
+    /**
+     * Error returned by Auth0 for an update conflicting with another one.
+     */
+    private static final class ConflictException extends FeignException {
+        ConflictException() {
+            super(409, "Conflicting update");
+        }
+    }
+
+    InMemoryResourceServer(String... scopeValues) {
+        for (String scopeValue : scopeValues) {
+            scopes.add(new Auth0ScopeInfo(scopeValue, "Description of " + scopeValue));
+        }
+    }
+
+    @Override
+    public Auth0ResourceServerInfo createResourceServer(Auth0ResourceServerInfo resourceServerInfo) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Auth0ResourceServerInfo getResourceServer(String id) {
+        reads.incrementAndGet();
+        checkFailing();
+        Auth0ResourceServerInfo resourceServerInfo = toResourceServerInfo();
+        Runnable hook = onRead;
+        if (hook != null) {
+            hook.run();
+        }
+        return resourceServerInfo;
+    }
+
+    @Override
+    public Auth0ResourceServerInfo updateResourceServer(String id, Auth0ResourceServerPatch resourceServerPatch) {
+        updates.incrementAndGet();
+        checkFailing();
+        synchronized (this) {
+            scopes = copy(resourceServerPatch.getScopes());
+        }
+        return toResourceServerInfo();
+    }
+
+    synchronized void setScopes(Auth0ScopeInfo... scopeInfos) {
+        scopes = copy(Arrays.asList(scopeInfos));
+    }
+
+    /**
+     * Returns the descriptions of the scopes of the resource server, keyed by scope value.
+     */
+    synchronized Map<String, String> getScopes() {
+        Map<String, String> descriptions = new LinkedHashMap<>();
+        for (Auth0ScopeInfo scope : scopes) {
+            descriptions.put(scope.getValue(), scope.getDescription());
+        }
+        return descriptions;
+    }
+
+    private synchronized Auth0ResourceServerInfo toResourceServerInfo() {
+        Auth0ResourceServerInfo resourceServerInfo = new Auth0ResourceServerInfo();
+        resourceServerInfo.setId("resource-server-id");
+        resourceServerInfo.setIdentifier(IDENTIFIER);
+        resourceServerInfo.setName("WSO2");
+        resourceServerInfo.setScopes(copy(scopes));
+        return resourceServerInfo;
+    }
+
+    private void checkFailing() {
+        if (failing) {
+            throw new ConflictException();
+        }
+    }
+
+    private static List<Auth0ScopeInfo> copy(List<Auth0ScopeInfo> scopeInfos) {
+        List<Auth0ScopeInfo> copies = new ArrayList<>();
+        for (Auth0ScopeInfo scope : scopeInfos) {
+            copies.add(new Auth0ScopeInfo(scope.getValue(), scope.getDescription()));
+        }
+        return copies;
+    }
+}
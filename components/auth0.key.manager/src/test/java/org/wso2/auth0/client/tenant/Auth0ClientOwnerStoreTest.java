@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.auth0.client.tenant;
+
+import org.junit.Test;
+import org.wso2.auth0.client.Auth0Constants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises the owner log through restarts and compaction.
+ */
+public class Auth0ClientOwnerStoreTest {
+
+    @Test
+    public void recoversOwnersAfterRestart() throws IOException {
+        File file = new File(Files.createTempDirectory("auth0-owners").toFile(), "km.owners");
+        Auth0ClientOwnerStore store = new Auth0ClientOwnerStore(file);
+        store.put("client1", "primary");
+        store.put("client2", "tenant 2");
+        store.put("client1", "tenant3");
+        store.put("client3", "primary");
+        store.remove("client3");
+        store.close();
+
+        Auth0ClientOwnerStore reopened = new Auth0ClientOwnerStore(file);
+        assertEquals("tenant3", reopened.get("client1"));
+        assertEquals("tenant 2", reopened.get("client2"));
+        assertNull(reopened.get("client3"));
+        reopened.close();
+    }
+
+    @Test
+    public void compactsLogOnceItOutgrowsTheOwners() throws IOException {
+        File file = new File(Files.createTempDirectory("auth0-owners").toFile(), "km.owners");
+        Auth0ClientOwnerStore store = new Auth0ClientOwnerStore(file);
+        long records = Auth0Constants.CLIENT_OWNER_LOG_COMPACTION_MIN_RECORDS;
+        for (long i = 0; i < records; i++) {
+            store.put("client" + i, "primary");
+            store.remove("client" + i);
+        }
+        store.put("kept", "primary");
+        store.close();
+
+        assertTrue(Files.readAllLines(file.toPath()).size() < records);
+        Auth0ClientOwnerStore reopened = new Auth0ClientOwnerStore(file);
+        assertEquals("primary", reopened.get("kept"));
+        assertNull(reopened.get("client0"));
+        reopened.close();
+    }
+}
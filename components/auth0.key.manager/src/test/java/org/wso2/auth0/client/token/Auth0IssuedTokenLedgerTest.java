@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.auth0.client.token;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises expiry through the timing wheel and the bounds of the ledger.
+ */
+public class Auth0IssuedTokenLedgerTest {
+
+    @Test
+    public void wheelPurgesExpiredTokens() throws InterruptedException {
+        Auth0IssuedTokenLedger ledger = new Auth0IssuedTokenLedger(10, 16, 100, 10);
+        try {
+            ledger.record("client1", "token1", "default", 1);
+            ledger.record("client2", "token2", "default", 60);
+            assertEquals(2, ledger.size());
+            long deadline = System.currentTimeMillis() + 3000;
+            while (ledger.size() > 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, ledger.size());
+            assertEquals(Collections.singleton("client2"), ledger.getConsumerKeys());
+            assertEquals("token2", ledger.getLatestToken("client2").getAccessToken());
+        } finally {
+            ledger.close();
+        }
+    }
+
+    @Test
+    public void consumerOverItsBoundDropsItsFirstExpiringToken() {
+        Auth0IssuedTokenLedger ledger = new Auth0IssuedTokenLedger(1000, 16, 100, 2);
+        try {
+            ledger.record("client1", "token1", "default", 100);
+            ledger.record("client1", "token2", "default", 50);
+            ledger.record("client2", "token3", "default", 10);
+            ledger.record("client1", "token4", "default", 200);
+            assertEquals(new LinkedHashSet<>(Arrays.asList("token1", "token4")), ledger.getActiveTokens("client1"));
+            assertEquals(Collections.singleton("token3"), ledger.getActiveTokens("client2"));
+            assertEquals(3, ledger.size());
+        } finally {
+            ledger.close();
+        }
+    }
+
+    @Test
+    public void fullLedgerDropsTheFirstExpiringTokenOfAnyConsumer() {
+        Auth0IssuedTokenLedger ledger = new Auth0IssuedTokenLedger(1000, 16, 2, 10);
+        try {
+            ledger.record("client1", "token1", "default", 100);
+            ledger.record("client2", "token2", "default", 50);
+            ledger.record("client3", "token3", "default", 200);
+            assertEquals(2, ledger.size());
+            assertTrue(ledger.getActiveTokens("client2").isEmpty());
+            assertEquals(Collections.singleton("token1"), ledger.getActiveTokens("client1"));
+            assertEquals(Collections.singleton("token3"), ledger.getActiveTokens("client3"));
+        } finally {
+            ledger.close();
+        }
+    }
+
+    @Test
+    public void keepsOnlyTheLatestTokenInFull() {
+        Auth0IssuedTokenLedger ledger = new Auth0IssuedTokenLedger(1000, 16, 100, 10);
+        try {
+            ledger.record("client1", "token1", "default", 100);
+            ledger.record("client1", "token2", "default", 50);
+            assertEquals("token1", ledger.getLatestToken("client1").getAccessToken());
+            ledger.record("client1", "token3", "default", 200);
+            ledger.record("client1", "token3", "default", 300);
+            Auth0IssuedTokenLedger.IssuedToken latest = ledger.getLatestToken("client1");
+            assertEquals("token3", latest.getAccessToken());
+            assertEquals(3, ledger.size());
+
+            ledger.removeConsumer("client1");
+            assertNull(ledger.getLatestToken("client1"));
+            assertEquals(0, ledger.size());
+        } finally {
+            ledger.close();
+        }
+    }
+
+    @Test
+    public void identifiesJwtsByIdOrSignature() {
+        assertEquals("id1", Auth0IssuedTokenLedger.tokenIdOf(jwt("{\"jti\":\"id1\",\"sub\":\"client1\"}")));
+        assertEquals("signature", Auth0IssuedTokenLedger.tokenIdOf(jwt("{\"sub\":\"client1\"}")));
+        assertEquals("signature", Auth0IssuedTokenLedger.tokenIdOf("header.not json.signature"));
+        assertEquals("opaque-token", Auth0IssuedTokenLedger.tokenIdOf("opaque-token"));
+    }
+
+    private static String jwt(String claims) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.Auth0.client.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Applications created during a load test run, from which operations pick their target. An application being deleted
+ * is taken out of the pool first, so that other operations rarely pick a deleted application.
+ */
+public class ApplicationPool {
+    private final List<String> clientIds = new ArrayList<>();
+    private final List<String> clientSecrets = new ArrayList<>();
+
+    /**
+     * An application of the pool.
+     */
+    public static final class Application {
+        private final String clientId;
+        private final String clientSecret;
+
+        Application(String clientId, String clientSecret) {
+            this.clientId = clientId;
+            this.clientSecret = clientSecret;
+        }
+
+        public String getClientId() {
+            return clientId;
+        }
+
+        public String getClientSecret() {
+            return clientSecret;
+        }
+    }
+
+    public synchronized void add(String clientId, String clientSecret) {
+        clientIds.add(clientId);
+        clientSecrets.add(clientSecret);
+    }
+
+    /**
+     * Returns a random application, or {@code null} if the pool is empty.
+     */
+    public synchronized Application pick(Random random) {
+        if (clientIds.isEmpty()) {
+            return null;
+        }
+        int index = random.nextInt(clientIds.size());
+        return new Application(clientIds.get(index), clientSecrets.get(index));
+    }
+
+    /**
+     * Takes a random application out of the pool, or returns {@code null} if the pool is empty.
+     */
+    public synchronized Application take(Random random) {
+        if (clientIds.isEmpty()) {
+            return null;
+        }
+        int index = random.nextInt(clientIds.size());
+        int last = clientIds.size() - 1;
+        Application application = new Application(clientIds.get(index), clientSecrets.get(index));
+        clientIds.set(index, clientIds.get(last));
+        clientSecrets.set(index, clientSecrets.get(last));
+        clientIds.remove(last);
+        clientSecrets.remove(last);
+        return application;
+    }
+
+    /**
+     * Records the new secret of an application after its secret was rotated.
+     */
+    public synchronized void updateSecret(String clientId, String clientSecret) {
+        int index = clientIds.indexOf(clientId);
+        if (index >= 0) {
+            clientSecrets.set(index, clientSecret);
+        }
+    }
+
+    public synchronized int size() {
+        return clientIds.size();
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.Auth0.client.loadtest;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In memory stand-in for an Auth0 tenant, serving the token endpoint and the parts of the management API used by the
+ * key manager. Every response is delayed by a fixed latency to model the round trip to Auth0.
+ */
+public class Auth0StandIn {
+    static final String MANAGEMENT_CLIENT_ID = "loadtest-management-client";
+    static final String MANAGEMENT_CLIENT_SECRET = "loadtest-management-secret";
+    private static final String CLIENTS = "clients";
+    private static final String RESOURCE_SERVERS = "resource-servers";
+    private static final String CLIENT_GRANTS = "client-grants";
+    private final Gson gson = new Gson();
+    private final ConcurrentNavigableMap<String, JsonObject> clients = new ConcurrentSkipListMap<>();
+    private final Map<String, JsonObject> resourceServers = new ConcurrentHashMap<>();
+    private final Map<String, JsonObject> clientGrants = new ConcurrentHashMap<>();
+    private final long latencyMillis;
+    private final ExecutorService executor;
+    private final HttpServer server;
+
+    public Auth0StandIn(long latencyMillis, int threads) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/oauth/token", this::handleToken);
+        server.createContext("/api/v2/", this::handleManagement);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getTokenEndpoint() {
+        return getBaseUrl() + "/oauth/token";
+    }
+
+    public String getAudience() {
+        return getBaseUrl() + "/api/v2/";
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    private String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handleToken(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = readParameters(exchange);
+        String clientId = parameters.get("client_id");
+        String clientSecret = parameters.get("client_secret");
+        JsonObject client = clientId != null ? clients.get(clientId) : null;
+        boolean authenticated = MANAGEMENT_CLIENT_ID.equals(clientId) && MANAGEMENT_CLIENT_SECRET.equals(clientSecret);
+        if (!authenticated && client != null) {
+            synchronized (client) {
+                authenticated = client.get("client_secret").getAsString().equals(clientSecret);
+            }
+        }
+        if (!authenticated) {
+            respond(exchange, 401, "{\"error\":\"access_denied\"}");
+            return;
+        }
+        JsonObject token = new JsonObject();
+        token.addProperty("access_token", UUID.randomUUID().toString());
+        token.addProperty("token_type", "Bearer");
+        token.addProperty("expires_in", 86400);
+        if (parameters.get("scope") != null) {
+            token.addProperty("scope", parameters.get("scope"));
+        }
+        respond(exchange, 200, token.toString());
+    }
+
+    private void handleManagement(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] segments = exchange.getRequestURI().getRawPath().substring("/api/v2/".length()).split("/");
+        String collection = segments[0];
+        String id = segments.length > 1 ? decode(segments[1]) : null;
+        String action = segments.length > 2 ? segments[2] : null;
+        if (CLIENTS.equals(collection)) {
+            handleClients(exchange, method, id, action);
+        } else if (RESOURCE_SERVERS.equals(collection)) {
+            handleResourceServers(exchange, method, id);
+        } else if (CLIENT_GRANTS.equals(collection) && id == null && "POST".equals(method)) {
+            createClientGrant(exchange);
+        } else if ("logs".equals(collection)) {
+            respond(exchange, 200, "[]");
+        } else {
+            respond(exchange, 404, "{}");
+        }
+    }
+
+    private void handleClients(HttpExchange exchange, String method, String id, String action) throws IOException {
+        if (id == null && "POST".equals(method)) {
+            JsonObject client = readObject(exchange);
+            client.addProperty("client_id", UUID.randomUUID().toString().replace("-", ""));
+            client.addProperty("client_secret", UUID.randomUUID().toString() + UUID.randomUUID().toString());
+            clients.put(client.get("client_id").getAsString(), client);
+            respond(exchange, 201, client.toString());
+            return;
+        }
+        if (id == null && "GET".equals(method)) {
+            listClients(exchange);
+            return;
+        }
+        JsonObject client = id != null ? clients.get(id) : null;
+        if (client == null) {
+            respond(exchange, 404, "{\"statusCode\":404}");
+            return;
+        }
+        int status;
+        String body;
+        // Clients are mutable JSON objects, shared by the threads serving requests for the same client.
+        synchronized (client) {
+            if ("rotate-secret".equals(action) && "POST".equals(method)) {
+                client.addProperty("client_secret", UUID.randomUUID().toString() + UUID.randomUUID().toString());
+                status = 200;
+                body = client.toString();
+            } else if ("GET".equals(method)) {
+                status = 200;
+                body = client.toString();
+            } else if ("PATCH".equals(method)) {
+                for (Map.Entry<String, JsonElement> field : readObject(exchange).entrySet()) {
+                    if (!"client_id".equals(field.getKey()) && !"client_secret".equals(field.getKey())) {
+                        client.add(field.getKey(), field.getValue());
+                    }
+                }
+                status = 200;
+                body = client.toString();
+            } else if ("DELETE".equals(method)) {
+                clients.remove(id);
+                status = 204;
+                body = null;
+            } else {
+                status = 405;
+                body = "{}";
+            }
+        }
+        respond(exchange, status, body);
+    }
+
+    private void listClients(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int take = query.containsKey("take") ? Integer.parseInt(query.get("take")) : 50;
+        String from = query.get("from");
+        Iterator<JsonObject> iterator = (from != null ? clients.tailMap(from, false) : clients).values().iterator();
+        JsonArray page = new JsonArray();
+        String last = null;
+        while (iterator.hasNext() && page.size() < take) {
+            JsonObject client = iterator.next();
+            synchronized (client) {
+                page.add(new JsonParser().parse(client.toString()));
+            }
+            last = client.get("client_id").getAsString();
+        }
+        JsonObject response = new JsonObject();
+        response.add("clients", page);
+        if (iterator.hasNext()) {
+            response.addProperty("next", last);
+        }
+        respond(exchange, 200, response.toString());
+    }
+
+    private void createClientGrant(HttpExchange exchange) throws IOException {
+        JsonObject clientGrant = readObject(exchange);
+        String key = clientGrant.get("client_id").getAsString() + "\n" + clientGrant.get("audience").getAsString();
+        clientGrant.addProperty("id", "cgr_" + UUID.randomUUID().toString().replace("-", ""));
+        if (clientGrants.putIfAbsent(key, clientGrant) != null) {
+            respond(exchange, 409, "{\"statusCode\":409}");
+        } else {
+            respond(exchange, 201, clientGrant.toString());
+        }
+    }
+
+    private void handleResourceServers(HttpExchange exchange, String method, String id) throws IOException {
+        if (id == null && "POST".equals(method)) {
+            JsonObject resourceServer = readObject(exchange);
+            String identifier = resourceServer.get("identifier").getAsString();
+            resourceServer.addProperty("id", UUID.randomUUID().toString().replace("-", ""));
+            resourceServer.add("scopes", new JsonArray());
+            if (resourceServers.putIfAbsent(identifier, resourceServer) != null) {
+                respond(exchange, 409, "{\"statusCode\":409}");
+            } else {
+                respond(exchange, 201, resourceServer.toString());
+            }
+            return;
+        }
+        JsonObject resourceServer = id != null ? resourceServers.get(id) : null;
+        if (resourceServer == null) {
+            respond(exchange, 404, "{\"statusCode\":404}");
+        } else if ("GET".equals(method)) {
+            String body;
+            synchronized (resourceServer) {
+                body = resourceServer.toString();
+            }
+            respond(exchange, 200, body);
+        } else if ("PATCH".equals(method)) {
+            String body;
+            synchronized (resourceServer) {
+                for (Map.Entry<String, JsonElement> field : readObject(exchange).entrySet()) {
+                    resourceServer.add(field.getKey(), field.getValue());
+                }
+                body = resourceServer.toString();
+            }
+            respond(exchange, 200, body);
+        } else {
+            respond(exchange, 405, "{}");
+        }
+    }
+
+    private Map<String, String> readParameters(HttpExchange exchange) throws IOException {
+        String body = new String(readBody(exchange), StandardCharsets.UTF_8);
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded")) {
+            return parseQuery(body);
+        }
+        Map<String, String> parameters = new HashMap<>();
+        try {
+            JsonElement element = new JsonParser().parse(body);
+            if (element.isJsonObject()) {
+                for (Map.Entry<String, JsonElement> field : element.getAsJsonObject().entrySet()) {
+                    if (field.getValue().isJsonPrimitive()) {
+                        parameters.put(field.getKey(), field.getValue().getAsString());
+                    }
+                }
+            }
+        } catch (JsonParseException e) {
+            // Treated as a request without parameters.
+        }
+        return parameters;
+    }
+
+    private JsonObject readObject(HttpExchange exchange) throws IOException {
+        byte[] body = readBody(exchange);
+        if (body.length == 0) {
+            return new JsonObject();
+        }
+        return gson.fromJson(new String(body, StandardCharsets.UTF_8), JsonObject.class);
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return body.toByteArray();
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(decode(parameter.substring(0, separator)), decode(parameter.substring(separator + 1)));
+            }
+        }
+        return parameters;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return value;
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        try {
+            TimeUnit.MILLISECONDS.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        byte[] payload = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, payload.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(payload);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.Auth0.client.loadtest;
+
+import com.google.gson.GsonBuilder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.wso2.auth0.client.Auth0Constants;
+import org.wso2.auth0.client.Auth0OAuthClient;
+import org.wso2.carbon.apimgt.api.model.AccessTokenInfo;
+import org.wso2.carbon.apimgt.api.model.AccessTokenRequest;
+import org.wso2.carbon.apimgt.api.model.ApplicationConstants;
+import org.wso2.carbon.apimgt.api.model.KeyManagerConfiguration;
+import org.wso2.carbon.apimgt.api.model.OAuthAppRequest;
+import org.wso2.carbon.apimgt.api.model.OAuthApplicationInfo;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test driver for the Auth0 key manager. It runs an {@code Auth0OAuthClient} against a local Auth0 stand-in and
+ * replays a mix of operations at a fixed rate with a pool of workers, then writes the latency percentiles and
+ * throughput of every operation as JSON.
+ * <p>
+ * Operations are started on an open schedule: each operation has an intended start time derived from the target
+ * rate, and its latency is measured from that time. Operations delayed because every worker was busy are therefore
+ * charged the time they waited, rather than being left out of the measurement.
+ * <p>
+ * Run with {@code mvn -Pload-test compile exec:java} from this module, see {@link LoadTestSettings} for the settings.
+ */
+public class LoadDriver {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final String USERNAME = "admin";
+    private final LoadTestSettings settings;
+    private final Auth0OAuthClient keyManager;
+    private final ApplicationPool applicationPool = new ApplicationPool();
+    private final AtomicInteger applicationCount = new AtomicInteger();
+
+    private LoadDriver(LoadTestSettings settings, Auth0OAuthClient keyManager) {
+        this.settings = settings;
+        this.keyManager = keyManager;
+    }
+
+    /**
+     * Latencies and counts of the operations of one phase of the run.
+     */
+    private static final class PhaseResult {
+        private final Map<LoadTestOperation, Histogram> latencies = new EnumMap<>(LoadTestOperation.class);
+        private final Map<LoadTestOperation, LongAdder> errors = new EnumMap<>(LoadTestOperation.class);
+        private long elapsedNanos;
+
+        PhaseResult() {
+            for (LoadTestOperation operation : LoadTestOperation.values()) {
+                latencies.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+                errors.put(operation, new LongAdder());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        if (System.getProperty("carbon.home") == null) {
+            System.setProperty("carbon.home", "target" + File.separator + "carbon-home");
+        }
+        Auth0StandIn standIn = new Auth0StandIn(settings.getStandInLatencyMillis(), settings.getStandInThreads());
+        standIn.start();
+        try {
+            Auth0OAuthClient keyManager = new Auth0OAuthClient("https://localhost:9443/loadtest");
+            keyManager.loadConfiguration(createConfiguration(settings, standIn));
+            LoadDriver driver = new LoadDriver(settings, keyManager);
+            driver.seed();
+            if (settings.getWarmupSeconds() > 0) {
+                System.out.println("Warming up for " + settings.getWarmupSeconds() + " seconds");
+                driver.runPhase(settings.getWarmupSeconds());
+            }
+            System.out.println("Measuring for " + settings.getDurationSeconds() + " seconds at "
+                    + settings.getRate() + " operations per second");
+            PhaseResult result = driver.runPhase(settings.getDurationSeconds());
+            Map<String, Object> report = driver.createReport(result, standIn);
+            writeReport(report, new File(settings.getOutput()));
+            System.out.println(new GsonBuilder().setPrettyPrinting().create().toJson(report.get("operations")));
+            System.out.println("Results written to " + settings.getOutput());
+        } finally {
+            standIn.stop();
+        }
+    }
+
+    private static KeyManagerConfiguration createConfiguration(LoadTestSettings settings, Auth0StandIn standIn) {
+        KeyManagerConfiguration configuration = new KeyManagerConfiguration();
+        configuration.setName("loadtest");
+        configuration.addParameter(APIConstants.KeyManager.TOKEN_ENDPOINT, standIn.getTokenEndpoint());
+        configuration.addParameter(Auth0Constants.AUDIENCE, standIn.getAudience());
+        configuration.addParameter(Auth0Constants.CLIENT_ID, Auth0StandIn.MANAGEMENT_CLIENT_ID);
+        configuration.addParameter(Auth0Constants.CLIENT_SECRET, Auth0StandIn.MANAGEMENT_CLIENT_SECRET);
+        for (Map.Entry<String, String> connectorConfiguration : settings.getConnectorConfigurations().entrySet()) {
+            configuration.addParameter(connectorConfiguration.getKey(), connectorConfiguration.getValue());
+        }
+        return configuration;
+    }
+
+    /**
+     * Creates the applications the first operations of the run pick from.
+     */
+    private void seed() throws Exception {
+        System.out.println("Creating " + settings.getApplications() + " applications");
+        for (int i = 0; i < settings.getApplications(); i++) {
+            createApplication();
+        }
+    }
+
+    /**
+     * Starts operations at the target rate for the given time, and waits for them to complete.
+     */
+    private PhaseResult runPhase(long durationSeconds) throws InterruptedException {
+        PhaseResult result = new PhaseResult();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(settings.getWorkers(), settings.getWorkers(), 0,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+        Random random = new Random();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.getRate());
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (long i = 0; ; i++) {
+            final long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            final LoadTestOperation operation = settings.pickOperation(random);
+            workers.execute(() -> {
+                try {
+                    execute(operation);
+                } catch (Exception e) {
+                    result.errors.get(operation).increment();
+                }
+                long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart);
+                result.latencies.get(operation).recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private void execute(LoadTestOperation operation) throws Exception {
+        Random random = ThreadLocalRandom.current();
+        ApplicationPool.Application application = operation == LoadTestOperation.DELETE_APPLICATION
+                ? applicationPool.take(random) : applicationPool.pick(random);
+        if (operation == LoadTestOperation.CREATE_APPLICATION || application == null) {
+            createApplication();
+            return;
+        }
+        switch (operation) {
+            case RETRIEVE_APPLICATION:
+                keyManager.retrieveApplication(application.getClientId());
+                break;
+            case UPDATE_APPLICATION:
+                OAuthApplicationInfo applicationInfo = createApplicationInfo("loadtest-app-"
+                        + application.getClientId());
+                applicationInfo.setClientId(application.getClientId());
+                applicationInfo.setClientSecret(application.getClientSecret());
+                keyManager.updateApplication(createAppRequest(applicationInfo));
+                break;
+            case DELETE_APPLICATION:
+                keyManager.deleteApplication(application.getClientId());
+                break;
+            case GET_TOKEN:
+                AccessTokenRequest tokenRequest = new AccessTokenRequest();
+                tokenRequest.setClientId(application.getClientId());
+                tokenRequest.setClientSecret(application.getClientSecret());
+                tokenRequest.setGrantType("client_credentials");
+                tokenRequest.setScope(new String[]{"default"});
+                AccessTokenInfo accessTokenInfo = keyManager.getNewApplicationAccessToken(tokenRequest);
+                if (accessTokenInfo == null) {
+                    throw new IllegalStateException("No token issued to " + application.getClientId());
+                }
+                break;
+            case ROTATE_SECRET:
+                AccessTokenRequest secretRequest = new AccessTokenRequest();
+                secretRequest.setClientId(application.getClientId());
+                applicationPool.updateSecret(application.getClientId(),
+                        keyManager.getNewApplicationConsumerSecret(secretRequest));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operation : " + operation);
+        }
+    }
+
+    private void createApplication() throws Exception {
+        OAuthApplicationInfo createdApplication = keyManager.createApplication(createAppRequest(
+                createApplicationInfo("loadtest-app-" + applicationCount.incrementAndGet())));
+        if (createdApplication == null) {
+            throw new IllegalStateException("No application created");
+        }
+        applicationPool.add(createdApplication.getClientId(), createdApplication.getClientSecret());
+    }
+
+    private static OAuthApplicationInfo createApplicationInfo(String name) {
+        OAuthApplicationInfo applicationInfo = new OAuthApplicationInfo();
+        applicationInfo.setClientName(name);
+        applicationInfo.setCallBackURL("https://localhost/callback");
+        applicationInfo.addParameter(ApplicationConstants.OAUTH_CLIENT_USERNAME, USERNAME);
+        applicationInfo.addParameter(ApplicationConstants.APP_KEY_TYPE, "PRODUCTION");
+        applicationInfo.addParameter(APIConstants.JSON_GRANT_TYPES, "client_credentials");
+        return applicationInfo;
+    }
+
+    private static OAuthAppRequest createAppRequest(OAuthApplicationInfo applicationInfo) {
+        OAuthAppRequest appRequest = new OAuthAppRequest();
+        appRequest.setOAuthApplicationInfo(applicationInfo);
+        return appRequest;
+    }
+
+    private Map<String, Object> createReport(PhaseResult result, Auth0StandIn standIn) {
+        double elapsedSeconds = result.elapsedNanos / 1e9;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("finishedAt", new Date().toString());
+        Map<String, Object> runSettings = new LinkedHashMap<>();
+        runSettings.put("rate", settings.getRate());
+        runSettings.put("workers", settings.getWorkers());
+        runSettings.put("durationSeconds", settings.getDurationSeconds());
+        runSettings.put("warmupSeconds", settings.getWarmupSeconds());
+        runSettings.put("mix", settings.getMix());
+        runSettings.put("standInLatencyMillis", settings.getStandInLatencyMillis());
+        runSettings.put("connectorConfigurations", settings.getConnectorConfigurations());
+        report.put("settings", runSettings);
+        Histogram overall = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long overallErrors = 0;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (LoadTestOperation operation : LoadTestOperation.values()) {
+            Histogram histogram = result.latencies.get(operation);
+            long operationErrors = result.errors.get(operation).sum();
+            overall.add(histogram);
+            overallErrors += operationErrors;
+            if (histogram.getTotalCount() > 0) {
+                operations.put(operation.getMixName(), summarize(histogram, operationErrors, elapsedSeconds));
+            }
+        }
+        report.put("operations", operations);
+        report.put("overall", summarize(overall, overallErrors, elapsedSeconds));
+        report.put("applications", standIn.getClientCount());
+        report.put("keyManagerMetrics", keyManager.getMetrics().getMetrics());
+        return report;
+    }
+
+    private static Map<String, Object> summarize(Histogram histogram, long errors, double elapsedSeconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("throughput", histogram.getTotalCount() / elapsedSeconds);
+        summary.put("meanMillis", histogram.getTotalCount() > 0 ? histogram.getMean() / 1000.0 : 0);
+        summary.put("p50Millis", histogram.getValueAtPercentile(50) / 1000.0);
+        summary.put("p95Millis", histogram.getValueAtPercentile(95) / 1000.0);
+        summary.put("p99Millis", histogram.getValueAtPercentile(99) / 1000.0);
+        summary.put("p999Millis", histogram.getValueAtPercentile(99.9) / 1000.0);
+        summary.put("maxMillis", histogram.getMaxValue() / 1000.0);
+        return summary;
+    }
+
+    private static void writeReport(Map<String, Object> report, File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory : " + directory);
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create()
+                    .toJson(report, writer);
+        }
+    }
+}
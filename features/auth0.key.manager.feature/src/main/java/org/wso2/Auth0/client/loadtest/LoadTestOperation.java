@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.Auth0.client.loadtest;
+
+/**
+ * Operations of the key manager replayed by the load test driver, with the name used for them in the operation mix.
+ */
+public enum LoadTestOperation {
+    CREATE_APPLICATION("create"),
+    RETRIEVE_APPLICATION("retrieve"),
+    UPDATE_APPLICATION("update"),
+    DELETE_APPLICATION("delete"),
+    GET_TOKEN("token"),
+    ROTATE_SECRET("rotate");
+
+    private final String mixName;
+
+    LoadTestOperation(String mixName) {
+        this.mixName = mixName;
+    }
+
+    public String getMixName() {
+        return mixName;
+    }
+
+    public static LoadTestOperation fromMixName(String mixName) {
+        for (LoadTestOperation operation : values()) {
+            if (operation.mixName.equals(mixName)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation in the operation mix : " + mixName);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.Auth0.client.loadtest;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Settings of a load test run, read from system properties prefixed with {@code auth0.loadtest.}. Connector
+ * configurations of the key manager can be given as {@code auth0.loadtest.config.<name>}, so that runs with different
+ * connector settings can be compared.
+ */
+public class LoadTestSettings {
+    private static final String PREFIX = "auth0.loadtest.";
+    private static final String CONFIG_PREFIX = PREFIX + "config.";
+    private static final String DEFAULT_MIX = "create=5,retrieve=40,update=5,delete=5,token=40,rotate=5";
+    private final double rate;
+    private final int workers;
+    private final long durationSeconds;
+    private final long warmupSeconds;
+    private final int applications;
+    private final long standInLatencyMillis;
+    private final int standInThreads;
+    private final String mix;
+    private final String output;
+    private final Map<LoadTestOperation, Integer> weights = new EnumMap<>(LoadTestOperation.class);
+    private final int totalWeight;
+    private final Map<String, String> connectorConfigurations = new HashMap<>();
+
+    private LoadTestSettings() {
+        rate = Double.parseDouble(System.getProperty(PREFIX + "rate", "200"));
+        workers = Integer.getInteger(PREFIX + "workers", 64);
+        durationSeconds = Long.getLong(PREFIX + "duration", 60L);
+        warmupSeconds = Long.getLong(PREFIX + "warmup", 10L);
+        applications = Integer.getInteger(PREFIX + "applications", 100);
+        standInLatencyMillis = Long.getLong(PREFIX + "latency", 20L);
+        standInThreads = Integer.getInteger(PREFIX + "standInThreads", 256);
+        mix = System.getProperty(PREFIX + "mix", DEFAULT_MIX);
+        output = System.getProperty(PREFIX + "output", "target/load-test-results.json");
+        int weightSum = 0;
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid operation mix entry : " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            weights.put(LoadTestOperation.fromMixName(parts[0].trim()), weight);
+            weightSum += weight;
+        }
+        if (weightSum <= 0 || rate <= 0 || workers <= 0) {
+            throw new IllegalArgumentException("The rate, number of workers and operation mix must be positive");
+        }
+        totalWeight = weightSum;
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(CONFIG_PREFIX)) {
+                connectorConfigurations.put(name.substring(CONFIG_PREFIX.length()), System.getProperty(name));
+            }
+        }
+    }
+
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings();
+    }
+
+    /**
+     * Picks the next operation according to the weights of the operation mix.
+     */
+    public LoadTestOperation pickOperation(Random random) {
+        int point = random.nextInt(totalWeight);
+        for (Map.Entry<LoadTestOperation, Integer> weight : weights.entrySet()) {
+            point -= weight.getValue();
+            if (point < 0) {
+                return weight.getKey();
+            }
+        }
+        return LoadTestOperation.RETRIEVE_APPLICATION;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public long getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getApplications() {
+        return applications;
+    }
+
+    public long getStandInLatencyMillis() {
+        return standInLatencyMillis;
+    }
+
+    public int getStandInThreads() {
+        return standInThreads;
+    }
+
+    public String getMix() {
+        return mix;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public Map<String, String> getConnectorConfigurations() {
+        return connectorConfigurations;
+    }
+}